@@ -0,0 +1,323 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Lets students into enlistment a few at a time, by priority window, so opening enlistment does not
+ * bring every student in at once.
+ * <p>
+ * Each {@link PriorityWindow} covers some students (e.g. seniors, then each year level below) and opens
+ * at its own time. A student asking to enlist joins the FIFO queue of the first window that covers the
+ * student, and is admitted, in order, as the window's token bucket allows: tokens accrue at the window's
+ * rate from the moment it opens, up to its burst. Asking again keeps the student's place. Once admitted a
+ * student stays admitted. An {@link EnlistmentDispatcher} given the scheduler with
+ * {@link EnlistmentDispatcher#setAdmissionScheduler(AdmissionScheduler)} asks on the student's behalf and holds
+ * the student's enlistments back until then.
+ * <p>
+ * Admission happens in {@link #admit()}, which {@link #start(Duration)} runs periodically on one
+ * background thread. Time comes from the injected {@link Clock}, so tests can drive the scheduler
+ * without waiting.
+ */
+class AdmissionScheduler implements AutoCloseable {
+
+    /**
+     * A group of students let in from a given time at a given rate.
+     */
+    static final class PriorityWindow {
+        private final String name;
+        private final Predicate<Student> covers;
+        private final Instant opensAt;
+        private final double admissionsPerSecond;
+        private final int burst;
+
+        /**
+         * Creates a priority window.
+         * @param name                  The name of the window, e.g. "Seniors".
+         * @param covers                Which students the window is for.
+         * @param opensAt               When the window opens.
+         * @param admissionsPerSecond   How many students the window admits per second.
+         * @param burst                 How many students the window may admit at once when tokens have accrued.
+         */
+        PriorityWindow(String name, Predicate<Student> covers, Instant opensAt, double admissionsPerSecond, int burst) {
+            notBlank(name, "Name cannot be null or blank");
+            requireNonNull(covers, "Covers cannot be null");
+            requireNonNull(opensAt, "Opening time cannot be null");
+            isTrue(admissionsPerSecond > 0, "admissionsPerSecond must be greater than 0, was: " + admissionsPerSecond);
+            isTrue(burst > 0, "burst must be greater than 0, was: " + burst);
+            this.name = name;
+            this.covers = covers;
+            this.opensAt = opensAt;
+            this.admissionsPerSecond = admissionsPerSecond;
+            this.burst = burst;
+        }
+
+        /**
+         * Creates a priority window for the students in the given year levels.
+         * @param name                  The name of the window.
+         * @param yearLevels            The year levels the window is for.
+         * @param opensAt               When the window opens.
+         * @param admissionsPerSecond   How many students the window admits per second.
+         * @param burst                 How many students the window may admit at once.
+         * @return                      The window.
+         */
+        static PriorityWindow forYearLevels(String name, Set<Integer> yearLevels, Instant opensAt,
+                                            double admissionsPerSecond, int burst) {
+            Set<Integer> levels = Set.copyOf(yearLevels);
+            return new PriorityWindow(name, student -> levels.contains(student.getYearLevel()), opensAt,
+                    admissionsPerSecond, burst);
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Instant getOpensAt() {
+            return opensAt;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A student's place in line.
+     */
+    final class Ticket {
+        private final Student student;
+        private final WindowQueue queue;
+        private final CompletableFuture<Void> admission = new CompletableFuture<>();
+        // the ticket's number in its window's line, counted from 0; guarded by lock
+        private long sequence;
+
+        private Ticket(Student student, WindowQueue queue) {
+            this.student = student;
+            this.queue = queue;
+        }
+
+        Student getStudent() {
+            return student;
+        }
+
+        PriorityWindow getWindow() {
+            return queue.window;
+        }
+
+        /**
+         * Gets a future that completes when the student is admitted.
+         * @return      The admission.
+         */
+        CompletableFuture<Void> getAdmission() {
+            return admission;
+        }
+
+        /**
+         * Estimates when the student will be admitted, if the window's rate holds.
+         * @return      The estimated admission time; now or earlier if already admitted.
+         */
+        Instant getEstimatedAdmission() {
+            return estimateAdmission(this);
+        }
+    }
+
+    private final class WindowQueue {
+        private final PriorityWindow window;
+        private final Deque<Ticket> waiting = new ArrayDeque<>();
+        // tickets put in line and taken off it so far, so a ticket's place is its sequence less the admitted
+        private long joined;
+        private long admitted;
+        private double tokens;
+        private long lastRefillMillis;
+
+        private WindowQueue(PriorityWindow window) {
+            this.window = window;
+            this.lastRefillMillis = window.opensAt.toEpochMilli();
+        }
+
+        private void refill(long nowMillis) {
+            if (nowMillis > lastRefillMillis) {
+                tokens = Math.min(window.burst, tokens + (nowMillis - lastRefillMillis) * window.admissionsPerSecond / 1000);
+                lastRefillMillis = nowMillis;
+            }
+        }
+    }
+
+    private final Clock clock;
+    private final List<WindowQueue> queues = new ArrayList<>();
+
+    // guarded by lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Student, Ticket> tickets = new HashMap<>();
+    private final Set<Student> admitted = new HashSet<>();
+
+    private ScheduledExecutorService admitter;
+
+    /**
+     * Creates an admission scheduler.
+     * @param clock     The clock that decides when windows open and tokens accrue.
+     * @param windows   The windows, in priority order; a student joins the first one covering the student.
+     */
+    AdmissionScheduler(Clock clock, List<PriorityWindow> windows) {
+        requireNonNull(clock, "Clock cannot be null");
+        requireNonNull(windows, "Windows cannot be null");
+        isTrue(!windows.isEmpty(), "At least one window is needed");
+        isTrue(windows.stream().noneMatch(Objects::isNull), "Windows cannot contain null elements");
+        this.clock = clock;
+        windows.forEach(window -> queues.add(new WindowQueue(window)));
+    }
+
+    /**
+     * Asks for the student to be admitted. A student already waiting keeps the same ticket and place.
+     * @param student   The student.
+     * @return          The student's ticket; its admission is already complete if the student was admitted.
+     */
+    Ticket request(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        lock.lock();
+        try {
+            Ticket ticket = tickets.get(student);
+            if (ticket != null) {
+                return ticket;
+            }
+            WindowQueue queue = queues.stream().filter(q -> q.window.covers.test(student)).findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No priority window covers " + student));
+            ticket = new Ticket(student, queue);
+            tickets.put(student, ticket);
+            if (admitted.contains(student)) {
+                ticket.admission.complete(null);
+            } else {
+                ticket.sequence = queue.joined++;
+                queue.waiting.addLast(ticket);
+            }
+            return ticket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits, from every open window, as many waiting students as the window's tokens allow.
+     * @return      The students admitted, window by window, in queue order.
+     */
+    List<Student> admit() {
+        List<Ticket> admittedNow = new ArrayList<>();
+        long now = clock.millis();
+        lock.lock();
+        try {
+            for (WindowQueue queue : queues) {
+                if (now < queue.window.opensAt.toEpochMilli()) {
+                    continue;
+                }
+                queue.refill(now);
+                while (queue.tokens >= 1 && !queue.waiting.isEmpty()) {
+                    queue.tokens -= 1;
+                    Ticket ticket = queue.waiting.removeFirst();
+                    queue.admitted++;
+                    admitted.add(ticket.student);
+                    admittedNow.add(ticket);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // complete outside the lock; callers' continuations may call back into the scheduler
+        List<Student> students = new ArrayList<>(admittedNow.size());
+        for (Ticket ticket : admittedNow) {
+            ticket.admission.complete(null);
+            students.add(ticket.student);
+        }
+        return students;
+    }
+
+    boolean isAdmitted(Student student) {
+        lock.lock();
+        try {
+            return admitted.contains(student);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of students waiting in a window.
+     * @param window    The window.
+     * @return          The number of students waiting.
+     */
+    int getWaiting(PriorityWindow window) {
+        lock.lock();
+        try {
+            return queues.stream().filter(q -> q.window == window).mapToInt(q -> q.waiting.size()).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts admitting periodically on a background thread.
+     * @param interval  How often students are admitted.
+     */
+    void start(Duration interval) {
+        requireNonNull(interval, "Interval cannot be null");
+        lock.lock();
+        try {
+            isTrue(admitter == null, "Admission scheduler already started");
+            admitter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "admission-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, interval.toMillis());
+            admitter.scheduleWithFixedDelay(this::admit, millis, millis, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (admitter != null) {
+                admitter.shutdownNow();
+                admitter = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Instant estimateAdmission(Ticket ticket) {
+        long now = clock.millis();
+        lock.lock();
+        try {
+            if (ticket.admission.isDone()) {
+                return Instant.ofEpochMilli(now);
+            }
+            WindowQueue queue = ticket.queue;
+            long position = ticket.sequence - queue.admitted;
+            // tokens available at the later of now and the opening, then one more per 1/rate seconds
+            long from = Math.max(now, queue.window.opensAt.toEpochMilli());
+            double tokens = Math.min(queue.window.burst,
+                    queue.tokens + Math.max(0, from - queue.lastRefillMillis) * queue.window.admissionsPerSecond / 1000);
+            double shortfall = position + 1 - tokens;
+            long waitMillis = shortfall <= 0 ? 0 : (long) Math.ceil(shortfall * 1000 / queue.window.admissionsPerSecond);
+            return Instant.ofEpochMilli(from + waitMillis);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
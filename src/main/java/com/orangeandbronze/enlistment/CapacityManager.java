@@ -0,0 +1,342 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Watches how often students are turned away from full sections and opens overflow sections
+ * for subjects that keep turning students away.
+ * <p>
+ * Every student rejected with {@link RoomCapacityReachedException} joins the waitlist of the section's
+ * subject. When a subject's capacity rejections within the window reach the threshold, the manager
+ * looks for a room and a candidate schedule that is free, preferring the schedule that the most
+ * waitlisted students can attend and the smallest room that seats them, and proposes an overflow section.
+ * In automatic mode the proposal is opened right away: the section is created, its room slot taken
+ * and the waitlisted students enlisted through the dispatcher, each as an ordinary command, so the
+ * rest of the catalog keeps enlisting undisturbed.
+ * <p>
+ * The manager also watches the sections students were turned away from. When a seat in one frees up,
+ * through a cancellation or a swap, the first waitlisted student still without the subject is enlisted in
+ * it through the dispatcher; students who got the subject elsewhere meanwhile are dropped from the waitlist.
+ * <p>
+ * Like {@link SectionDemandAnalytics}, receiving an event only queues it; the work happens in
+ * {@link #evaluate()}, which {@link #start(Duration)} runs periodically on one background thread.
+ * The search for proposals works on a copy of the waitlists, so a freed seat is offered without waiting for
+ * an evaluation to finish. A proposal that cannot be opened, e.g. because its room slot was taken meanwhile,
+ * is logged and its students stay on the waitlist for the next evaluation.
+ */
+class CapacityManager implements EnlistmentListener, SeatListener, AutoCloseable {
+
+    /**
+     * A proposed overflow section for a subject.
+     */
+    static final class OverflowProposal {
+        private final Subject subject;
+        private final Room room;
+        private final Schedule schedule;
+        private final List<Student> students;
+
+        OverflowProposal(Subject subject, Room room, Schedule schedule, List<Student> students) {
+            this.subject = subject;
+            this.room = room;
+            this.schedule = schedule;
+            this.students = List.copyOf(students);
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+
+        Room getRoom() {
+            return room;
+        }
+
+        Schedule getSchedule() {
+            return schedule;
+        }
+
+        /**
+         * Gets the waitlisted students who can attend the proposed schedule, in waitlist order,
+         * up to the room's capacity.
+         * @return      The students to move into the section.
+         */
+        List<Student> getStudents() {
+            return students;
+        }
+
+        @Override
+        public String toString() {
+            return subject + " in " + room + " at " + schedule + " for " + students.size() + " students";
+        }
+    }
+
+    private static final int QUEUE_CAPACITY = 65_536;
+    private static final System.Logger LOGGER = System.getLogger(CapacityManager.class.getName());
+
+    private final EnlistmentDispatcher dispatcher;
+    private final List<Room> rooms;
+    private final List<Schedule> candidateSchedules;
+    private final Clock clock;
+    private final long windowMillis;
+    private final int rejectionThreshold;
+    private final boolean automatic;
+    private final BlockingQueue<EnlistmentEvent> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger overflowSectionsOpened = new AtomicInteger();
+
+    // guarded by lock; evaluate() and the getters may run on different threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Subject, WindowedCounter> capacityRejections = new HashMap<>();
+    private final Map<Subject, LinkedHashSet<Student>> waitlists = new HashMap<>();
+    private final Set<Section> watchedSections = new HashSet<>();
+
+    private ScheduledExecutorService evaluator;
+
+    /**
+     * Creates a capacity manager. Register it with {@link EnlistmentDispatcher#addListener(EnlistmentListener)}.
+     * @param dispatcher            The dispatcher used to enlist waitlisted students into overflow sections.
+     * @param rooms                 The rooms overflow sections may be opened in.
+     * @param candidateSchedules    The schedules overflow sections may be given, in order of preference.
+     * @param clock                 The clock that defines the window.
+     * @param window                The window over which capacity rejections are counted.
+     * @param rejectionThreshold    The number of capacity rejections in the window that calls for an overflow section.
+     * @param automatic             Whether proposals are opened automatically, or only returned.
+     */
+    CapacityManager(EnlistmentDispatcher dispatcher, Collection<Room> rooms, List<Schedule> candidateSchedules,
+                    Clock clock, Duration window, int rejectionThreshold, boolean automatic) {
+        requireNonNull(dispatcher, "Dispatcher cannot be null");
+        requireNonNull(rooms, "Rooms cannot be null");
+        requireNonNull(candidateSchedules, "Candidate schedules cannot be null");
+        requireNonNull(clock, "Clock cannot be null");
+        requireNonNull(window, "Window cannot be null");
+        isTrue(window.toMillis() >= 60, "window must be at least 60 milliseconds, was: " + window);
+        isTrue(rejectionThreshold > 0, "rejectionThreshold must be greater than 0, was: " + rejectionThreshold);
+        this.dispatcher = dispatcher;
+        this.rooms = new ArrayList<>(rooms);
+        this.rooms.sort(Comparator.comparingInt(Room::getMaxCapacity));
+        this.candidateSchedules = List.copyOf(candidateSchedules);
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.rejectionThreshold = rejectionThreshold;
+        this.automatic = automatic;
+    }
+
+    @Override
+    public void onEvent(EnlistmentEvent event) {
+        if (event.getType() == EnlistmentEvent.Type.REJECTED
+                && event.getRejection() instanceof RoomCapacityReachedException) {
+            queue.offer(event);
+        }
+    }
+
+    /**
+     * Starts evaluating periodically on a background thread.
+     * @param interval      How often queued rejections are processed.
+     */
+    void start(Duration interval) {
+        requireNonNull(interval, "Interval cannot be null");
+        lock.lock();
+        try {
+            isTrue(evaluator == null, "Capacity manager already started");
+            evaluator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "capacity-manager");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = Math.max(1, interval.toMillis());
+            // an exception escaping the task would cancel every later run
+            evaluator.scheduleWithFixedDelay(() -> {
+                try {
+                    evaluate();
+                } catch (RuntimeException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Capacity evaluation failed", e);
+                }
+            }, millis, millis, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Processes queued rejections and proposes an overflow section for every subject whose
+     * capacity rejections reached the threshold. Proposals made together never share a room slot.
+     * In automatic mode the proposals are also opened.
+     * @return      The proposals made.
+     */
+    List<OverflowProposal> evaluate() {
+        List<EnlistmentEvent> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        Map<Subject, List<Student>> due = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            for (EnlistmentEvent event : batch) {
+                Subject subject = event.getSection().getSubject();
+                capacityRejections.computeIfAbsent(subject, s -> new WindowedCounter(windowMillis, 60))
+                        .add(event.getTimestamp().toEpochMilli(), 1);
+                waitlists.computeIfAbsent(subject, s -> new LinkedHashSet<>()).add(event.getStudent());
+                if (watchedSections.add(event.getSection())) {
+                    event.getSection().addSeatListener(this);
+                }
+            }
+            long now = clock.millis();
+            for (Map.Entry<Subject, WindowedCounter> entry : capacityRejections.entrySet()) {
+                LinkedHashSet<Student> waitlist = waitlists.get(entry.getKey());
+                if (entry.getValue().get(now) >= rejectionThreshold && waitlist != null && !waitlist.isEmpty()) {
+                    due.put(entry.getKey(), new ArrayList<>(waitlist));
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        List<OverflowProposal> proposals = new ArrayList<>();
+        // room slots already proposed in this batch, which the rooms do not know about until opened
+        Map<Room, WeeklySlotMask> claimed = new HashMap<>();
+        due.forEach((subject, waitlist) -> propose(subject, waitlist, claimed).ifPresent(proposal -> {
+            proposals.add(proposal);
+            claimed.merge(proposal.getRoom(), proposal.getSchedule().getSlotMask(), WeeklySlotMask::or);
+        }));
+        if (automatic) {
+            for (OverflowProposal proposal : proposals) {
+                try {
+                    open(proposal);
+                } catch (RuntimeException e) {
+                    LOGGER.log(System.Logger.Level.WARNING, "Could not open overflow section " + proposal, e);
+                }
+            }
+        }
+        return proposals;
+    }
+
+    /**
+     * Opens a proposed overflow section: creates it and takes its room slot as one step, and enlists the
+     * proposal's students through the dispatcher. Students are taken off the waitlist whether or not their
+     * enlistment succeeds; a student who is rejected again rejoins it through the usual events.
+     * @param proposal  The proposal to open.
+     * @return          The new section.
+     * @throws ScheduleRoomConflictException    If the room slot was taken since the proposal was made;
+     *                                          the students then stay on the waitlist.
+     */
+    Section open(OverflowProposal proposal) {
+        requireNonNull(proposal, "Proposal cannot be null");
+        Section section = proposal.getRoom().openSection(proposal.getSubject() + "OVF" + overflowSectionsOpened.incrementAndGet(),
+                proposal.getSchedule(), proposal.getSubject());
+        lock.lock();
+        try {
+            LinkedHashSet<Student> waitlist = waitlists.get(proposal.getSubject());
+            if (waitlist != null) {
+                proposal.getStudents().forEach(waitlist::remove);
+            }
+            // the rejections that led to this section have been answered
+            capacityRejections.remove(proposal.getSubject());
+        } finally {
+            lock.unlock();
+        }
+        proposal.getStudents().forEach(student -> dispatcher.enlist(student, section));
+        return section;
+    }
+
+    /**
+     * Offers a freed seat to the first student waiting for the section's subject who does not have it yet.
+     * The student is taken off the waitlist, along with any student before it who got the subject elsewhere;
+     * if the enlistment is rejected the student rejoins it through the usual events.
+     * @param section   The section with a free seat.
+     */
+    @Override
+    public void seatFreed(Section section) {
+        Subject subject = section.getSubject();
+        while (true) {
+            Student next;
+            lock.lock();
+            try {
+                LinkedHashSet<Student> waitlist = waitlists.get(subject);
+                if (waitlist == null || waitlist.isEmpty()) {
+                    return;
+                }
+                Iterator<Student> first = waitlist.iterator();
+                next = first.next();
+                first.remove();
+            } finally {
+                lock.unlock();
+            }
+            if (!next.getEnlistmentState().hasSubject(subject)) {
+                dispatcher.enlist(next, section);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the students waiting for a seat in the subject, in the order they were turned away.
+     * @param subject   The subject.
+     * @return          A copy of the waitlist.
+     */
+    List<Student> getWaitlist(Subject subject) {
+        lock.lock();
+        try {
+            return new ArrayList<>(waitlists.getOrDefault(subject, new LinkedHashSet<>()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (evaluator != null) {
+                evaluator.shutdownNow();
+                evaluator = null;
+            }
+            watchedSections.forEach(section -> section.removeSeatListener(this));
+            watchedSections.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Optional<OverflowProposal> propose(Subject subject, Collection<Student> waitlist, Map<Room, WeeklySlotMask> claimed) {
+        OverflowProposal best = null;
+        int bestAttendees = 0;
+        for (Schedule schedule : candidateSchedules) {
+            List<Student> attendees = new ArrayList<>();
+            for (Student student : waitlist) {
+                EnlistmentState enlisted = student.getEnlistmentState();
+                if (!enlisted.hasSubject(subject)
+                        && enlisted.getSections().stream().noneMatch(s -> s.getSchedule().hasConflictWith(schedule))) {
+                    attendees.add(student);
+                }
+            }
+            if (attendees.size() <= bestAttendees) {
+                continue;
+            }
+            Room room = smallestFreeRoomSeating(schedule, attendees.size(), claimed);
+            if (room != null) {
+                List<Student> seated = attendees.subList(0, Math.min(attendees.size(), room.getMaxCapacity()));
+                best = new OverflowProposal(subject, room, schedule, seated);
+                bestAttendees = seated.size();
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private Room smallestFreeRoomSeating(Schedule schedule, int students, Map<Room, WeeklySlotMask> claimed) {
+        Room largestFree = null;
+        for (Room room : rooms) {
+            if (room.isAvailable(schedule)
+                    && !claimed.getOrDefault(room, WeeklySlotMask.EMPTY).intersects(schedule.getSlotMask())) {
+                if (room.getMaxCapacity() >= students) {
+                    return room;
+                }
+                largestFree = room;
+            }
+        }
+        return largestFree;
+    }
+}
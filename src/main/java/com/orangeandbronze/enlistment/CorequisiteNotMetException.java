@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class CorequisiteNotMetException extends RuntimeException {
+    CorequisiteNotMetException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
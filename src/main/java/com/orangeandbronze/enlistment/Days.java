@@ -0,0 +1,25 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+import static java.time.DayOfWeek.*;
+
+/**
+ * Represents the days of the week for the schedule.
+ */
+enum Days {
+    MTH(MONDAY, THURSDAY), TF(TUESDAY, FRIDAY), WS(WEDNESDAY, SATURDAY);
+
+    private final Set<DayOfWeek> daysOfWeek;
+
+    Days(DayOfWeek first, DayOfWeek second) {
+        this.daysOfWeek = Collections.unmodifiableSet(EnumSet.of(first, second));
+    }
+
+    Set<DayOfWeek> getDaysOfWeek() {
+        return daysOfWeek;
+    }
+}
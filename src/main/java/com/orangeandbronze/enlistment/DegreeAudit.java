@@ -0,0 +1,284 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Works out what a student still needs to finish a degree program: the subjects remaining, the ones
+ * the student may take next term, and the fewest terms left given the prerequisite chains.
+ * <p>
+ * The program's subjects are numbered once when the audit is built, and every set of subjects is a
+ * {@code long[]} bitmask over those numbers, so auditing a student is a handful of word operations per
+ * term of remaining study. An audit holds no per-student state and can be shared by many threads;
+ * {@link #auditAll(List)} audits whole cohorts in parallel.
+ * <p>
+ * The minimum number of terms assumes no unit limit per term: every subject whose prerequisites are
+ * passed is taken in the next term. Subjects that can never be taken, because they depend on a
+ * subject outside the program that the student has not passed, are reported as unreachable.
+ */
+class DegreeAudit {
+
+    /**
+     * The audit of one student.
+     */
+    final class Result {
+        private final long[] remaining;
+        private final long[] eligible;
+        private final long[] unreachable;
+        private final int minimumTerms;
+
+        private Result(long[] remaining, long[] eligible, long[] unreachable, int minimumTerms) {
+            this.remaining = remaining;
+            this.eligible = eligible;
+            this.unreachable = unreachable;
+            this.minimumTerms = minimumTerms;
+        }
+
+        /**
+         * Gets the subjects of the program the student has not passed.
+         * @return      The remaining subjects.
+         */
+        List<Subject> getRemainingSubjects() {
+            return toSubjects(remaining);
+        }
+
+        /**
+         * Gets the remaining subjects whose prerequisites the student has all passed.
+         * @return      The subjects the student may take next term.
+         */
+        List<Subject> getEligibleSubjects() {
+            return toSubjects(eligible);
+        }
+
+        /**
+         * Gets the remaining subjects the student can never take within the program.
+         * @return      The unreachable subjects.
+         */
+        List<Subject> getUnreachableSubjects() {
+            return toSubjects(unreachable);
+        }
+
+        int getRemainingCount() {
+            return cardinality(remaining);
+        }
+
+        /**
+         * Gets the fewest terms needed to pass every reachable remaining subject.
+         * @return      The number of terms; 0 if nothing reachable remains.
+         */
+        int getMinimumTerms() {
+            return minimumTerms;
+        }
+
+        boolean isEligible(Subject subject) {
+            Integer local = localIndex.get(subject);
+            return local != null && get(eligible, local);
+        }
+
+        @Override
+        public String toString() {
+            return getRemainingCount() + " remaining, eligible " + getEligibleSubjects()
+                    + ", at least " + minimumTerms + " terms";
+        }
+    }
+
+    private final DegreeProgram program;
+    private final Subject[] subjects;
+    private final Map<Subject, Integer> localIndex = new HashMap<>();
+    private final long[][] prereqMasks;
+    private final BitSet[] externalPrereqs;
+    private final int words;
+
+    /**
+     * Creates an audit for a degree program.
+     * @param program   The degree program.
+     */
+    DegreeAudit(DegreeProgram program) {
+        requireNonNull(program, "Degree program cannot be null");
+        this.program = program;
+        this.subjects = program.getSubjects().stream()
+                .sorted(Comparator.comparingInt(Subject::getIndex)).toArray(Subject[]::new);
+        this.words = Math.max(1, (subjects.length + 63) / 64);
+        for (int i = 0; i < subjects.length; i++) {
+            localIndex.put(subjects[i], i);
+        }
+        this.prereqMasks = new long[subjects.length][];
+        this.externalPrereqs = new BitSet[subjects.length];
+        for (int i = 0; i < subjects.length; i++) {
+            prereqMasks[i] = new long[words];
+            for (Subject prereq : subjects[i].getPrerequisites()) {
+                Integer local = localIndex.get(prereq);
+                if (local != null) {
+                    set(prereqMasks[i], local);
+                } else {
+                    if (externalPrereqs[i] == null) {
+                        externalPrereqs[i] = new BitSet();
+                    }
+                    externalPrereqs[i].set(prereq.getIndex());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the shared audit of the degree program instance, building it the first time it is asked for.
+     * A program rebuilt from a reloaded catalog gets its own audit, and an audit goes away with its program.
+     * @param program   The degree program.
+     * @return          The audit.
+     */
+    static DegreeAudit forProgram(DegreeProgram program) {
+        requireNonNull(program, "Degree program cannot be null");
+        return program.getAudit();
+    }
+
+    /**
+     * Audits a student's passed subjects against the student's own degree program.
+     * @param student   The student.
+     * @return          The audit.
+     */
+    static Result auditStudent(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        return forProgram(student.getDegreeProgram()).audit(student.getPassedSubjects());
+    }
+
+    /**
+     * Audits every student in parallel, each against the student's own degree program.
+     * @param students  The students.
+     * @return          The audits, in the same order as the students.
+     */
+    static List<Result> auditAll(List<Student> students) {
+        requireNonNull(students, "Students cannot be null");
+        return students.parallelStream().map(DegreeAudit::auditStudent).collect(Collectors.toList());
+    }
+
+    /**
+     * Audits a transcript against the program.
+     * @param passedSubjects    The subjects the student has passed; subjects outside the program are
+     *                          used only to satisfy prerequisites.
+     * @return                  The audit.
+     */
+    Result audit(Collection<Subject> passedSubjects) {
+        requireNonNull(passedSubjects, "Passed subjects cannot be null");
+        BitSet passed = new BitSet();
+        for (Subject subject : passedSubjects) {
+            passed.set(subject.getIndex());
+        }
+        return audit(passed);
+    }
+
+    /**
+     * Audits a transcript against the program.
+     * @param passedSubjects    The passed subjects as a bitset over {@link Subject#getIndex()}.
+     * @return                  The audit.
+     */
+    Result audit(BitSet passedSubjects) {
+        requireNonNull(passedSubjects, "Passed subjects cannot be null");
+        long[] passed = new long[words];
+        long[] remaining = new long[words];
+        long[] blocked = new long[words];
+        for (int i = 0; i < subjects.length; i++) {
+            if (passedSubjects.get(subjects[i].getIndex())) {
+                set(passed, i);
+            } else {
+                set(remaining, i);
+                if (externalPrereqs[i] != null && !isSubset(externalPrereqs[i], passedSubjects)) {
+                    set(blocked, i);
+                }
+            }
+        }
+
+        long[] eligible = nextTerm(remaining, passed, blocked);
+        long[] eligibleNow = eligible.clone();
+
+        // take every eligible subject each term until no more can be taken
+        long[] done = passed.clone();
+        long[] left = remaining.clone();
+        int terms = 0;
+        while (!isEmpty(eligible)) {
+            terms++;
+            for (int w = 0; w < words; w++) {
+                done[w] |= eligible[w];
+                left[w] &= ~eligible[w];
+            }
+            eligible = nextTerm(left, done, blocked);
+        }
+        return new Result(remaining, eligibleNow, left, terms);
+    }
+
+    DegreeProgram getProgram() {
+        return program;
+    }
+
+    private long[] nextTerm(long[] remaining, long[] passed, long[] blocked) {
+        long[] next = new long[words];
+        for (int w = 0; w < words; w++) {
+            long candidates = remaining[w] & ~blocked[w];
+            while (candidates != 0) {
+                int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                int i = (w << 6) + bit;
+                if (isSubset(prereqMasks[i], passed)) {
+                    next[w] |= 1L << bit;
+                }
+            }
+        }
+        return next;
+    }
+
+    private List<Subject> toSubjects(long[] mask) {
+        List<Subject> result = new ArrayList<>();
+        for (int w = 0; w < mask.length; w++) {
+            long bits = mask[w];
+            while (bits != 0) {
+                result.add(subjects[(w << 6) + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isSubset(long[] subset, long[] superset) {
+        for (int w = 0; w < subset.length; w++) {
+            if ((subset[w] & ~superset[w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSubset(BitSet subset, BitSet superset) {
+        for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+            if (!superset.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(long[] mask) {
+        for (long word : mask) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int cardinality(long[] mask) {
+        int count = 0;
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static void set(long[] mask, int i) {
+        mask[i >>> 6] |= 1L << i;
+    }
+
+    private static boolean get(long[] mask, int i) {
+        return (mask[i >>> 6] & (1L << i)) != 0;
+    }
+}
@@ -4,12 +4,15 @@ import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang3.Validate.*;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 
 class DegreeProgram {
     private final String degreeProgramName;
     private final Collection<Subject> degreeProgramSubjects = new HashSet<>();
+    private final int hash;
+    private volatile DegreeAudit audit;
 
     DegreeProgram(String degreeProgramName, Collection<Subject> degreeProgramSubjects) {
         notBlank(degreeProgramName);
@@ -17,6 +20,34 @@ class DegreeProgram {
         this.degreeProgramSubjects.addAll(degreeProgramSubjects);
         this.degreeProgramSubjects.removeIf(Objects::isNull);
         this.degreeProgramName= degreeProgramName;
+        this.hash = Objects.hash(degreeProgramName, this.degreeProgramSubjects);
+    }
+
+    /**
+     * Gets the subjects of the degree program.
+     * @return      An unmodifiable view of the subjects.
+     */
+    Collection<Subject> getSubjects() {
+        return Collections.unmodifiableCollection(degreeProgramSubjects);
+    }
+
+    /**
+     * Gets the audit of this program, built the first time it is asked for. It belongs to this instance and
+     * not to equal programs, which may hold subjects with other prerequisites, e.g. after a catalog reload.
+     * @return      The audit.
+     */
+    DegreeAudit getAudit() {
+        DegreeAudit built = audit;
+        if (built == null) {
+            // two threads may both build it; either audit will do
+            built = new DegreeAudit(this);
+            audit = built;
+        }
+        return built;
+    }
+
+    String getName() {
+        return degreeProgramName;
     }
 
     void checkIfSubjectPartOfProgram(Subject subject){
@@ -31,11 +62,11 @@ class DegreeProgram {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         DegreeProgram that = (DegreeProgram) o;
-        return degreeProgramName.equals(that.degreeProgramName) && degreeProgramSubjects.equals(that.degreeProgramSubjects);
+        return hash == that.hash && degreeProgramName.equals(that.degreeProgramName) && degreeProgramSubjects.equals(that.degreeProgramSubjects);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(degreeProgramName, degreeProgramSubjects);
+        return hash;
     }
 }
\ No newline at end of file
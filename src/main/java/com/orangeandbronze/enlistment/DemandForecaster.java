@@ -0,0 +1,241 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Forecasts how many students will be eligible for each subject next term and recommends how many
+ * sections to open, and in rooms of which capacities.
+ * <p>
+ * Eligibility comes from each student's {@link DegreeAudit}. The forecaster remembers every student's
+ * last eligible subjects and keeps running totals per subject, so a refresh only re-audits the
+ * students whose transcripts changed since the last one and applies the difference. A changed transcript
+ * is found by its {@link Student#getTranscriptVersion() version}, which every posted grade moves, so grades
+ * are picked up without anyone telling the forecaster; a refresh reads one version per student.
+ */
+class DemandForecaster {
+
+    /**
+     * A recommendation for one subject.
+     */
+    static final class SectionRecommendation {
+        private final Subject subject;
+        private final long eligibleStudents;
+        private final long expectedStudents;
+        private final List<Integer> roomCapacities;
+
+        SectionRecommendation(Subject subject, long eligibleStudents, long expectedStudents, List<Integer> roomCapacities) {
+            this.subject = subject;
+            this.eligibleStudents = eligibleStudents;
+            this.expectedStudents = expectedStudents;
+            this.roomCapacities = List.copyOf(roomCapacities);
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+
+        long getEligibleStudents() {
+            return eligibleStudents;
+        }
+
+        /**
+         * Gets the number of eligible students expected to actually enlist.
+         * @return      The expected students.
+         */
+        long getExpectedStudents() {
+            return expectedStudents;
+        }
+
+        int getSectionCount() {
+            return roomCapacities.size();
+        }
+
+        /**
+         * Gets the capacity of the room recommended for each section, largest first.
+         * @return      One capacity per recommended section.
+         */
+        List<Integer> getRoomCapacities() {
+            return roomCapacities;
+        }
+
+        @Override
+        public String toString() {
+            return subject + ": " + expectedStudents + " of " + eligibleStudents + " eligible, "
+                    + getSectionCount() + " sections " + roomCapacities;
+        }
+    }
+
+    private final double expectedUptake;
+    /**
+     * A student's eligible subjects as of a transcript version.
+     */
+    private static final class Audit {
+        private final BitSet eligible;
+        private final long transcriptVersion;
+
+        private Audit(BitSet eligible, long transcriptVersion) {
+            this.eligible = eligible;
+            this.transcriptVersion = transcriptVersion;
+        }
+    }
+
+    private final ConcurrentMap<Student, Audit> audits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, LongAdder> eligibleCounts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Subject> subjectsByIndex = new ConcurrentHashMap<>();
+    private final Set<Student> changed = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a forecaster.
+     * @param expectedUptake    The fraction, from 0 to 1, of eligible students expected to enlist in a subject.
+     */
+    DemandForecaster(double expectedUptake) {
+        isTrue(expectedUptake >= 0 && expectedUptake <= 1, "expectedUptake must be within 0 to 1, was: " + expectedUptake);
+        this.expectedUptake = expectedUptake;
+    }
+
+    /**
+     * Records that a student is new, or that the student's degree program changed. Posted grades need no
+     * call, as they are found by the transcript version. The student is re-audited on the next {@link #refresh()}.
+     * @param student   The student.
+     */
+    void markChanged(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        changed.add(student);
+    }
+
+    /**
+     * Marks every student as changed, for the first load.
+     * @param students  The students.
+     */
+    void markAllChanged(Collection<Student> students) {
+        requireNonNull(students, "Students cannot be null");
+        students.forEach(this::markChanged);
+    }
+
+    /**
+     * Removes a student, e.g. one who graduated or left, from the forecast.
+     * @param student   The student.
+     */
+    void remove(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        changed.remove(student);
+        audits.computeIfPresent(student, (s, previous) -> {
+            apply(previous.eligible, new BitSet());
+            return null;
+        });
+    }
+
+    /**
+     * Re-audits, in parallel, the students marked as changed and those with grades posted since they were last
+     * audited, and updates the per-subject totals.
+     * @return      The number of students re-audited.
+     */
+    int refresh() {
+        List<Student> marked = new ArrayList<>(changed);
+        changed.removeAll(marked);
+        Set<Student> batch = new HashSet<>(marked);
+        audits.forEach((student, audit) -> {
+            if (audit.transcriptVersion != student.getTranscriptVersion()) {
+                batch.add(student);
+            }
+        });
+        batch.parallelStream().forEach(student -> {
+            // read before auditing, so a grade posted meanwhile is audited again next time
+            long transcriptVersion = student.getTranscriptVersion();
+            BitSet eligible = new BitSet();
+            for (Subject subject : DegreeAudit.auditStudent(student).getEligibleSubjects()) {
+                eligible.set(subject.getIndex());
+                subjectsByIndex.put(subject.getIndex(), subject);
+            }
+            audits.compute(student, (s, previous) -> {
+                apply(previous == null ? new BitSet() : previous.eligible, eligible);
+                return new Audit(eligible, transcriptVersion);
+            });
+        });
+        return batch.size();
+    }
+
+    /**
+     * Gets the number of students eligible to take the subject next term, as of the last refresh.
+     * @param subject   The subject.
+     * @return          The number of eligible students.
+     */
+    long getEligibleCount(Subject subject) {
+        requireNonNull(subject, "Subject cannot be null");
+        LongAdder count = eligibleCounts.get(subject.getIndex());
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Recommends sections for a subject. Each section gets the smallest room capacity that seats the
+     * students still unplaced, or the largest capacity when none does.
+     * @param subject           The subject.
+     * @param roomCapacities    The capacities of the rooms that can be used.
+     * @return                  The recommendation; no sections if no students are expected.
+     */
+    SectionRecommendation recommend(Subject subject, Collection<Integer> roomCapacities) {
+        requireNonNull(subject, "Subject cannot be null");
+        requireNonNull(roomCapacities, "Room capacities cannot be null");
+        isTrue(!roomCapacities.isEmpty(), "At least one room capacity is needed");
+        int[] capacities = roomCapacities.stream().mapToInt(Integer::intValue).sorted().toArray();
+        isTrue(capacities[0] > 0, "Room capacities must be greater than 0");
+
+        long eligible = getEligibleCount(subject);
+        long expected = (long) Math.ceil(eligible * expectedUptake);
+        List<Integer> sections = new ArrayList<>();
+        long unplaced = expected;
+        while (unplaced > 0) {
+            int chosen = capacities[capacities.length - 1];
+            for (int capacity : capacities) {
+                if (capacity >= unplaced) {
+                    chosen = capacity;
+                    break;
+                }
+            }
+            sections.add(chosen);
+            unplaced -= chosen;
+        }
+        sections.sort(Comparator.reverseOrder());
+        return new SectionRecommendation(subject, eligible, expected, sections);
+    }
+
+    /**
+     * Recommends sections for every subject that has eligible students.
+     * @param roomCapacities    The capacities of the rooms that can be used.
+     * @return                  The recommendations, most expected students first.
+     */
+    List<SectionRecommendation> recommendAll(Collection<Integer> roomCapacities) {
+        List<SectionRecommendation> recommendations = new ArrayList<>();
+        for (Subject subject : subjectsByIndex.values()) {
+            SectionRecommendation recommendation = recommend(subject, roomCapacities);
+            if (recommendation.getSectionCount() > 0) {
+                recommendations.add(recommendation);
+            }
+        }
+        recommendations.sort(Comparator.comparingLong(SectionRecommendation::getExpectedStudents).reversed());
+        return recommendations;
+    }
+
+    private void apply(BitSet previous, BitSet current) {
+        BitSet gained = (BitSet) current.clone();
+        gained.andNot(previous);
+        BitSet lost = (BitSet) previous.clone();
+        lost.andNot(current);
+        for (int i = gained.nextSetBit(0); i >= 0; i = gained.nextSetBit(i + 1)) {
+            counter(i).increment();
+        }
+        for (int i = lost.nextSetBit(0); i >= 0; i = lost.nextSetBit(i + 1)) {
+            counter(i).decrement();
+        }
+    }
+
+    private LongAdder counter(int subjectIndex) {
+        return eligibleCounts.computeIfAbsent(subjectIndex, i -> new LongAdder());
+    }
+}
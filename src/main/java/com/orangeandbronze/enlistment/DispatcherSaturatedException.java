@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class DispatcherSaturatedException extends RuntimeException {
+    DispatcherSaturatedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,211 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Remembers, for each student browsing sections, which subjects the student may enlist in: subjects in the
+ * student's degree program whose prerequisites the student has passed and that the student is not already
+ * enlisted in.
+ * <p>
+ * A student's subjects are worked out the first time they are asked for and kept as a bitset over
+ * {@link Subject#getIndex()}, stamped with the student's {@link EnlistmentState} and transcript version.
+ * A lookup whose stamp no longer matches, because the student enlisted, cancelled, swapped or had a grade
+ * posted, works them out again; nothing else does. At most {@code maxStudents} students are kept.
+ * <p>
+ * Students are spread over stripes, each with its own lock and least-recently-used order, so lookups of
+ * different students rarely wait for each other during the rush. A large cache has up to {@value #MAX_STRIPES}
+ * stripes, each keeping its share of {@code maxStudents} and evicting its own least recently looked-up student;
+ * eviction is therefore least-recently-used within a stripe and only approximately so overall. A cache too small
+ * to give every stripe {@value #MIN_STUDENTS_PER_STRIPE} students has fewer stripes, down to one exact LRU list.
+ */
+class EligibilityCache {
+    static final int MAX_STRIPES = 64;
+    static final int MIN_STUDENTS_PER_STRIPE = 64;
+
+    private static final class Entry {
+        private final Student student;
+        private final EnlistmentState state;
+        private final long transcriptVersion;
+        private final BitSet eligible;
+
+        private Entry(Student student, EnlistmentState state, long transcriptVersion, BitSet eligible) {
+            this.student = student;
+            this.state = state;
+            this.transcriptVersion = transcriptVersion;
+            this.eligible = eligible;
+        }
+
+        private boolean isCurrent(Student student, EnlistmentState state, long transcriptVersion) {
+            return this.student == student && this.state == state && this.transcriptVersion == transcriptVersion;
+        }
+    }
+
+    /**
+     * Some of the students, with their own lock and least-recently-used order.
+     */
+    private final class Stripe {
+        // guarded by lock; an access-ordered LinkedHashMap is an LRU list
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Student, Entry> entries;
+
+        private Stripe(int maxStudents) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Student, Entry> eldest) {
+                    if (size() > maxStudents) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final Stripe[] stripes;
+
+    /**
+     * Creates an eligibility cache.
+     * @param maxStudents   The most students whose eligible subjects are kept.
+     */
+    EligibilityCache(int maxStudents) {
+        isTrue(maxStudents > 0, "maxStudents must be greater than 0, was: " + maxStudents);
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, maxStudents / MIN_STUDENTS_PER_STRIPE)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // the first stripes take the remainder, so the stripes hold maxStudents in all
+            stripes[i] = new Stripe(maxStudents / stripeCount + (i < maxStudents % stripeCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Checks if the student may enlist in the subject as far as program, prerequisites and current load go.
+     * @param student   The student.
+     * @param subject   The subject.
+     * @return          true if the subject is eligible.
+     */
+    boolean isEligible(Student student, Subject subject) {
+        requireNonNull(subject, "Subject cannot be null");
+        return eligible(student).get(subject.getIndex());
+    }
+
+    /**
+     * Gets the subjects the student may enlist in.
+     * @param student   The student.
+     * @return          A copy of the eligible subjects as a bitset over {@link Subject#getIndex()}.
+     */
+    BitSet getEligibleSubjects(Student student) {
+        return (BitSet) eligible(student).clone();
+    }
+
+    /**
+     * Keeps the sections of subjects the student may enlist in, e.g. to browse a catalog.
+     * @param student   The student.
+     * @param sections  The sections to browse.
+     * @return          The sections of eligible subjects, in the given order.
+     */
+    List<Section> filterEligible(Student student, Collection<Section> sections) {
+        requireNonNull(sections, "Sections cannot be null");
+        BitSet eligible = eligible(student);
+        List<Section> result = new ArrayList<>();
+        for (Section section : sections) {
+            if (eligible.get(section.getSubject().getIndex())) {
+                result.add(section);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Drops a student from the cache, e.g. when the student's session ends.
+     * @param student   The student.
+     */
+    void invalidate(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        Stripe stripe = stripeOf(student);
+        stripe.lock.lock();
+        try {
+            stripe.entries.remove(student);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private BitSet eligible(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        EnlistmentState state = student.getEnlistmentState();
+        long transcriptVersion = student.getTranscriptVersion();
+        Stripe stripe = stripeOf(student);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(student);
+            if (entry != null && entry.isCurrent(student, state, transcriptVersion)) {
+                hits.increment();
+                return entry.eligible;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        // work it out without holding the lock; two lookups racing may both do so, to the same result
+        misses.increment();
+        BitSet eligible = compute(student, state);
+        stripe.lock.lock();
+        try {
+            stripe.entries.put(student, new Entry(student, state, transcriptVersion, eligible));
+        } finally {
+            stripe.lock.unlock();
+        }
+        return eligible;
+    }
+
+    private Stripe stripeOf(Student student) {
+        int hash = student.hashCode();
+        // spread the high bits down, as HashMap does, since only the low ones pick the stripe
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static BitSet compute(Student student, EnlistmentState state) {
+        BitSet passed = student.getPassedSubjects();
+        BitSet eligible = new BitSet();
+        for (Subject subject : student.getDegreeProgram().getSubjects()) {
+            if (!state.hasSubject(subject) && subject.arePrerequisitesPassed(passed)) {
+                eligible.set(subject.getIndex());
+            }
+        }
+        return eligible;
+    }
+}
@@ -0,0 +1,330 @@
+package com.orangeandbronze.enlistment;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Accepts enlist, cancel, swap and assessment commands and runs them off the caller's thread,
+ * returning a future for each command.
+ * <p>
+ * Admission is bounded: at most {@code maxInFlight} commands may be queued or running at once.
+ * A command submitted beyond that limit is not queued; its future fails immediately with a
+ * {@link DispatcherSaturatedException} so callers can shed load instead of piling up.
+ * <p>
+ * Commands check the enlistment rules without locks; each {@link Student} then commits its own changes under
+ * its own short commit lock, so commands on the same student are applied one after the other and commands on
+ * different students run concurrently.
+ * <p>
+ * Every completed command is reported to the registered {@link EnlistmentListener}s.
+ * <p>
+ * Enlist, cancel and swap may carry an idempotency key chosen by the client. A command retried with the same
+ * key, e.g. after a timeout, is not run again; it gets the outcome of the first attempt from the
+ * {@link IdempotencyCache}. Commands turned away because the dispatcher was saturated are not remembered.
+ * <p>
+ * Given an {@link AdmissionScheduler}, the dispatcher holds a student's enlist and swap commands back until
+ * the scheduler admits the student; cancellations and assessments are never held back.
+ */
+class EnlistmentDispatcher implements AutoCloseable {
+
+    /**
+     * The kinds of command an idempotency key can be used for; part of what a retry must repeat.
+     */
+    private enum Command {
+        ENLIST, CANCEL, SWAP
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore admissions;
+    private final int maxInFlight;
+    private final List<EnlistmentListener> listeners = new CopyOnWriteArrayList<>();
+    private final Clock clock = Clock.systemUTC();
+    private final IdempotencyCache idempotencyCache;
+    private volatile boolean assessmentsNeeded;
+    private volatile AdmissionScheduler admissionScheduler;
+
+    /**
+     * Creates a dispatcher that runs commands on the given executor.
+     * @param executor      The executor that runs admitted commands.
+     * @param maxInFlight   The maximum number of commands that may be queued or running at once.
+     */
+    EnlistmentDispatcher(ExecutorService executor, int maxInFlight) {
+        this(executor, maxInFlight, new IdempotencyCache(Clock.systemUTC(), Duration.ofMinutes(10), 100_000));
+    }
+
+    /**
+     * Creates a dispatcher that runs commands on the given executor and remembers idempotency keys in the given cache.
+     * @param executor          The executor that runs admitted commands.
+     * @param maxInFlight       The maximum number of commands that may be queued or running at once.
+     * @param idempotencyCache  The cache of outcomes of commands submitted with an idempotency key.
+     */
+    EnlistmentDispatcher(ExecutorService executor, int maxInFlight, IdempotencyCache idempotencyCache) {
+        requireNonNull(executor, "Executor cannot be null");
+        isTrue(maxInFlight > 0, "maxInFlight must be greater than 0, was: " + maxInFlight);
+        requireNonNull(idempotencyCache, "Idempotency cache cannot be null");
+        this.idempotencyCache = idempotencyCache;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.admissions = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Creates a dispatcher that runs each command on its own virtual thread when the runtime
+     * supports them (Java 21+), falling back otherwise to a fixed pool of one platform thread per
+     * processor, or fewer if fewer commands may be in flight; commands beyond that wait in its queue.
+     * @param maxInFlight   The maximum number of commands that may be queued or running at once.
+     */
+    EnlistmentDispatcher(int maxInFlight) {
+        this(newPerTaskExecutor(maxInFlight), maxInFlight);
+    }
+
+    /**
+     * Submits an enlistment of the student in the section.
+     * @param student   The student to enlist.
+     * @param section   The section to enlist in.
+     * @return          A future that completes when the student is enlisted, or fails with the rejection.
+     *                  With an admission scheduler, the enlistment is only submitted once the student is admitted.
+     */
+    CompletableFuture<Void> enlist(Student student, Section section) {
+        requireNonNull(section, "Section cannot be null");
+        return whenAdmitted(student, () -> submit(student, section, null, EnlistmentEvent.Type.ENLISTED, () -> student.enlist(section)));
+    }
+
+    /**
+     * Submits a cancellation of the student's enlistment in the section.
+     * @param student   The student whose enlistment is cancelled.
+     * @param section   The section to cancel.
+     * @return          A future that completes when the enlistment is cancelled, or fails with the rejection.
+     */
+    CompletableFuture<Void> cancel(Student student, Section section) {
+        requireNonNull(section, "Section cannot be null");
+        return submit(student, section, null, EnlistmentEvent.Type.CANCELLED, () -> student.cancelEnlistment(section));
+    }
+
+    /**
+     * Submits an enlistment with an idempotency key; a retry with the same key returns the first outcome.
+     * @param idempotencyKey    The key chosen by the client for this enlistment.
+     * @param student           The student to enlist.
+     * @param section           The section to enlist in.
+     * @return                  A future that completes when the student is enlisted, or fails with the rejection.
+     */
+    CompletableFuture<Void> enlist(String idempotencyKey, Student student, Section section) {
+        return once(idempotencyKey, List.of(Command.ENLIST, student, section), () -> enlist(student, section));
+    }
+
+    /**
+     * Submits a cancellation with an idempotency key; a retry with the same key returns the first outcome.
+     * @param idempotencyKey    The key chosen by the client for this cancellation.
+     * @param student           The student whose enlistment is cancelled.
+     * @param section           The section to cancel.
+     * @return                  A future that completes when the enlistment is cancelled, or fails with the rejection.
+     */
+    CompletableFuture<Void> cancel(String idempotencyKey, Student student, Section section) {
+        return once(idempotencyKey, List.of(Command.CANCEL, student, section), () -> cancel(student, section));
+    }
+
+    /**
+     * Submits a swap with an idempotency key; a retry with the same key returns the first outcome.
+     * @param idempotencyKey    The key chosen by the client for this swap.
+     * @param student           The student.
+     * @param oldSection        The enlisted section to leave.
+     * @param newSection        The section to enlist in instead.
+     * @return                  A future that completes when the student has moved, or fails with the rejection.
+     */
+    CompletableFuture<Void> swap(String idempotencyKey, Student student, Section oldSection, Section newSection) {
+        return once(idempotencyKey, List.of(Command.SWAP, student, oldSection, newSection), () -> swap(student, oldSection, newSection));
+    }
+
+    /**
+     * Submits a request for the student's tuition assessment.
+     * @param student   The student to assess.
+     * @return          A future holding the assessed tuition fees.
+     */
+    CompletableFuture<BigDecimal> requestAssessment(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        return submit(student, null, null, EnlistmentEvent.Type.ASSESSED, student::getEnlistmentState);
+    }
+
+    /**
+     * Submits a swap of the student from one section to another. A completed swap is reported as the
+     * cancellation of the old section followed by the enlistment in the new one; a rejected swap as a
+     * rejection of the new section, the student keeping the old one.
+     * @param student       The student.
+     * @param oldSection    The enlisted section to leave.
+     * @param newSection    The section to enlist in instead.
+     * @return              A future that completes when the student has moved, or fails with the rejection.
+     */
+    CompletableFuture<Void> swap(Student student, Section oldSection, Section newSection) {
+        requireNonNull(oldSection, "Old section cannot be null");
+        requireNonNull(newSection, "New section cannot be null");
+        return whenAdmitted(student, () -> submit(student, newSection, oldSection, EnlistmentEvent.Type.ENLISTED,
+                () -> student.swap(oldSection, newSection)));
+    }
+
+    /**
+     * Registers a listener that is told about every command the dispatcher completes.
+     * A listener that throws is ignored for that event; it never fails the command.
+     * @param listener  The listener to register.
+     */
+    void addListener(EnlistmentListener listener) {
+        requireNonNull(listener, "Listener cannot be null");
+        listeners.add(listener);
+        assessmentsNeeded = listeners.stream().anyMatch(EnlistmentListener::needsAssessment);
+    }
+
+    void removeListener(EnlistmentListener listener) {
+        listeners.remove(listener);
+        assessmentsNeeded = listeners.stream().anyMatch(EnlistmentListener::needsAssessment);
+    }
+
+    /**
+     * Makes enlist and swap commands wait until the scheduler admits their student. A student not yet waiting
+     * is put in line by the first such command; one no window covers has the command fail.
+     * @param scheduler     The scheduler, or null to submit every command right away.
+     */
+    void setAdmissionScheduler(AdmissionScheduler scheduler) {
+        this.admissionScheduler = scheduler;
+    }
+
+    /**
+     * Gets the number of commands currently queued or running.
+     * @return      The number of in-flight commands.
+     */
+    int getInFlight() {
+        return maxInFlight - admissions.availablePermits();
+    }
+
+    /**
+     * Submits a command once the student is admitted. A command waiting for admission is not yet in flight.
+     */
+    private <T> CompletableFuture<T> whenAdmitted(Student student, Supplier<CompletableFuture<T>> submit) {
+        AdmissionScheduler scheduler = admissionScheduler;
+        if (scheduler == null) {
+            return submit.get();
+        }
+        requireNonNull(student, "Student cannot be null");
+        CompletableFuture<Void> admission;
+        try {
+            admission = scheduler.request(student).getAdmission();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return admission.isDone() ? submit.get() : admission.thenCompose(admitted -> submit.get());
+    }
+
+    private CompletableFuture<Void> once(String idempotencyKey, List<Object> command, Supplier<CompletableFuture<Void>> submit) {
+        CompletableFuture<Void> outcome = idempotencyCache.computeIfAbsent(idempotencyKey, command, submit);
+        outcome.whenComplete((result, failure) -> {
+            if (failure instanceof DispatcherSaturatedException) {
+                idempotencyCache.forget(idempotencyKey, outcome);
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * Submits a command. A command returns the student's {@link EnlistmentState} right after it, which is passed
+     * on in the events and not to the caller; an assessment reads the state to assess, and the caller gets the
+     * assessment.
+     */
+    private <T> CompletableFuture<T> submit(Student student, Section section, Section released, EnlistmentEvent.Type type,
+                                            Supplier<EnlistmentState> command) {
+        requireNonNull(student, "Student cannot be null");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!admissions.tryAcquire()) {
+            result.completeExceptionally(new DispatcherSaturatedException(
+                    "Dispatcher has reached its limit of " + maxInFlight + " in-flight commands"));
+            return result;
+        }
+        try {
+            executor.execute(() -> run(student, section, released, type, command, result));
+        } catch (RejectedExecutionException e) {
+            admissions.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private <T> void run(Student student, Section section, Section released, EnlistmentEvent.Type type,
+                         Supplier<EnlistmentState> command, CompletableFuture<T> result) {
+        EnlistmentState state = null;
+        BigDecimal assessment = null;
+        RuntimeException rejection = null;
+        try {
+            state = command.get();
+            if (type == EnlistmentEvent.Type.ASSESSED) {
+                assessment = student.requestAssessment(state);
+            }
+        } catch (RuntimeException e) {
+            rejection = e;
+        } finally {
+            admissions.release();
+        }
+
+        if (rejection == null && assessment == null && assessmentsNeeded) {
+            // assess the state this command committed, not whatever the student has by now
+            try {
+                assessment = student.assess(state);
+            } catch (RuntimeException e) {
+                // the command has committed; its event just goes without an assessment
+            }
+        }
+        if (!listeners.isEmpty()) {
+            if (released != null && rejection == null) {
+                publish(new EnlistmentEvent(EnlistmentEvent.Type.CANCELLED, student, released, null, assessment, state, clock.instant()));
+            }
+            publish(rejection == null
+                    ? new EnlistmentEvent(type, student, section, null, assessment, state, clock.instant())
+                    : new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, released == null ? type : null, student, section,
+                            rejection, null, null, clock.instant()));
+        }
+        if (rejection == null) {
+            @SuppressWarnings("unchecked")
+            T outcome = type == EnlistmentEvent.Type.ASSESSED ? (T) assessment : null;
+            result.complete(outcome);
+        } else {
+            result.completeExceptionally(rejection);
+        }
+    }
+
+    private void publish(EnlistmentEvent event) {
+        for (EnlistmentListener listener : listeners) {
+            try {
+                listener.onEvent(event);
+            } catch (RuntimeException e) {
+                // a misbehaving listener must not affect enlistment
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newPerTaskExecutor(int maxInFlight) {
+        isTrue(maxInFlight > 0, "maxInFlight must be greater than 0, was: " + maxInFlight);
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // platform threads are too costly to start one per in-flight command; the semaphore still bounds the queue
+            return Executors.newFixedThreadPool(Math.min(maxInFlight, Runtime.getRuntime().availableProcessors()));
+        }
+    }
+}
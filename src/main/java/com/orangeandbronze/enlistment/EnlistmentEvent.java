@@ -0,0 +1,152 @@
+package com.orangeandbronze.enlistment;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Something that happened to a student's enlistment: a section was enlisted or cancelled,
+ * a command was rejected, or the student's assessment was computed.
+ */
+class EnlistmentEvent {
+    enum Type {
+        ENLISTED, CANCELLED, REJECTED, ASSESSED
+    }
+
+    private final Type type;
+    private final Type attempted;
+    private final Student student;
+    private final Section section;
+    private final RuntimeException rejection;
+    private final BigDecimal assessment;
+    private final EnlistmentState state;
+    private final Instant timestamp;
+
+    /**
+     * Creates an event.
+     * @param type          What happened.
+     * @param student       The student the event is about.
+     * @param section       The section involved, or null for assessments.
+     * @param rejection     The exception that rejected the command, or null if it was not rejected.
+     * @param timestamp     When the event happened.
+     */
+    EnlistmentEvent(Type type, Student student, Section section, RuntimeException rejection, Instant timestamp) {
+        this(type, student, section, rejection, null, timestamp);
+    }
+
+    /**
+     * Creates an event carrying the student's assessment after the command.
+     * @param type          What happened.
+     * @param student       The student the event is about.
+     * @param section       The section involved, or null for assessments.
+     * @param rejection     The exception that rejected the command, or null if it was not rejected.
+     * @param assessment    The student's tuition fees after the command, or null if not computed.
+     * @param timestamp     When the event happened.
+     */
+    EnlistmentEvent(Type type, Student student, Section section, RuntimeException rejection, BigDecimal assessment,
+                    Instant timestamp) {
+        this(type, student, section, rejection, assessment, null, timestamp);
+    }
+
+    /**
+     * Creates an event carrying the student's assessment and enlistment state after the command.
+     * @param type          What happened.
+     * @param student       The student the event is about.
+     * @param section       The section involved, or null for assessments.
+     * @param rejection     The exception that rejected the command, or null if it was not rejected.
+     * @param assessment    The student's tuition fees after the command, or null if not computed.
+     * @param state         The student's enlistment state right after the command, or null if not known.
+     * @param timestamp     When the event happened.
+     */
+    EnlistmentEvent(Type type, Student student, Section section, RuntimeException rejection, BigDecimal assessment,
+                    EnlistmentState state, Instant timestamp) {
+        this(type, type == Type.REJECTED ? null : type, student, section, rejection, assessment, state, timestamp);
+    }
+
+    /**
+     * Creates an event that also says what the command tried to do, e.g. for a rejection.
+     * @param type          What happened.
+     * @param attempted     What the command tried to do, {@link Type#ENLISTED}, {@link Type#CANCELLED} or
+     *                      {@link Type#ASSESSED}, or null if not known.
+     * @param student       The student the event is about.
+     * @param section       The section involved, or null for assessments.
+     * @param rejection     The exception that rejected the command, or null if it was not rejected.
+     * @param assessment    The student's tuition fees after the command, or null if not computed.
+     * @param state         The student's enlistment state right after the command, or null if not known.
+     * @param timestamp     When the event happened.
+     */
+    EnlistmentEvent(Type type, Type attempted, Student student, Section section, RuntimeException rejection,
+                    BigDecimal assessment, EnlistmentState state, Instant timestamp) {
+        requireNonNull(type, "Type cannot be null");
+        if (attempted == Type.REJECTED) {
+            throw new IllegalArgumentException("A command cannot attempt a rejection");
+        }
+        requireNonNull(student, "Student cannot be null");
+        requireNonNull(timestamp, "Timestamp cannot be null");
+        if ((type == Type.REJECTED) != (rejection != null)) {
+            throw new IllegalArgumentException("Only rejected events carry a rejection, type was: " + type);
+        }
+        this.type = type;
+        this.attempted = attempted;
+        this.student = student;
+        this.section = section;
+        this.rejection = rejection;
+        this.assessment = assessment;
+        this.state = state;
+        this.timestamp = timestamp;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets what the command tried to do, which for a rejection is not otherwise known.
+     * @return      {@link Type#ENLISTED}, {@link Type#CANCELLED} or {@link Type#ASSESSED}, or null if not known,
+     *              e.g. for a rejected swap.
+     */
+    Type getAttempted() {
+        return attempted;
+    }
+
+    Student getStudent() {
+        return student;
+    }
+
+    Section getSection() {
+        return section;
+    }
+
+    RuntimeException getRejection() {
+        return rejection;
+    }
+
+    /**
+     * Gets the student's assessment after the command. It is computed only for events that are not
+     * rejections, and only when a registered listener {@link EnlistmentListener#needsAssessment() needs it}.
+     * @return      The tuition fees, or null if not computed.
+     */
+    BigDecimal getAssessment() {
+        return assessment;
+    }
+
+    /**
+     * Gets the student's enlistment state right after the command. Its version orders the events of one
+     * student even when they are published out of order; both events of a swap carry the same state.
+     * @return      The enlistment state, or null for rejections, assessments and events from elsewhere.
+     */
+    EnlistmentState getState() {
+        return state;
+    }
+
+    Instant getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + " " + type + " " + student + (section == null ? "" : " " + section)
+                + (rejection == null ? "" : " " + rejection.getClass().getSimpleName());
+    }
+}
@@ -0,0 +1,243 @@
+package com.orangeandbronze.enlistment;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Publishes the changes enlistment makes, as a {@link Flow.Publisher}, so downstream systems can follow
+ * students' sections, seat counts and assessments instead of polling for them.
+ * <p>
+ * Register the stream with {@link EnlistmentDispatcher#addListener(EnlistmentListener)}. Every enlistment
+ * or cancellation publishes the change itself, the section's new seat count and, if it changed, the
+ * student's new assessment; an assessment request publishes the assessment if it changed. Rejected
+ * commands change nothing and are not published.
+ * <p>
+ * Changes about a student carry the {@link EnlistmentState#getVersion() version} of the student's state they
+ * come from. Events of one student may reach the stream out of order, so an assessment from an older state
+ * than one already published is dropped, and the last assessment published is always the latest.
+ * <p>
+ * Each subscriber has its own bounded buffer and receives changes only as fast as it requests them.
+ * A change that does not fit in a subscriber's buffer is dropped for that subscriber and counted;
+ * publishing never waits, so a slow subscriber cannot hold up enlistment.
+ */
+class EnlistmentEventStream implements EnlistmentListener, Flow.Publisher<EnlistmentEventStream.Change>, AutoCloseable {
+
+    /**
+     * A change to enlistment state.
+     */
+    static final class Change {
+        enum Type {
+            ENLISTED, CANCELLED, SEATS_CHANGED, ASSESSMENT_CHANGED
+        }
+
+        private final Type type;
+        private final Student student;
+        private final Section section;
+        private final int seatsTaken;
+        private final int capacity;
+        private final BigDecimal assessment;
+        private final long version;
+        private final Instant timestamp;
+
+        private Change(Type type, Student student, Section section, int seatsTaken, int capacity,
+                       BigDecimal assessment, long version, Instant timestamp) {
+            this.type = type;
+            this.student = student;
+            this.section = section;
+            this.seatsTaken = seatsTaken;
+            this.capacity = capacity;
+            this.assessment = assessment;
+            this.version = version;
+            this.timestamp = timestamp;
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        /**
+         * Gets the student the change is about.
+         * @return      The student; null for seat count changes.
+         */
+        Student getStudent() {
+            return student;
+        }
+
+        /**
+         * Gets the section the change is about.
+         * @return      The section; null for assessment changes.
+         */
+        Section getSection() {
+            return section;
+        }
+
+        int getSeatsTaken() {
+            return seatsTaken;
+        }
+
+        int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Gets the student's new assessment.
+         * @return      The tuition fees; null unless this is an assessment change.
+         */
+        BigDecimal getAssessment() {
+            return assessment;
+        }
+
+        /**
+         * Gets the version of the student's enlistment state the change comes from.
+         * @return      The version; 0 for seat count changes or if the event did not carry the state.
+         */
+        long getVersion() {
+            return version;
+        }
+
+        Instant getTimestamp() {
+            return timestamp;
+        }
+
+        @Override
+        public String toString() {
+            switch (type) {
+                case SEATS_CHANGED:
+                    return timestamp + " " + type + " " + section + " " + seatsTaken + "/" + capacity;
+                case ASSESSMENT_CHANGED:
+                    return timestamp + " " + type + " " + student + " " + assessment + " v" + version;
+                default:
+                    return timestamp + " " + type + " " + student + " " + section + " v" + version;
+            }
+        }
+    }
+
+    private final SubmissionPublisher<Change> publisher;
+    private final ConcurrentMap<Student, Assessed> lastAssessments = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Creates an event stream.
+     * @param executor          The executor that delivers changes to subscribers.
+     * @param bufferCapacity    The most changes buffered for each subscriber; rounded up to a power of 2.
+     */
+    EnlistmentEventStream(Executor executor, int bufferCapacity) {
+        requireNonNull(executor, "Executor cannot be null");
+        isTrue(bufferCapacity > 0, "bufferCapacity must be greater than 0, was: " + bufferCapacity);
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Change> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public boolean needsAssessment() {
+        return true;
+    }
+
+    @Override
+    public void onEvent(EnlistmentEvent event) {
+        switch (event.getType()) {
+            case ENLISTED:
+            case CANCELLED:
+                Section section = event.getSection();
+                publish(new Change(event.getType() == EnlistmentEvent.Type.ENLISTED ? Change.Type.ENLISTED : Change.Type.CANCELLED,
+                        event.getStudent(), section, 0, 0, null, versionOf(event), event.getTimestamp()));
+                publish(new Change(Change.Type.SEATS_CHANGED, null, section, section.getNumberOfEnlisted(),
+                        section.getRoom().getMaxCapacity(), null, 0, event.getTimestamp()));
+                publishAssessment(event);
+                break;
+            case ASSESSED:
+                publishAssessment(event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Gets the number of changes dropped because a subscriber's buffer was full, over all subscribers.
+     * @return      The number of dropped changes.
+     */
+    long getDroppedChanges() {
+        return dropped.sum();
+    }
+
+    int getSubscriberCount() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    /**
+     * Forgets a student's last assessment, e.g. when the student leaves, so the stream does not keep it.
+     * @param student   The student.
+     */
+    void forget(Student student) {
+        lastAssessments.remove(student);
+    }
+
+    /**
+     * Completes every subscription once the changes already buffered are delivered.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+    private void publishAssessment(EnlistmentEvent event) {
+        BigDecimal assessment = event.getAssessment();
+        if (assessment == null) {
+            return;
+        }
+        long version = versionOf(event);
+        // published while the student's entry is held, so two assessments of a student go out in version order
+        lastAssessments.compute(event.getStudent(), (student, last) -> {
+            if (last != null && version < last.version) {
+                return last;
+            }
+            if (last == null || last.assessment.compareTo(assessment) != 0) {
+                publish(new Change(Change.Type.ASSESSMENT_CHANGED, student, null, 0, 0, assessment, version,
+                        event.getTimestamp()));
+            }
+            return new Assessed(version, assessment);
+        });
+    }
+
+    private static long versionOf(EnlistmentEvent event) {
+        return event.getState() == null ? 0 : event.getState().getVersion();
+    }
+
+    /**
+     * The last assessment published for a student, with the version of the state it was of.
+     */
+    private static final class Assessed {
+        private final long version;
+        private final BigDecimal assessment;
+
+        private Assessed(long version, BigDecimal assessment) {
+            this.version = version;
+            this.assessment = assessment;
+        }
+    }
+
+    private void publish(Change change) {
+        try {
+            publisher.offer(change, (subscriber, item) -> {
+                dropped.increment();
+                return false;
+            });
+        } catch (IllegalStateException e) {
+            // closed; nothing is published after close()
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.orangeandbronze.enlistment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Exports every student's sections and assessment, e.g. to billing and the registrar, without building the
+ * result in memory.
+ * <p>
+ * Students are split into shards of consecutive students, and each shard is written to its own file by one of
+ * several threads. A shard is written row by row through a fixed-size buffer over a {@link FileChannel}, so
+ * no row is kept once written, and memory stays bounded by the number of threads times the buffer size besides
+ * the snapshot below.
+ * <p>
+ * An export is a consistent snapshot of all the students at one moment, even while enlistment goes on: before
+ * any row is written, {@link Student#snapshotOf(List)} reads every student's {@link EnlistmentState} under their
+ * commit locks, so no enlistment commits in between. The rows therefore agree with each other and with the
+ * sections' seat counts at that moment, e.g. a seat one student gives up and another takes is never counted for
+ * both, so no section has more rows than seats.
+ * Enlistment only waits to commit while the states are read, and the snapshot costs one reference per student,
+ * as the states themselves are shared and never copied. Each row's assessment is computed from its state.
+ * <p>
+ * If a shard cannot be written, the other shards are stopped and every shard file of the export is deleted,
+ * so a failed export leaves no partial output behind.
+ * <p>
+ * {@link Format#CSV} rows are {@code student_no,version,units,assessment,sections} with the section ids
+ * separated by {@code ;}, after a header line. {@link Format#BINARY} rows are big-endian: the student number
+ * (int), the version (long), the units (int), the assessment in centavos (long), the number of sections (short),
+ * then each section id as a length (short) and UTF-8 bytes.
+ */
+class EnlistmentExporter {
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final String CSV_HEADER = "student_no,version,units,assessment,sections\n";
+
+    enum Format {
+        CSV("csv"), BINARY("bin");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * What an export wrote.
+     */
+    static final class Result {
+        private final List<Path> shards;
+        private final int students;
+        private final long rows;
+        private final long bytes;
+
+        private Result(List<Path> shards, int students, long rows, long bytes) {
+            this.shards = Collections.unmodifiableList(shards);
+            this.students = students;
+            this.rows = rows;
+            this.bytes = bytes;
+        }
+
+        /**
+         * Gets the shard files, in student order.
+         * @return      The paths of the shard files.
+         */
+        List<Path> getShards() {
+            return shards;
+        }
+
+        int getStudents() {
+            return students;
+        }
+
+        long getRows() {
+            return rows;
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return students + " students in " + shards.size() + " shards, " + bytes + " bytes";
+        }
+    }
+
+    private final Format format;
+    private final int shardSize;
+    private final int threads;
+    private final int bufferSize;
+
+    /**
+     * Creates an exporter.
+     * @param format        The format of the rows.
+     * @param shardSize     The most students in a shard file.
+     * @param threads       How many shards are written at once.
+     * @param bufferSize    The size of each thread's write buffer, at least 1 KiB.
+     */
+    EnlistmentExporter(Format format, int shardSize, int threads, int bufferSize) {
+        requireNonNull(format, "Format cannot be null");
+        isTrue(shardSize > 0, "shardSize must be greater than 0, was: " + shardSize);
+        isTrue(threads > 0, "threads must be greater than 0, was: " + threads);
+        isTrue(bufferSize >= 1024, "bufferSize must be at least 1024, was: " + bufferSize);
+        this.format = format;
+        this.shardSize = shardSize;
+        this.threads = threads;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Creates an exporter with a {@value #DEFAULT_BUFFER_SIZE}-byte buffer per thread and one thread per processor.
+     * @param format        The format of the rows.
+     * @param shardSize     The most students in a shard file.
+     */
+    EnlistmentExporter(Format format, int shardSize) {
+        this(format, shardSize, Runtime.getRuntime().availableProcessors(), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Exports the students into shard files named {@code <prefix>-<shard>.<csv|bin>} in a directory.
+     * @param students      The students, in export order.
+     * @param directory     The directory to write the shards to; created if missing.
+     * @param prefix        The prefix of the shard file names.
+     * @return              What was written.
+     * @throws IOException  If a shard cannot be written, after the shard files of the export are deleted.
+     */
+    Result export(List<Student> students, Path directory, String prefix) throws IOException {
+        requireNonNull(students, "Students cannot be null");
+        requireNonNull(directory, "Directory cannot be null");
+        notBlank(prefix, "Prefix cannot be null or blank");
+        Files.createDirectories(directory);
+
+        List<EnlistmentState> states = Student.snapshotOf(students);
+        int shardCount = Math.max(1, (students.size() + shardSize - 1) / shardSize);
+        ExecutorService writers = Executors.newFixedThreadPool(Math.min(threads, shardCount), runnable -> {
+            Thread thread = new Thread(runnable, "enlistment-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // one buffer per writer thread, reused for every shard it writes
+        ThreadLocal<ShardWriter> shardWriters = ThreadLocal.withInitial(() -> new ShardWriter(format, bufferSize));
+        try {
+            List<Path> shards = new ArrayList<>(shardCount);
+            List<Future<long[]>> written = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                Path file = directory.resolve(String.format("%s-%05d.%s", prefix, shard, format.extension));
+                int from = Math.min(shard * shardSize, students.size());
+                int to = Math.min((shard + 1) * shardSize, students.size());
+                List<Student> slice = students.subList(from, to);
+                List<EnlistmentState> sliceStates = states.subList(from, to);
+                shards.add(file);
+                written.add(writers.submit(() -> shardWriters.get().write(slice, sliceStates, file)));
+            }
+
+            long rows = 0;
+            long bytes = 0;
+            try {
+                for (Future<long[]> shard : written) {
+                    long[] counts = await(shard);
+                    rows += counts[0];
+                    bytes += counts[1];
+                }
+            } catch (IOException | RuntimeException e) {
+                discard(writers, shards, e);
+                throw e;
+            }
+            return new Result(shards, students.size(), rows, bytes);
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * Stops the shards still being written and deletes the files of a failed export.
+     * @param writers       The threads writing the shards.
+     * @param shards        The shard files of the export.
+     * @param failure       Why the export failed; problems deleting the files are added to it.
+     */
+    private static void discard(ExecutorService writers, List<Path> shards, Exception failure) {
+        writers.shutdownNow();
+        try {
+            // a shard still being written would otherwise recreate its file after it is deleted
+            while (!writers.awaitTermination(1, TimeUnit.SECONDS)) {
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Path shard : shards) {
+            try {
+                if (Files.isRegularFile(shard)) {
+                    Files.delete(shard);
+                }
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static long[] await(Future<long[]> shard) throws IOException {
+        try {
+            return shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Writes shards through one buffer, encoding section ids once per section.
+     */
+    private static final class ShardWriter {
+        private final Format format;
+        private final ByteBuffer buffer;
+        private final Map<Section, byte[]> sectionIds = new HashMap<>();
+        private FileChannel channel;
+        private long bytes;
+
+        private ShardWriter(Format format, int bufferSize) {
+            this.format = format;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        /**
+         * @return      The rows and bytes written.
+         */
+        private long[] write(List<Student> students, List<EnlistmentState> states, Path file) {
+            bytes = 0;
+            buffer.clear();
+            try (FileChannel opened = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+                channel = opened;
+                if (format == Format.CSV) {
+                    putBytes(CSV_HEADER.getBytes(StandardCharsets.US_ASCII));
+                }
+                for (int i = 0; i < students.size(); i++) {
+                    Student student = students.get(i);
+                    EnlistmentState state = states.get(i);
+                    long centavos = student.assess(state).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+                    if (format == Format.CSV) {
+                        writeCsvRow(student.getStudentNo(), state, centavos);
+                    } else {
+                        writeBinaryRow(student.getStudentNo(), state, centavos);
+                    }
+                }
+                flush();
+                return new long[] {students.size(), bytes};
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                channel = null;
+            }
+        }
+
+        private void writeCsvRow(int studentNo, EnlistmentState state, long centavos) throws IOException {
+            putDecimal(studentNo);
+            putAscii(',');
+            putDecimal(state.getVersion());
+            putAscii(',');
+            putDecimal(state.getTotalUnits());
+            putAscii(',');
+            putDecimal(centavos / 100);
+            putAscii('.');
+            long fraction = Math.abs(centavos % 100);
+            putAscii((char) ('0' + fraction / 10));
+            putAscii((char) ('0' + fraction % 10));
+            putAscii(',');
+            List<Section> sections = state.getSections();
+            for (int i = 0; i < sections.size(); i++) {
+                if (i > 0) {
+                    putAscii(';');
+                }
+                putBytes(idOf(sections.get(i)));
+            }
+            putAscii('\n');
+        }
+
+        private void writeBinaryRow(int studentNo, EnlistmentState state, long centavos) throws IOException {
+            List<Section> sections = state.getSections();
+            ensure(Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + Short.BYTES);
+            buffer.putInt(studentNo);
+            buffer.putLong(state.getVersion());
+            buffer.putInt(state.getTotalUnits());
+            buffer.putLong(centavos);
+            buffer.putShort((short) sections.size());
+            for (Section section : sections) {
+                byte[] id = idOf(section);
+                ensure(Short.BYTES);
+                buffer.putShort((short) id.length);
+                putBytes(id);
+            }
+        }
+
+        private byte[] idOf(Section section) {
+            return sectionIds.computeIfAbsent(section, s -> s.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void putDecimal(long value) throws IOException {
+            ensure(20);
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                buffer.put((byte) ('0' + value / divisor % 10));
+            }
+        }
+
+        private void putAscii(char c) throws IOException {
+            ensure(1);
+            buffer.put((byte) c);
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        private void ensure(int needed) throws IOException {
+            if (buffer.remaining() < needed) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytes += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,423 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Keeps every enlistment and cancellation with its time, so the sections of a student, or the students
+ * of a section, can be rebuilt as they were at any moment, e.g. to settle a dispute.
+ * <p>
+ * Register the history with {@link EnlistmentDispatcher#addListener(EnlistmentListener)}. Each event is
+ * kept twice, in its student's timeline and in its section's, so a query reads only the one timeline it
+ * is about. Every {@code checkpointInterval} events a timeline keeps a checkpoint of its members, so
+ * rebuilding a moment replays at most that many events after a binary search for the moment, however
+ * long the timeline.
+ * <p>
+ * Events of one student are kept in the order of the {@link EnlistmentEvent#getState() state} versions they
+ * carry, even if two commands on the student publish out of order or with times out of order. Each event takes
+ * a time no earlier than the student's event before it and no later than the one after it, so a cancellation
+ * timestamped before the enlistment it undoes still comes after it, and a timeline never goes back in time.
+ */
+class EnlistmentHistory implements EnlistmentListener {
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 64;
+
+    /**
+     * An enlistment or cancellation in the history.
+     */
+    static final class Entry {
+        private final Instant timestamp;
+        private final EnlistmentEvent.Type type;
+        private final int studentNo;
+        private final Section section;
+        private final long version;
+
+        private Entry(Instant timestamp, EnlistmentEvent.Type type, int studentNo, Section section, long version) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.studentNo = studentNo;
+            this.section = section;
+            this.version = version;
+        }
+
+        Instant getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Gets what happened.
+         * @return      {@link EnlistmentEvent.Type#ENLISTED} or {@link EnlistmentEvent.Type#CANCELLED}.
+         */
+        EnlistmentEvent.Type getType() {
+            return type;
+        }
+
+        int getStudentNo() {
+            return studentNo;
+        }
+
+        Section getSection() {
+            return section;
+        }
+
+        /**
+         * Gets the version of the student's enlistment state right after the change.
+         * @return      The version, or 0 if the event did not carry the state.
+         */
+        long getVersion() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + " " + type + " Student# " + studentNo + " " + section + " v" + version;
+        }
+    }
+
+    /**
+     * The events of one student or one section, in time order, with checkpoints of who or what was
+     * enlisted. Members are sections in a student's timeline and student numbers in a section's.
+     */
+    private static final class Timeline {
+        private final boolean ofStudent;
+
+        // guarded by lock
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] times = new long[8];
+        private long[] versions = new long[8];
+        private int[] studentNos = new int[8];
+        private Section[] sections = new Section[8];
+        private boolean[] enlisted = new boolean[8];
+        private int size;
+        private int[] checkpointPositions = new int[4];
+        private Object[][] checkpointMembers = new Object[4][];
+        private int checkpoints;
+
+        private Timeline(boolean ofStudent) {
+            this.ofStudent = ofStudent;
+        }
+
+        /**
+         * Records an event where it belongs. In a student's timeline that is after every event with a lower
+         * version, and the time is moved between the times of the events around it; in a section's timeline
+         * it is by time, after every event of the same student with a lower version.
+         * @return      The time the event was recorded at.
+         */
+        private long record(long time, long version, int studentNo, Section section, boolean enlisted, int checkpointInterval) {
+            lock.lock();
+            try {
+                int position;
+                if (ofStudent) {
+                    // usually the end; earlier only for an event published out of order
+                    position = size;
+                    while (position > 0 && version != 0 && versions[position - 1] > version) {
+                        position--;
+                    }
+                    if (position > 0) {
+                        time = Math.max(time, times[position - 1]);
+                    }
+                    if (position < size) {
+                        time = Math.min(time, times[position]);
+                    }
+                } else {
+                    position = countUntil(time, true);
+                    for (int i = position - 1; i >= 0 && times[i] == time; i--) {
+                        if (studentNos[i] == studentNo && versions[i] > version) {
+                            position = i;
+                        }
+                    }
+                }
+                insert(position, time, version, studentNo, section, enlisted);
+                // the checkpoints after the event miss it; drop them and rebuild them from the one before
+                while (checkpoints > 0 && checkpointPositions[checkpoints - 1] > position) {
+                    checkpointMembers[--checkpoints] = null;
+                }
+                int from = checkpoints == 0 ? 0 : checkpointPositions[checkpoints - 1];
+                if (size - from >= checkpointInterval) {
+                    Set<Object> members = membersAt(from);
+                    for (int i = from; i < size; i++) {
+                        replay(members, i);
+                        if (i + 1 - from >= checkpointInterval) {
+                            from = i + 1;
+                            addCheckpoint(from, members.toArray());
+                        }
+                    }
+                }
+                return time;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void insert(int position, long time, long version, int studentNo, Section section, boolean enlisted) {
+            if (size == times.length) {
+                int capacity = size * 2;
+                times = Arrays.copyOf(times, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                studentNos = Arrays.copyOf(studentNos, capacity);
+                sections = Arrays.copyOf(sections, capacity);
+                this.enlisted = Arrays.copyOf(this.enlisted, capacity);
+            }
+            int moved = size - position;
+            System.arraycopy(times, position, times, position + 1, moved);
+            System.arraycopy(versions, position, versions, position + 1, moved);
+            System.arraycopy(studentNos, position, studentNos, position + 1, moved);
+            System.arraycopy(sections, position, sections, position + 1, moved);
+            System.arraycopy(this.enlisted, position, this.enlisted, position + 1, moved);
+            times[position] = time;
+            versions[position] = version;
+            studentNos[position] = studentNo;
+            sections[position] = section;
+            this.enlisted[position] = enlisted;
+            size++;
+        }
+
+        private void addCheckpoint(int position, Object[] members) {
+            if (checkpoints == checkpointPositions.length) {
+                checkpointPositions = Arrays.copyOf(checkpointPositions, checkpoints * 2);
+                checkpointMembers = Arrays.copyOf(checkpointMembers, checkpoints * 2);
+            }
+            checkpointPositions[checkpoints] = position;
+            checkpointMembers[checkpoints] = members;
+            checkpoints++;
+        }
+
+        /**
+         * Rebuilds the members after the first {@code position} events, from the last checkpoint at or before it.
+         */
+        private Set<Object> membersAt(int position) {
+            int checkpoint = Arrays.binarySearch(checkpointPositions, 0, checkpoints, position);
+            if (checkpoint < 0) {
+                checkpoint = -checkpoint - 2;
+            }
+            Set<Object> members = new LinkedHashSet<>();
+            int from = 0;
+            if (checkpoint >= 0) {
+                members.addAll(Arrays.asList(checkpointMembers[checkpoint]));
+                from = checkpointPositions[checkpoint];
+            }
+            for (int i = from; i < position; i++) {
+                replay(members, i);
+            }
+            return members;
+        }
+
+        private void replay(Set<Object> members, int position) {
+            Object member = ofStudent ? sections[position] : (Object) studentNos[position];
+            if (enlisted[position]) {
+                members.add(member);
+            } else {
+                members.remove(member);
+            }
+        }
+
+        /**
+         * Gets the most events between two checkpoints, or after the last one.
+         */
+        private int longestReplay() {
+            lock.lock();
+            try {
+                int longest = 0;
+                int previous = 0;
+                for (int i = 0; i < checkpoints; i++) {
+                    longest = Math.max(longest, checkpointPositions[i] - previous);
+                    previous = checkpointPositions[i];
+                }
+                return Math.max(longest, size - previous);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gets the number of events at or before a time, or strictly before it.
+         */
+        private int countUntil(long time, boolean inclusive) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (times[mid] < time || (inclusive && times[mid] == time)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private Set<Object> membersAt(long time) {
+            lock.lock();
+            try {
+                return membersAt(countUntil(time, true));
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Entry> entries(long from, long to) {
+            lock.lock();
+            try {
+                int start = countUntil(from, false);
+                int end = countUntil(to, false);
+                List<Entry> entries = new ArrayList<>(Math.max(0, end - start));
+                for (int i = start; i < end; i++) {
+                    entries.add(new Entry(toInstant(times[i]), enlisted[i] ? EnlistmentEvent.Type.ENLISTED : EnlistmentEvent.Type.CANCELLED,
+                            studentNos[i], sections[i], versions[i]));
+                }
+                return entries;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final int checkpointInterval;
+    private final ConcurrentMap<Integer, Timeline> studentTimelines = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Section, Timeline> sectionTimelines = new ConcurrentHashMap<>();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a history.
+     * @param checkpointInterval    How many events of a timeline are kept between checkpoints; the most
+     *                              events a query replays.
+     */
+    EnlistmentHistory(int checkpointInterval) {
+        isTrue(checkpointInterval > 0, "checkpointInterval must be greater than 0, was: " + checkpointInterval);
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Creates a history with a checkpoint every {@value #DEFAULT_CHECKPOINT_INTERVAL} events.
+     */
+    EnlistmentHistory() {
+        this(DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    @Override
+    public void onEvent(EnlistmentEvent event) {
+        if (event.getType() != EnlistmentEvent.Type.ENLISTED && event.getType() != EnlistmentEvent.Type.CANCELLED) {
+            return;
+        }
+        boolean enlisted = event.getType() == EnlistmentEvent.Type.ENLISTED;
+        int studentNo = event.getStudent().getStudentNo();
+        Section section = event.getSection();
+        long version = event.getState() == null ? 0 : event.getState().getVersion();
+        // the student's timeline settles the time, so both timelines put the student's events in the same order
+        long time = studentTimelines.computeIfAbsent(studentNo, no -> new Timeline(true))
+                .record(toNanos(event.getTimestamp()), version, studentNo, section, enlisted, checkpointInterval);
+        sectionTimelines.computeIfAbsent(section, s -> new Timeline(false))
+                .record(time, version, studentNo, section, enlisted, checkpointInterval);
+        size.increment();
+    }
+
+    /**
+     * Rebuilds the sections a student was enlisted in at a moment, counting only enlistments recorded here.
+     * @param student   The student.
+     * @param at        The moment; events at exactly this time count.
+     * @return          The sections, in the order they were enlisted.
+     */
+    List<Section> getSectionsAt(Student student, Instant at) {
+        requireNonNull(student, "Student cannot be null");
+        requireNonNull(at, "Time cannot be null");
+        Timeline timeline = studentTimelines.get(student.getStudentNo());
+        if (timeline == null) {
+            return Collections.emptyList();
+        }
+        List<Section> sections = new ArrayList<>();
+        for (Object member : timeline.membersAt(toNanos(at))) {
+            sections.add((Section) member);
+        }
+        return sections;
+    }
+
+    /**
+     * Rebuilds the students enlisted in a section at a moment, counting only enlistments recorded here.
+     * @param section   The section.
+     * @param at        The moment; events at exactly this time count.
+     * @return          The student numbers, sorted.
+     */
+    int[] getStudentsAt(Section section, Instant at) {
+        requireNonNull(section, "Section cannot be null");
+        requireNonNull(at, "Time cannot be null");
+        Timeline timeline = sectionTimelines.get(section);
+        if (timeline == null) {
+            return new int[0];
+        }
+        return timeline.membersAt(toNanos(at)).stream().mapToInt(member -> (Integer) member).sorted().toArray();
+    }
+
+    /**
+     * Gets a student's enlistments and cancellations over a period.
+     * @param student   The student.
+     * @param from      The start of the period, inclusive.
+     * @param to        The end of the period, exclusive.
+     * @return          The entries, in time order.
+     */
+    List<Entry> audit(Student student, Instant from, Instant to) {
+        requireNonNull(student, "Student cannot be null");
+        requireNonNull(from, "Start cannot be null");
+        requireNonNull(to, "End cannot be null");
+        Timeline timeline = studentTimelines.get(student.getStudentNo());
+        return timeline == null ? Collections.emptyList() : timeline.entries(toNanos(from), toNanos(to));
+    }
+
+    /**
+     * Gets a section's enlistments and cancellations over a period.
+     * @param section   The section.
+     * @param from      The start of the period, inclusive.
+     * @param to        The end of the period, exclusive.
+     * @return          The entries, in time order.
+     */
+    List<Entry> audit(Section section, Instant from, Instant to) {
+        requireNonNull(section, "Section cannot be null");
+        requireNonNull(from, "Start cannot be null");
+        requireNonNull(to, "End cannot be null");
+        Timeline timeline = sectionTimelines.get(section);
+        return timeline == null ? Collections.emptyList() : timeline.entries(toNanos(from), toNanos(to));
+    }
+
+    /**
+     * Gets the most events a query on a section's students replays after its binary search, which the
+     * checkpoints keep below the checkpoint interval even when events arrive out of order.
+     * @param section   The section.
+     * @return          The longest run of events without a checkpoint.
+     */
+    int getLongestReplay(Section section) {
+        requireNonNull(section, "Section cannot be null");
+        Timeline timeline = sectionTimelines.get(section);
+        return timeline == null ? 0 : timeline.longestReplay();
+    }
+
+    /**
+     * Gets the number of events recorded.
+     * @return      The number of enlistments and cancellations.
+     */
+    long size() {
+        return size.sum();
+    }
+
+    /**
+     * Converts to nanoseconds since the epoch, saturating outside the years 1677 to 2262, e.g. for {@link Instant#MAX}.
+     */
+    private static long toNanos(Instant instant) {
+        long seconds = instant.getEpochSecond();
+        if (seconds >= Long.MAX_VALUE / 1_000_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / 1_000_000_000L) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000_000L + instant.getNano();
+    }
+
+    private static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+}
@@ -0,0 +1,19 @@
+package com.orangeandbronze.enlistment;
+
+/**
+ * Receives {@link EnlistmentEvent}s after the command that caused them has completed.
+ * Listeners are called on the thread that ran the command, so they must return quickly and never block.
+ */
+@FunctionalInterface
+interface EnlistmentListener {
+    void onEvent(EnlistmentEvent event);
+
+    /**
+     * Tells the dispatcher to compute the student's assessment for every event from the enlistment the
+     * command committed, before the event is published, so {@link EnlistmentEvent#getAssessment()} reflects it.
+     * @return      true if this listener reads assessments from events.
+     */
+    default boolean needsAssessment() {
+        return false;
+    }
+}
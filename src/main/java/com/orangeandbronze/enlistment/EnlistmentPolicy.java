@@ -0,0 +1,232 @@
+package com.orangeandbronze.enlistment;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * The rules enlistment and assessment follow: the maximum units a student may enlist in and the fees
+ * charged. Defaults can be overridden per degree program, per year level and per student, the more
+ * specific scope winning, field by field.
+ * <p>
+ * A policy is immutable. The one in force is swapped atomically with {@link #install(EnlistmentPolicy)},
+ * so policies can be reloaded while students are enlisting. Each {@link Student} resolves the policy
+ * that applies to it once and keeps the result until a different policy is installed, so applying a
+ * policy on enlistment costs one reference comparison.
+ * <p>
+ * Policies are written one rule per line as {@code <scope>.<field> = <value>}, where the scope is
+ * {@code default}, {@code program[<name>]}, {@code year[<level>]} or {@code student[<number>]} and the
+ * field is one of {@code maxUnits}, {@code unitCost}, {@code labFee}, {@code miscFee} or {@code vat}.
+ * Blank lines and lines starting with {@code #} are ignored. For example:
+ * <pre>
+ * year[4].maxUnits = 27
+ * student[11912345].maxUnits = 30
+ * program[BS CS-ST].labFee = 1500
+ * </pre>
+ */
+class EnlistmentPolicy {
+
+    enum Field {
+        MAX_UNITS("maxUnits"), UNIT_COST("unitCost"), LAB_FEE("labFee"), MISC_FEE("miscFee"), VAT("vat");
+
+        private final String key;
+
+        Field(String key) {
+            this.key = key;
+        }
+
+        static Field fromKey(String key) {
+            for (Field field : values()) {
+                if (field.key.equals(key)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown policy field: " + key);
+        }
+    }
+
+    /**
+     * The policy as it applies to one student.
+     */
+    static final class Resolved {
+        private final EnlistmentPolicy source;
+        private final int maxUnits;
+        private final BigDecimal unitCost;
+        private final BigDecimal labFee;
+        private final BigDecimal miscFee;
+        private final BigDecimal vat;
+
+        private Resolved(EnlistmentPolicy source, Map<Field, BigDecimal> values) {
+            this.source = source;
+            this.maxUnits = values.get(Field.MAX_UNITS).intValueExact();
+            this.unitCost = values.get(Field.UNIT_COST);
+            this.labFee = values.get(Field.LAB_FEE);
+            this.miscFee = values.get(Field.MISC_FEE);
+            this.vat = values.get(Field.VAT);
+        }
+
+        boolean isResolvedFrom(EnlistmentPolicy policy) {
+            return source == policy;
+        }
+
+        int getMaxUnits() {
+            return maxUnits;
+        }
+
+        BigDecimal getUnitCost() {
+            return unitCost;
+        }
+
+        BigDecimal getLabFee() {
+            return labFee;
+        }
+
+        BigDecimal getMiscFee() {
+            return miscFee;
+        }
+
+        BigDecimal getVat() {
+            return vat;
+        }
+    }
+
+    private static final Pattern RULE = Pattern.compile(
+            "^(default|program\\[([^\\]]+)]|year\\[(\\d+)]|student\\[(\\d+)])\\.(\\w+)\\s*=\\s*(\\S+)\\s*$");
+
+    /** The rules that applied before policies could be configured: 24 units, 2000 per unit, 1000 lab fee, 3000 miscellaneous fee and 12% VAT. */
+    static final EnlistmentPolicy DEFAULT = new EnlistmentPolicy(defaults(), Map.of(), Map.of(), Map.of());
+
+    private static final AtomicReference<EnlistmentPolicy> CURRENT = new AtomicReference<>(DEFAULT);
+
+    private final Map<Field, BigDecimal> defaults;
+    private final Map<String, Map<Field, BigDecimal>> programRules;
+    private final Map<Integer, Map<Field, BigDecimal>> yearLevelRules;
+    private final Map<Integer, Map<Field, BigDecimal>> studentRules;
+
+    private EnlistmentPolicy(Map<Field, BigDecimal> defaults, Map<String, Map<Field, BigDecimal>> programRules,
+                             Map<Integer, Map<Field, BigDecimal>> yearLevelRules,
+                             Map<Integer, Map<Field, BigDecimal>> studentRules) {
+        this.defaults = defaults;
+        this.programRules = programRules;
+        this.yearLevelRules = yearLevelRules;
+        this.studentRules = studentRules;
+    }
+
+    /**
+     * Gets the policy in force.
+     * @return      The current policy.
+     */
+    static EnlistmentPolicy current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Puts a policy in force. Students pick it up on their next enlistment or assessment.
+     * @param policy    The policy to install.
+     */
+    static void install(EnlistmentPolicy policy) {
+        requireNonNull(policy, "Policy cannot be null");
+        CURRENT.set(policy);
+    }
+
+    /**
+     * Parses a policy. Fields not given at the default scope keep their {@link #DEFAULT} values.
+     * @param lines     The rules, one per line.
+     * @return          The compiled policy.
+     */
+    static EnlistmentPolicy parse(List<String> lines) {
+        requireNonNull(lines, "Lines cannot be null");
+        Map<Field, BigDecimal> defaults = defaults();
+        Map<String, Map<Field, BigDecimal>> programRules = new HashMap<>();
+        Map<Integer, Map<Field, BigDecimal>> yearLevelRules = new HashMap<>();
+        Map<Integer, Map<Field, BigDecimal>> studentRules = new HashMap<>();
+
+        for (String line : lines) {
+            String rule = line.strip();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+            Matcher matcher = RULE.matcher(rule);
+            isTrue(matcher.matches(), "Malformed policy rule: " + line);
+            Field field = Field.fromKey(matcher.group(5));
+            BigDecimal value = new BigDecimal(matcher.group(6));
+            isTrue(value.signum() >= 0, "Policy values cannot be negative: " + line);
+            if (field == Field.MAX_UNITS) {
+                value = checkMaxUnits(value, line);
+            }
+
+            Map<Field, BigDecimal> scope;
+            if (matcher.group(2) != null) {
+                scope = programRules.computeIfAbsent(matcher.group(2).strip(), k -> new EnumMap<>(Field.class));
+            } else if (matcher.group(3) != null) {
+                scope = yearLevelRules.computeIfAbsent(Integer.parseInt(matcher.group(3)), k -> new EnumMap<>(Field.class));
+            } else if (matcher.group(4) != null) {
+                scope = studentRules.computeIfAbsent(Integer.parseInt(matcher.group(4)), k -> new EnumMap<>(Field.class));
+            } else {
+                scope = defaults;
+            }
+            scope.put(field, value);
+        }
+        return new EnlistmentPolicy(defaults, programRules, yearLevelRules, studentRules);
+    }
+
+    /**
+     * Reads and parses a policy file.
+     * @param file      The file.
+     * @return          The compiled policy.
+     */
+    static EnlistmentPolicy load(Path file) throws IOException {
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Resolves the policy for a student: defaults, then the student's program, year level and the
+     * student's own rules, each overriding the fields it sets.
+     * @param studentNo         The student number.
+     * @param yearLevel         The student's year level.
+     * @param degreeProgram     The student's degree program.
+     * @return                  The resolved policy.
+     */
+    Resolved resolve(int studentNo, int yearLevel, DegreeProgram degreeProgram) {
+        Map<Field, BigDecimal> values = new EnumMap<>(defaults);
+        overlay(values, programRules.get(degreeProgram.getName()));
+        overlay(values, yearLevelRules.get(yearLevel));
+        overlay(values, studentRules.get(studentNo));
+        return new Resolved(this, values);
+    }
+
+    /**
+     * Checks that maxUnits is a positive int, so resolving it for a student can never fail.
+     */
+    private static BigDecimal checkMaxUnits(BigDecimal value, String line) {
+        isTrue(value.stripTrailingZeros().scale() <= 0, "maxUnits must be a whole number: " + line);
+        isTrue(value.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) <= 0, "maxUnits is too large: " + line);
+        isTrue(value.signum() > 0, "maxUnits must be greater than 0: " + line);
+        return BigDecimal.valueOf(value.intValueExact());
+    }
+
+    private static void overlay(Map<Field, BigDecimal> values, Map<Field, BigDecimal> rules) {
+        if (rules != null) {
+            values.putAll(rules);
+        }
+    }
+
+    private static Map<Field, BigDecimal> defaults() {
+        Map<Field, BigDecimal> defaults = new EnumMap<>(Field.class);
+        defaults.put(Field.MAX_UNITS, new BigDecimal(24));
+        defaults.put(Field.UNIT_COST, new BigDecimal(2000));
+        defaults.put(Field.LAB_FEE, new BigDecimal(1000));
+        defaults.put(Field.MISC_FEE, new BigDecimal(3000));
+        defaults.put(Field.VAT, new BigDecimal("1.12"));
+        return defaults;
+    }
+}
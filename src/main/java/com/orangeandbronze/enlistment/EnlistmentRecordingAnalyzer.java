@@ -0,0 +1,274 @@
+package com.orangeandbronze.enlistment;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summarizes a flight recording of enlistment into per-stage latency and allocation breakdowns.
+ * <p>
+ * Every {@link EnlistmentStageEvent} in the recording is grouped by operation and stage. Allocations come
+ * from the JDK's {@code jdk.ObjectAllocationSample} events: each sample is charged to the stage that was
+ * running on the sampled thread when it was taken, so a stage's allocated bytes are an estimate that gets
+ * better with more samples. Record with e.g.
+ * {@code -XX:StartFlightRecording=settings=profile,filename=enlistment.jfr}, which enables both.
+ */
+class EnlistmentRecordingAnalyzer {
+    private static final String ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+
+    /**
+     * The latency and allocation of one stage of one operation over a recording.
+     */
+    static final class StageSummary {
+        private final String operation;
+        private final String stage;
+        private final long[] sortedDurationNanos;
+        private final long retried;
+        private final Map<String, Long> rejections;
+        private final long allocatedBytes;
+
+        private StageSummary(String operation, String stage, long[] durationNanos, long retried,
+                             Map<String, Long> rejections, long allocatedBytes) {
+            this.operation = operation;
+            this.stage = stage;
+            this.sortedDurationNanos = durationNanos;
+            Arrays.sort(this.sortedDurationNanos);
+            this.retried = retried;
+            this.rejections = Collections.unmodifiableMap(new TreeMap<>(rejections));
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        String getOperation() {
+            return operation;
+        }
+
+        String getStage() {
+            return stage;
+        }
+
+        int getCount() {
+            return sortedDurationNanos.length;
+        }
+
+        long getRetried() {
+            return retried;
+        }
+
+        /**
+         * Gets the number of times the operation was rejected during this stage per rejection type.
+         * @return      Counts keyed by the simple name of the exception that rejected the operation.
+         */
+        Map<String, Long> getRejections() {
+            return rejections;
+        }
+
+        long getTotalNanos() {
+            return Arrays.stream(sortedDurationNanos).sum();
+        }
+
+        /**
+         * Gets a latency percentile using the nearest-rank method.
+         * @param percentile    The percentile, greater than 0 and at most 100.
+         * @return              The latency in nanoseconds.
+         */
+        long getLatencyPercentile(double percentile) {
+            if (percentile <= 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be within (0, 100], was: " + percentile);
+            }
+            int rank = (int) Math.ceil(percentile / 100 * sortedDurationNanos.length);
+            return sortedDurationNanos[Math.max(rank, 1) - 1];
+        }
+
+        /**
+         * Gets the estimated bytes allocated while the stage ran, over all its events.
+         * @return      The sampled allocation weight charged to the stage.
+         */
+        long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-7s %-8s %8d  total=%dus p50=%dus p99=%dus max=%dus  alloc=%dKB (%dB/op)  retried=%d rejected=%s",
+                    operation, stage, getCount(), getTotalNanos() / 1000,
+                    getLatencyPercentile(50) / 1000, getLatencyPercentile(99) / 1000, getLatencyPercentile(100) / 1000,
+                    allocatedBytes / 1024, allocatedBytes / getCount(), retried, rejections);
+        }
+    }
+
+    private static final class Stage {
+        private final String key;
+        private final long startNanos;
+        private final long endNanos;
+
+        private Stage(String key, long startNanos, long endNanos) {
+            this.key = key;
+            this.startNanos = startNanos;
+            this.endNanos = endNanos;
+        }
+    }
+
+    /**
+     * The allocation samples of a recording, kept as primitives since a profile recording holds millions.
+     */
+    private static final class Samples {
+        private long[] threadIds = new long[1024];
+        private long[] timeNanos = new long[1024];
+        private long[] weights = new long[1024];
+        private int count;
+
+        private void add(long threadId, long time, long weight) {
+            if (count == threadIds.length) {
+                threadIds = Arrays.copyOf(threadIds, count * 2);
+                timeNanos = Arrays.copyOf(timeNanos, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            threadIds[count] = threadId;
+            timeNanos[count] = time;
+            weights[count] = weight;
+            count++;
+        }
+    }
+
+    private static final class Accumulator {
+        private final String operation;
+        private final String stage;
+        private long[] durations = new long[16];
+        private int count;
+        private long retried;
+        private final Map<String, Long> rejections = new HashMap<>();
+        private long allocatedBytes;
+
+        private Accumulator(String operation, String stage) {
+            this.operation = operation;
+            this.stage = stage;
+        }
+
+        private void add(Duration duration) {
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = duration.toNanos();
+        }
+    }
+
+    private EnlistmentRecordingAnalyzer() {
+    }
+
+    /**
+     * Reads a recording and summarizes its enlistment stages.
+     * @param recording     The recording file.
+     * @return              A summary per operation and stage, ordered by operation, then stage.
+     * @throws IOException  If the recording cannot be read.
+     */
+    static List<StageSummary> analyze(Path recording) throws IOException {
+        requireNonNull(recording, "Recording cannot be null");
+        Map<String, Accumulator> accumulators = new TreeMap<>();
+        Map<Long, List<Stage>> stagesByThread = new HashMap<>();
+        Map<Long, List<Stage>> totalsByThread = new HashMap<>();
+        Samples samples = new Samples();
+
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+                if (name.equals(EnlistmentStageEvent.NAME)) {
+                    String operation = event.getString("operation");
+                    String stage = event.getString("stage");
+                    String key = operation + "/" + stage;
+                    Accumulator accumulator = accumulators.computeIfAbsent(key, k -> new Accumulator(operation, stage));
+                    accumulator.add(event.getDuration());
+                    if (event.getBoolean("retried")) {
+                        accumulator.retried++;
+                    }
+                    String rejection = event.getString("rejection");
+                    if (rejection != null) {
+                        accumulator.rejections.merge(rejection, 1L, Long::sum);
+                    }
+                    // a total spans its stages, so totals are kept apart and each sample is charged to both
+                    RecordedThread thread = event.getThread();
+                    if (thread != null) {
+                        Map<Long, List<Stage>> timelines = stage.equals(EnlistmentStageEvent.TOTAL) ? totalsByThread : stagesByThread;
+                        timelines.computeIfAbsent(thread.getId(), id -> new ArrayList<>())
+                                .add(new Stage(key, toNanos(event.getStartTime()), toNanos(event.getEndTime())));
+                    }
+                } else if (name.equals(ALLOCATION_SAMPLE)) {
+                    RecordedThread thread = event.getThread();
+                    if (thread != null) {
+                        samples.add(thread.getId(), toNanos(event.getStartTime()), event.getLong("weight"));
+                    }
+                }
+            }
+        }
+
+        stagesByThread.values().forEach(stages -> stages.sort(Comparator.comparingLong(stage -> stage.startNanos)));
+        totalsByThread.values().forEach(stages -> stages.sort(Comparator.comparingLong(stage -> stage.startNanos)));
+        for (int i = 0; i < samples.count; i++) {
+            for (Map<Long, List<Stage>> timelines : List.of(stagesByThread, totalsByThread)) {
+                Stage stage = stageAt(timelines.get(samples.threadIds[i]), samples.timeNanos[i]);
+                if (stage != null) {
+                    accumulators.get(stage.key).allocatedBytes += samples.weights[i];
+                }
+            }
+        }
+
+        List<StageSummary> summaries = new ArrayList<>(accumulators.size());
+        for (Accumulator accumulator : accumulators.values()) {
+            summaries.add(new StageSummary(accumulator.operation, accumulator.stage,
+                    Arrays.copyOf(accumulator.durations, accumulator.count), accumulator.retried,
+                    accumulator.rejections, accumulator.allocatedBytes));
+        }
+        return summaries;
+    }
+
+    /**
+     * Finds the stage running on a thread at a given time: the latest one started by then, if it has not ended.
+     */
+    private static Stage stageAt(List<Stage> stages, long time) {
+        if (stages == null) {
+            return null;
+        }
+        int low = 0;
+        int high = stages.size() - 1;
+        int latest = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (stages.get(mid).startNanos > time) {
+                high = mid - 1;
+            } else {
+                latest = mid;
+                low = mid + 1;
+            }
+        }
+        if (latest < 0 || stages.get(latest).endNanos < time) {
+            return null;
+        }
+        return stages.get(latest);
+    }
+
+    private static long toNanos(Instant time) {
+        return time.getEpochSecond() * 1_000_000_000L + time.getNano();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: EnlistmentRecordingAnalyzer <recording.jfr>");
+            System.exit(2);
+        }
+        List<StageSummary> summaries = analyze(Paths.get(args[0]));
+        if (summaries.isEmpty()) {
+            System.out.println("No " + EnlistmentStageEvent.NAME + " events in " + args[0]);
+            return;
+        }
+        summaries.forEach(System.out::println);
+    }
+}
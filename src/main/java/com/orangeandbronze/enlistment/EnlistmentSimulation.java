@@ -0,0 +1,422 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * A what-if fork of enlistment: hypothetical enlistments, cancellations, swaps, capacity changes and new
+ * sections are tried against it to see what would happen, e.g. how many waitlisted students a bigger room
+ * or a new section would place, without touching live enlistment.
+ * <p>
+ * A simulation starts from a root read from live enlistment at one moment: every student's
+ * {@link EnlistmentState} and every section's seat count, read together under the students' commit locks
+ * with {@link Student#whileCommitsWait(List, java.util.function.Supplier)}, so the seat counts agree with the
+ * states they were read with. States are immutable and shared with live enlistment, so the root holds one reference per student and
+ * section and copies no student. The root is never changed: a simulation keeps only what it changed on top of
+ * it, and {@link #fork()} shares the root and copies only those changes. Live enlistment going on afterwards is
+ * not seen by the simulation.
+ * <p>
+ * Operations are checked by the same rules as live ones, through {@link EnlistmentState}, against the fork's
+ * states and seat counts. A simulation is meant for one registrar's scenario and is not thread-safe;
+ * {@link #fork()} branches it to compare scenarios.
+ */
+class EnlistmentSimulation {
+
+    /**
+     * A hypothetical operation.
+     */
+    static final class Operation {
+        enum Type {
+            ENLIST, CANCEL, SWAP
+        }
+
+        private final Type type;
+        private final Student student;
+        private final Section section;
+        private final Section newSection;
+
+        private Operation(Type type, Student student, Section section, Section newSection) {
+            requireNonNull(student, "Student cannot be null");
+            requireNonNull(section, "Section cannot be null");
+            this.type = type;
+            this.student = student;
+            this.section = section;
+            this.newSection = newSection;
+        }
+
+        static Operation enlist(Student student, Section section) {
+            return new Operation(Type.ENLIST, student, section, null);
+        }
+
+        static Operation cancel(Student student, Section section) {
+            return new Operation(Type.CANCEL, student, section, null);
+        }
+
+        static Operation swap(Student student, Section oldSection, Section newSection) {
+            requireNonNull(newSection, "New section cannot be null");
+            return new Operation(Type.SWAP, student, oldSection, newSection);
+        }
+
+        Type getType() {
+            return type;
+        }
+
+        Student getStudent() {
+            return student;
+        }
+
+        /**
+         * Gets the section enlisted in or cancelled, or the section left by a swap.
+         * @return      The section.
+         */
+        Section getSection() {
+            return section;
+        }
+
+        /**
+         * Gets the section a swap enlists in.
+         * @return      The new section, or null unless this is a swap.
+         */
+        Section getNewSection() {
+            return newSection;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + student + " " + section + (newSection == null ? "" : " -> " + newSection);
+        }
+    }
+
+    /**
+     * What an operation would do.
+     */
+    static final class Outcome {
+        private final Operation operation;
+        private final RuntimeException rejection;
+
+        private Outcome(Operation operation, RuntimeException rejection) {
+            this.operation = operation;
+            this.rejection = rejection;
+        }
+
+        Operation getOperation() {
+            return operation;
+        }
+
+        boolean isAccepted() {
+            return rejection == null;
+        }
+
+        /**
+         * Gets why the operation would be rejected, e.g. a {@link ScheduleConflictException} naming the conflict.
+         * @return      The exception, or null if the operation would be accepted.
+         */
+        RuntimeException getRejection() {
+            return rejection;
+        }
+
+        @Override
+        public String toString() {
+            return operation + (rejection == null ? " accepted" : " rejected: " + rejection.getMessage());
+        }
+    }
+
+    /**
+     * The outcomes of a batch of operations.
+     */
+    static final class Report {
+        private final List<Outcome> outcomes;
+
+        private Report(List<Outcome> outcomes) {
+            this.outcomes = Collections.unmodifiableList(outcomes);
+        }
+
+        /**
+         * Gets the outcome of every operation, in the order they were run.
+         * @return      The outcomes.
+         */
+        List<Outcome> getOutcomes() {
+            return outcomes;
+        }
+
+        long getAccepted() {
+            return outcomes.stream().filter(Outcome::isAccepted).count();
+        }
+
+        /**
+         * Gets the number of rejected operations per rejection type.
+         * @return      Counts keyed by the simple name of the exception that would reject the operation.
+         */
+        Map<String, Long> getRejections() {
+            Map<String, Long> rejections = new TreeMap<>();
+            for (Outcome outcome : outcomes) {
+                if (!outcome.isAccepted()) {
+                    rejections.merge(outcome.rejection.getClass().getSimpleName(), 1L, Long::sum);
+                }
+            }
+            return rejections;
+        }
+
+        @Override
+        public String toString() {
+            return outcomes.size() + " operations, " + getAccepted() + " accepted, rejected=" + getRejections();
+        }
+    }
+
+    /**
+     * Live enlistment as of one moment, shared by a simulation and its forks and never changed.
+     */
+    private static final class Root {
+        private final Map<Student, EnlistmentState> states;
+        private final Map<Section, Integer> seats;
+
+        private Root(Map<Student, EnlistmentState> states, Map<Section, Integer> seats) {
+            this.states = states;
+            this.seats = seats;
+        }
+    }
+
+    private final Root root;
+    // only what the simulation changed; everything else is read from the root
+    private final Map<Student, EnlistmentState> states;
+    private final Map<Section, Integer> seats;
+    private final Map<Room, Integer> capacities;
+    // the slots taken by sections opened in the simulation, per room
+    private final Map<Room, WeeklySlotMask> openedSlots;
+
+    /**
+     * Forks live enlistment as of now. Seat counts are read together with the students' states, so they count
+     * exactly the students given when every student who enlists in the sections is given.
+     * @param students      The students to simulate, e.g. every student.
+     * @param sections      The sections to simulate besides those the students are enlisted in, e.g. every section.
+     */
+    EnlistmentSimulation(Collection<Student> students, Collection<Section> sections) {
+        requireNonNull(students, "Students cannot be null");
+        requireNonNull(sections, "Sections cannot be null");
+        isTrue(students.stream().noneMatch(Objects::isNull), "Students cannot contain null elements");
+        isTrue(sections.stream().noneMatch(Objects::isNull), "Sections cannot contain null elements");
+        List<Student> order = new ArrayList<>(students);
+        this.root = Student.whileCommitsWait(order, () -> {
+            Map<Student, EnlistmentState> rootStates = new HashMap<>();
+            Map<Section, Integer> rootSeats = new HashMap<>();
+            for (Student student : order) {
+                EnlistmentState state = student.getEnlistmentState();
+                rootStates.put(student, state);
+                for (Section section : state.getSections()) {
+                    rootSeats.computeIfAbsent(section, Section::getNumberOfEnlisted);
+                }
+            }
+            for (Section section : sections) {
+                rootSeats.computeIfAbsent(section, Section::getNumberOfEnlisted);
+            }
+            return new Root(Collections.unmodifiableMap(rootStates), Collections.unmodifiableMap(rootSeats));
+        });
+        this.states = new HashMap<>();
+        this.seats = new HashMap<>();
+        this.capacities = new HashMap<>();
+        this.openedSlots = new HashMap<>();
+    }
+
+    private EnlistmentSimulation(EnlistmentSimulation from) {
+        this.root = from.root;
+        this.states = new HashMap<>(from.states);
+        this.seats = new HashMap<>(from.seats);
+        this.capacities = new HashMap<>(from.capacities);
+        this.openedSlots = new HashMap<>(from.openedSlots);
+    }
+
+    /**
+     * Branches this simulation; changes to either are not seen by the other. The root is shared, and only what
+     * this simulation has changed is copied.
+     * @return      The branch.
+     */
+    EnlistmentSimulation fork() {
+        return new EnlistmentSimulation(this);
+    }
+
+    /**
+     * Simulates a room holding a different number of students, for every section held in it.
+     * @param room          The room.
+     * @param capacity      The simulated capacity.
+     */
+    void setCapacity(Room room, int capacity) {
+        requireNonNull(room, "Room cannot be null");
+        isTrue(capacity > 0, "capacity must be greater than 0, was: " + capacity);
+        capacities.put(room, capacity);
+    }
+
+    /**
+     * Simulates opening a new section, with no students yet. The section's schedule is checked against the
+     * room's live schedules and against sections opened in the simulation, but the room itself is not taken.
+     * @param sectionId     The section identifier.
+     * @param schedule      The schedule for the section.
+     * @param room          The room to hold the section in.
+     * @param subject       The subject of the section.
+     * @return              The section, to enlist in within this simulation and its forks only.
+     */
+    Section openSection(String sectionId, Schedule schedule, Room room, Subject subject) {
+        requireNonNull(schedule, "Schedule cannot be null");
+        requireNonNull(room, "Room cannot be null");
+        WeeklySlotMask taken = openedSlots.getOrDefault(room, WeeklySlotMask.EMPTY);
+        if (taken.intersects(schedule.getSlotMask())) {
+            throw new ScheduleRoomConflictException(
+                    "This section " + sectionId + " has overlapping schedule " + schedule + " in room " + room);
+        }
+        Section section = new Section(sectionId, schedule, room, subject);
+        openedSlots.put(room, taken.or(schedule.getSlotMask()));
+        seats.put(section, 0);
+        return section;
+    }
+
+    /**
+     * Simulates placing waitlisted students in a section, e.g. one opened with
+     * {@link #openSection(String, Schedule, Room, Subject)}, in the order they waited.
+     * @param section       The section to place them in.
+     * @param waitlist      The waitlisted students.
+     * @return              The outcome of enlisting each; students who find the section full are rejected with
+     *                      a {@link RoomCapacityReachedException}.
+     */
+    Report placeWaitlisted(Section section, List<Student> waitlist) {
+        requireNonNull(section, "Section cannot be null");
+        requireNonNull(waitlist, "Waitlist cannot be null");
+        List<Operation> placements = new ArrayList<>(waitlist.size());
+        for (Student student : waitlist) {
+            placements.add(Operation.enlist(student, section));
+        }
+        return run(placements);
+    }
+
+    /**
+     * Simulates placing the students waiting for a section's subject in a {@link CapacityManager} in the section.
+     * @param section       The section to place them in.
+     * @param manager       The capacity manager whose waitlist to feed.
+     * @return              The outcome of enlisting each.
+     */
+    Report placeWaitlisted(Section section, CapacityManager manager) {
+        requireNonNull(section, "Section cannot be null");
+        requireNonNull(manager, "Capacity manager cannot be null");
+        return placeWaitlisted(section, manager.getWaitlist(section.getSubject()));
+    }
+
+    /**
+     * Runs a batch of operations in order, each seeing the ones before it.
+     * @param operations    The operations.
+     * @return              The outcome of each.
+     */
+    Report run(List<Operation> operations) {
+        requireNonNull(operations, "Operations cannot be null");
+        List<Outcome> outcomes = new ArrayList<>(operations.size());
+        for (Operation operation : operations) {
+            outcomes.add(apply(operation));
+        }
+        return new Report(outcomes);
+    }
+
+    /**
+     * Runs one operation.
+     * @param operation     The operation.
+     * @return              Its outcome.
+     */
+    Outcome apply(Operation operation) {
+        requireNonNull(operation, "Operation cannot be null");
+        Student student = operation.student;
+        EnlistmentState current = getEnlistmentState(student);
+        try {
+            switch (operation.type) {
+                case ENLIST:
+                    EnlistmentState enlisted = student.checkEnlist(current, List.of(operation.section));
+                    takeSeat(operation.section);
+                    states.put(student, enlisted);
+                    break;
+                case CANCEL:
+                    EnlistmentState cancelled = student.checkCancel(current, List.of(operation.section));
+                    giveBackSeat(operation.section);
+                    states.put(student, cancelled);
+                    break;
+                case SWAP:
+                    isTrue(!operation.section.equals(operation.newSection), "Cannot swap a section for itself: " + operation.section);
+                    EnlistmentState swapped = student.checkSwap(current, operation.section, operation.newSection);
+                    int taken = getNumberOfEnlisted(operation.newSection);
+                    takeSeat(operation.newSection);
+                    try {
+                        giveBackSeat(operation.section);
+                    } catch (RuntimeException e) {
+                        seats.put(operation.newSection, taken);
+                        throw e;
+                    }
+                    states.put(student, swapped);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation type: " + operation.type);
+            }
+            return new Outcome(operation, null);
+        } catch (RuntimeException e) {
+            return new Outcome(operation, e);
+        }
+    }
+
+    /**
+     * Gets a student's enlistment as the simulation has it.
+     * @param student   The student.
+     * @return          The simulated state, or the one read when the simulation began if it has not changed the student.
+     */
+    EnlistmentState getEnlistmentState(Student student) {
+        requireNonNull(student, "Student cannot be null");
+        EnlistmentState state = states.get(student);
+        if (state == null) {
+            state = root.states.get(student);
+        }
+        isTrue(state != null, "Student is not part of the simulation: " + student);
+        return state;
+    }
+
+    /**
+     * Gets a section's seats taken as the simulation has them.
+     * @param section   The section.
+     * @return          The simulated count, or the one read when the simulation began if it has not changed the section.
+     */
+    int getNumberOfEnlisted(Section section) {
+        requireNonNull(section, "Section cannot be null");
+        Integer taken = seats.get(section);
+        if (taken == null) {
+            taken = root.seats.get(section);
+        }
+        isTrue(taken != null, "Section is not part of the simulation: " + section);
+        return taken;
+    }
+
+    /**
+     * Gets the capacity of a section's room as the simulation has it.
+     * @param section   The section.
+     * @return          The simulated capacity, or the room's own.
+     */
+    int getCapacity(Section section) {
+        requireNonNull(section, "Section cannot be null");
+        return capacities.getOrDefault(section.getRoom(), section.getRoom().getMaxCapacity());
+    }
+
+    /**
+     * Gets the number of students the simulation has changed.
+     * @return      The number of students with a simulated state.
+     */
+    int getChangedStudents() {
+        return states.size();
+    }
+
+    private void takeSeat(Section section) {
+        int taken = getNumberOfEnlisted(section);
+        section.getRoom().checkForOverCapacity(taken, getCapacity(section));
+        seats.put(section, taken + 1);
+    }
+
+    private void giveBackSeat(Section section) {
+        int taken = getNumberOfEnlisted(section);
+        // the root's seat counts agree with its states, so a student leaving always held a seat
+        if (taken == 0) {
+            throw new IllegalStateException("Section " + section + " has no seat taken to give back");
+        }
+        seats.put(section, taken - 1);
+    }
+}
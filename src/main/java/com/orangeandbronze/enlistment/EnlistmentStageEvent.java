@@ -0,0 +1,153 @@
+package com.orangeandbronze.enlistment;
+
+import jdk.jfr.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A Java Flight Recorder event timing one stage of enlisting, swapping, cancelling or assessing a student,
+ * e.g. checking the enlistment rules or taking seats.
+ * <p>
+ * Stages are timed with {@link #begin(String, String)} and {@link #end(int, List, int)}. Nothing but the start
+ * time is recorded until the stage ends, and the section and subject ids are only joined if the event is
+ * enabled and the stage took longer than its threshold, so a stage costs next to nothing when no recording is
+ * running or a recording disables {@value #NAME}. Callers can check {@link #isRecording()} first to skip even
+ * creating the events while no recording runs. {@link EnlistmentRecordingAnalyzer} summarizes a recording by stage.
+ */
+@Name(EnlistmentStageEvent.NAME)
+@Label("Enlistment Stage")
+@Category("Enlistment")
+@Description("One stage of enlisting, swapping, cancelling or assessing a student")
+@StackTrace(false)
+class EnlistmentStageEvent extends Event {
+    static final String NAME = "com.orangeandbronze.enlistment.EnlistmentStage";
+
+    // operations
+    static final String ENLIST = "enlist";
+    static final String SWAP = "swap";
+    static final String CANCEL = "cancel";
+    static final String ASSESS = "assess";
+
+    // stages
+    static final String CHECK = "check";
+    static final String RESERVE = "reserve";
+    static final String COMMIT = "commit";
+    static final String RELEASE = "release";
+    static final String TOTAL = "total";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Student Number")
+    int studentNo;
+
+    @Label("Sections")
+    @Description("The ids of the sections the stage worked on, comma-separated")
+    String sections;
+
+    @Label("Subjects")
+    @Description("The ids of the subjects of the sections, comma-separated")
+    String subjects;
+
+    @Label("Attempt")
+    @Description("Which attempt at the operation the stage belongs to; later attempts follow a lost race")
+    int attempt;
+
+    @Label("Retried")
+    @Description("Whether another operation on the student committed first, so the operation started over")
+    boolean retried;
+
+    @Label("Rejection")
+    @Description("The simple name of the exception that rejected the operation, if any")
+    String rejection;
+
+    @Label("Reason")
+    String reason;
+
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                updateRecording();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                updateRecording();
+            }
+        });
+        updateRecording();
+    }
+
+    private EnlistmentStageEvent(String operation, String stage) {
+        this.operation = operation;
+        this.stage = stage;
+    }
+
+    /**
+     * Starts timing a stage.
+     * @param operation     The operation, e.g. {@link #ENLIST}.
+     * @param stage         The stage, e.g. {@link #CHECK}.
+     * @return              The event, to be ended with {@link #end(int, List, int)}.
+     */
+    static EnlistmentStageEvent begin(String operation, String stage) {
+        EnlistmentStageEvent event = new EnlistmentStageEvent(operation, stage);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Tells whether a flight recording is running. An operation that starts while none is running is not
+     * timed, even if a recording starts before it ends.
+     * @return      true if stages should be timed.
+     */
+    static boolean isRecording() {
+        return recording;
+    }
+
+    private static void updateRecording() {
+        recording = FlightRecorder.isInitialized() && FlightRecorder.getFlightRecorder().getRecordings().stream()
+                .anyMatch(running -> running.getState() == RecordingState.RUNNING);
+    }
+
+    /**
+     * Records the exception that rejected the operation during this stage.
+     * @param e     The exception.
+     */
+    void reject(RuntimeException e) {
+        if (isEnabled()) {
+            rejection = e.getClass().getSimpleName();
+            reason = e.getMessage();
+        }
+    }
+
+    /**
+     * Records that the operation lost a race during this stage and starts over.
+     */
+    void retry() {
+        retried = true;
+    }
+
+    /**
+     * Ends the stage, committing the event if it is enabled and the stage took longer than its threshold.
+     * @param studentNo     The student's number.
+     * @param sections      The sections the stage worked on.
+     * @param attempt       The attempt at the operation, starting from 1.
+     */
+    void end(int studentNo, List<Section> sections, int attempt) {
+        end();
+        if (shouldCommit()) {
+            this.studentNo = studentNo;
+            this.sections = sections.stream().map(Section::toString).collect(Collectors.joining(","));
+            this.subjects = sections.stream().map(section -> section.getSubject().toString()).collect(Collectors.joining(","));
+            this.attempt = attempt;
+            commit();
+        }
+    }
+}
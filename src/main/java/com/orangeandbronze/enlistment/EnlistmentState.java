@@ -0,0 +1,259 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * An immutable snapshot of a student's enlistment: the sections, their total units, the subjects they
+ * cover and the weekly slots they occupy, stamped with a version that grows with every change.
+ * <p>
+ * The rules of enlistment live here as pure functions from one state to the next. They read nothing
+ * but their arguments and change nothing, so they can be run against any state, including one that
+ * never becomes a student's. Seats are not part of a state; taking and giving back seats is left to
+ * whoever commits the new state.
+ */
+final class EnlistmentState {
+    static final EnlistmentState EMPTY = new EnlistmentState(new Section[0], 0, new BitSet(), WeeklySlotMask.EMPTY, 0);
+
+    private final Section[] sections;
+    private final int totalUnits;
+    private final BitSet subjects;
+    private final WeeklySlotMask occupiedSlots;
+    private final long version;
+
+    private EnlistmentState(Section[] sections, int totalUnits, BitSet subjects, WeeklySlotMask occupiedSlots, long version) {
+        this.sections = sections;
+        this.totalUnits = totalUnits;
+        this.subjects = subjects;
+        this.occupiedSlots = occupiedSlots;
+        this.version = version;
+    }
+
+    /**
+     * Creates the state of a student's existing sections, without checking them against each other.
+     * @param sections  The sections.
+     * @return          The state, at version 0.
+     */
+    static EnlistmentState of(Collection<Section> sections) {
+        requireNonNull(sections, "Sections cannot be null");
+        isTrue(sections.stream().noneMatch(Objects::isNull), "Sections cannot contain null elements");
+        Section[] distinct = new LinkedHashSet<>(sections).toArray(new Section[0]);
+        return EMPTY.with(distinct, 0);
+    }
+
+    /**
+     * Checks a group of sections against this state and returns the state with them enlisted: no schedule
+     * conflicts, subjects in the degree program, prerequisites passed, no duplicate subjects, corequisites
+     * and exclusions respected, and the total within the unit limit.
+     * @param newSections       The sections to enlist in.
+     * @param degreeProgram     The student's degree program.
+     * @param transcript        The student's transcript.
+     * @param maxUnits          The most units the student may enlist in.
+     * @return                  The next state.
+     */
+    EnlistmentState enlist(List<Section> newSections, DegreeProgram degreeProgram, Transcript transcript, int maxUnits) {
+        requireNonNull(newSections, "Sections cannot be null");
+        isTrue(!newSections.isEmpty(), "Sections cannot be empty");
+        isTrue(newSections.stream().noneMatch(Objects::isNull), "Sections cannot contain null elements");
+        BitSet groupSubjects = new BitSet();
+        WeeklySlotMask groupSlots = WeeklySlotMask.EMPTY;
+        int groupUnits = 0;
+        boolean constrained = false;
+
+        for (int i = 0; i < newSections.size(); i++) {
+            Section newSection = newSections.get(i);
+
+            // check for schedule conflicts; only look for the conflicting section once there is one
+            WeeklySlotMask slots = newSection.getSchedule().getSlotMask();
+            if (occupiedSlots.intersects(slots) || groupSlots.intersects(slots)) {
+                for (Section existingSection : sections) {
+                    existingSection.checkForConflict(newSection);
+                }
+                for (int j = 0; j < i; j++) {
+                    newSections.get(j).checkForConflict(newSection);
+                }
+            }
+
+            // check if subject is part of degree program
+            degreeProgram.checkIfSubjectPartOfProgram(newSection.getSubject());
+
+            // check for prerequisites
+            transcript.checkPrerequisites(newSection.getSubject());
+
+            // check for duplicate subjects
+            int subjectIndex = newSection.getSubject().getIndex();
+            if (subjects.get(subjectIndex) || groupSubjects.get(subjectIndex)) {
+                throw new DuplicateSubjectEnlistmentException("Cannot enlist in two sections with the same subject");
+            }
+            groupSubjects.set(subjectIndex);
+            groupSlots = groupSlots.or(slots);
+            groupUnits += newSection.getSubjectUnits();
+            constrained |= newSection.getSubject().hasCorequisitesOrExclusions();
+        }
+
+        BitSet load = (BitSet) subjects.clone();
+        load.or(groupSubjects);
+
+        // check corequisites and exclusions against the whole load
+        if (constrained) {
+            newSections.forEach(newSection -> transcript.checkCorequisitesAndExclusions(newSection.getSubject(), load));
+        }
+
+        // check if total units is within the limit
+        int newTotalUnits = totalUnits + groupUnits;
+        if (newTotalUnits > maxUnits) {
+            throw new MaxUnitsPerStudentLimitExceededException("Cannot enlist in more than " + maxUnits + " units. Current total units enlisted: " + newTotalUnits + " units");
+        }
+
+        Section[] next = Arrays.copyOf(sections, sections.length + newSections.size());
+        for (int i = 0; i < newSections.size(); i++) {
+            next[sections.length + i] = newSections.get(i);
+        }
+        return new EnlistmentState(next, newTotalUnits, load, occupiedSlots.or(groupSlots), version + 1);
+    }
+
+    /**
+     * Returns the state without a group of sections, e.g. a lecture and its laboratory. If a cancelled subject
+     * has corequisites, the sections that remain are checked against the smaller load, so a section cannot be
+     * left without a corequisite the student has not passed.
+     * @param cancelled     The sections to cancel.
+     * @param transcript    The student's transcript.
+     * @return              The next state.
+     */
+    EnlistmentState cancel(List<Section> cancelled, Transcript transcript) {
+        requireNonNull(transcript, "Transcript cannot be null");
+        EnlistmentState next = without(cancelled);
+        boolean constrained = false;
+        for (Section section : cancelled) {
+            constrained |= section.getSubject().hasCorequisitesOrExclusions();
+        }
+        if (constrained) {
+            try {
+                next.checkCorequisites(transcript);
+            } catch (CorequisiteNotMetException e) {
+                throw new CorequisiteNotMetException("Cannot cancel " + cancelled + " while a section that needs it stays enlisted; "
+                        + "cancel them together. " + e.getMessage());
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Checks a section against this state without another section, and returns the state with the one
+     * swapped for the other, as a single change. The sections that remain are checked against the new load too,
+     * so swapping out a corequisite of another section for a section of a different subject is rejected.
+     * @param oldSection        The enlisted section to leave.
+     * @param newSection        The section to enlist in instead.
+     * @param degreeProgram     The student's degree program.
+     * @param transcript        The student's transcript.
+     * @param maxUnits          The most units the student may enlist in.
+     * @return                  The next state.
+     */
+    EnlistmentState swap(Section oldSection, Section newSection, DegreeProgram degreeProgram, Transcript transcript, int maxUnits) {
+        requireNonNull(oldSection, "Old section cannot be null");
+        requireNonNull(newSection, "New section cannot be null");
+        EnlistmentState next = without(List.of(oldSection)).enlist(List.of(newSection), degreeProgram, transcript, maxUnits);
+        if (oldSection.getSubject().hasCorequisitesOrExclusions()) {
+            next.checkCorequisites(transcript);
+        }
+        return new EnlistmentState(next.sections, next.totalUnits, next.subjects, next.occupiedSlots, version + 1);
+    }
+
+    /**
+     * Returns the state without some sections, without checking what remains.
+     */
+    private EnlistmentState without(List<Section> cancelled) {
+        requireNonNull(cancelled, "Sections cannot be null");
+        isTrue(!cancelled.isEmpty(), "Sections cannot be empty");
+        isTrue(cancelled.stream().noneMatch(Objects::isNull), "Sections cannot contain null elements");
+        boolean[] removed = new boolean[sections.length];
+        int remaining = sections.length;
+        for (Section section : cancelled) {
+            int position = indexOf(section);
+            if (position < 0) {
+                throw new CancellingUnenlistedSectionException("Cannot cancel enlistment for a section that hasn't been enlisted");
+            }
+            isTrue(!removed[position], "Cannot cancel a section twice: " + section);
+            removed[position] = true;
+            remaining--;
+        }
+        Section[] next = new Section[remaining];
+        for (int i = 0, j = 0; i < sections.length; i++) {
+            if (!removed[i]) {
+                next[j++] = sections[i];
+            }
+        }
+        return with(next, version + 1);
+    }
+
+    /**
+     * Checks the corequisites and exclusions of every section against the whole load.
+     */
+    private void checkCorequisites(Transcript transcript) {
+        for (Section section : sections) {
+            if (section.getSubject().hasCorequisitesOrExclusions()) {
+                transcript.checkCorequisitesAndExclusions(section.getSubject(), subjects);
+            }
+        }
+    }
+
+    boolean contains(Section section) {
+        return indexOf(section) >= 0;
+    }
+
+    /**
+     * Gets the enlisted sections, in the order they were enlisted.
+     * @return      An unmodifiable list of the sections.
+     */
+    List<Section> getSections() {
+        return Collections.unmodifiableList(Arrays.asList(sections));
+    }
+
+    int getTotalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Checks if a subject is among the enlisted subjects.
+     * @param subject   The subject.
+     * @return          true if one of the sections is of the subject.
+     */
+    boolean hasSubject(Subject subject) {
+        return subjects.get(subject.getIndex());
+    }
+
+    WeeklySlotMask getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    /**
+     * Gets the version of the state; each change made through {@link #enlist}, {@link #cancel} or {@link #swap} adds one.
+     * @return      The version.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    private int indexOf(Section section) {
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i].equals(section)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private EnlistmentState with(Section[] next, long nextVersion) {
+        BitSet nextSubjects = new BitSet();
+        WeeklySlotMask nextSlots = WeeklySlotMask.EMPTY;
+        int units = 0;
+        for (Section section : next) {
+            nextSubjects.set(section.getSubject().getIndex());
+            nextSlots = nextSlots.or(section.getSchedule().getSlotMask());
+            units += section.getSubjectUnits();
+        }
+        return new EnlistmentState(next, units, nextSubjects, nextSlots, nextVersion);
+    }
+}
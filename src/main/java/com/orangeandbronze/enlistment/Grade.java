@@ -0,0 +1,37 @@
+package com.orangeandbronze.enlistment;
+
+/**
+ * A grade posted for a subject, and whether it passes the subject. Only passing grades
+ * satisfy prerequisites.
+ */
+enum Grade {
+    FOUR("4.0", true),
+    THREE_FIVE("3.5", true),
+    THREE("3.0", true),
+    TWO_FIVE("2.5", true),
+    TWO("2.0", true),
+    ONE_FIVE("1.5", true),
+    ONE("1.0", true),
+    FAILED("0.0", false),
+    INCOMPLETE("INC", false),
+    WITHDRAWN("W", false),
+    /** Passed without a numeric grade, e.g. credited from another school or recorded before grades were kept. */
+    PASSED("P", true);
+
+    private final String label;
+    private final boolean passing;
+
+    Grade(String label, boolean passing) {
+        this.label = label;
+        this.passing = passing;
+    }
+
+    boolean isPassing() {
+        return passing;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
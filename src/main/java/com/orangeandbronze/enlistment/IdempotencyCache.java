@@ -0,0 +1,138 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Remembers the outcome of each command submitted with an idempotency key, so a client retrying a command
+ * gets the outcome of the first attempt instead of running it again.
+ * <p>
+ * Outcomes are kept as the futures of the original commands: a retry arriving while the command is still
+ * running waits for the same result. Keys expire a fixed time after they are first used, and at most
+ * {@code maxKeys} are kept, the oldest being forgotten first. Because every key lives for the same time,
+ * the order keys were first used is also the order they expire, so one FIFO queue serves for both.
+ */
+class IdempotencyCache {
+
+    private static final class Entry {
+        private final String key;
+        private final List<Object> command;
+        private final CompletableFuture<Void> outcome;
+        private final long expiresAtMillis;
+
+        private Entry(String key, List<Object> command, CompletableFuture<Void> outcome, long expiresAtMillis) {
+            this.key = key;
+            this.command = command;
+            this.outcome = outcome;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final Clock clock;
+    private final long ttlMillis;
+    private final int maxKeys;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> byAge = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates an idempotency cache.
+     * @param clock     The clock that expires keys.
+     * @param ttl       How long a key is remembered after it is first used.
+     * @param maxKeys   The most keys remembered at once.
+     */
+    IdempotencyCache(Clock clock, Duration ttl, int maxKeys) {
+        requireNonNull(clock, "Clock cannot be null");
+        requireNonNull(ttl, "TTL cannot be null");
+        isTrue(!ttl.isNegative() && !ttl.isZero(), "TTL must be positive, was: " + ttl);
+        isTrue(maxKeys > 0, "maxKeys must be greater than 0, was: " + maxKeys);
+        this.clock = clock;
+        this.ttlMillis = ttl.toMillis();
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Returns the outcome of the command first submitted with the key, or runs the command if the key is new
+     * or has expired.
+     * @param key       The idempotency key chosen by the client.
+     * @param command   What the command is, e.g. its type, student and sections; a key may only be reused
+     *                  for the same command.
+     * @param submit    Submits the command. If it throws instead of returning a future, the key is forgotten
+     *                  and the exception is thrown to the caller.
+     * @return          The outcome of the first command submitted with the key.
+     */
+    CompletableFuture<Void> computeIfAbsent(String key, List<Object> command, Supplier<CompletableFuture<Void>> submit) {
+        notBlank(key, "Idempotency key cannot be null or blank");
+        requireNonNull(command, "Command cannot be null");
+        requireNonNull(submit, "Submit cannot be null");
+        long now = clock.millis();
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && existing.expiresAtMillis > now) {
+                return existing;
+            }
+            created[0] = new Entry(key, command, new CompletableFuture<>(), now + ttlMillis);
+            return created[0];
+        });
+        if (!entry.command.equals(command)) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + key + " was already used for " + entry.command);
+        }
+        if (created[0] != null) {
+            byAge.add(entry);
+            evict(now);
+            // submit outside compute(), which must not run long or re-enter the map
+            CompletableFuture<Void> submitted;
+            try {
+                submitted = submit.get();
+            } catch (RuntimeException e) {
+                // the command never ran, so the key is freed for a retry; retries already waiting fail with it
+                entries.remove(key, entry);
+                entry.outcome.completeExceptionally(e);
+                throw e;
+            }
+            submitted.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    entry.outcome.complete(result);
+                } else {
+                    entry.outcome.completeExceptionally(failure);
+                }
+            });
+        }
+        return entry.outcome;
+    }
+
+    /**
+     * Forgets a key if it still maps to the given outcome, e.g. when the command was not admitted and the
+     * client should be free to retry it.
+     * @param key       The idempotency key.
+     * @param outcome   The outcome the key should map to.
+     */
+    void forget(String key, CompletableFuture<Void> outcome) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.outcome == outcome) {
+            entries.remove(key, entry);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = byAge.peek()) != null && (oldest.expiresAtMillis <= now || entries.size() > maxKeys)) {
+            if (byAge.remove(oldest)) {
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+}
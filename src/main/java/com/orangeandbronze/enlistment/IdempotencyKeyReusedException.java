@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+    IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
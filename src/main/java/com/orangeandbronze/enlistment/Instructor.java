@@ -0,0 +1,166 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isAlphanumeric;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Represents an instructor who teaches sections, up to a limit of teaching units.
+ * The instructor keeps the union of the taught sections' time slots as a {@link WeeklySlotMask}, like a
+ * {@link Room}, so checking a section against the instructor's load does not depend on how many sections
+ * the instructor already teaches.
+ */
+class Instructor {
+    private final String instructorId;
+    private final int maxTeachingUnits;
+
+    // guarded by lock; the mask and units are also read without it
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<Section> sections = new LinkedHashSet<>();
+    private volatile WeeklySlotMask occupiedSlots = WeeklySlotMask.EMPTY;
+    private volatile int teachingUnits;
+
+    /**
+     * Creates an instructor teaching no sections.
+     * @param instructorId      The instructor identifier.
+     * @param maxTeachingUnits  The most units of sections the instructor may teach.
+     */
+    Instructor(String instructorId, int maxTeachingUnits) {
+        notBlank(instructorId, "instructorId cannot be null or blank");
+        isTrue(isAlphanumeric(instructorId), "instructorId must be alphanumeric, was: " + instructorId);
+        isTrue(maxTeachingUnits > 0, "maxTeachingUnits must be greater than 0, was: " + maxTeachingUnits);
+        this.instructorId = instructorId;
+        this.maxTeachingUnits = maxTeachingUnits;
+    }
+
+    /**
+     * Checks if the instructor is free for the whole of the given schedule.
+     * @param schedule  The schedule to check.
+     * @return          true if none of the schedule's slots are taken, false otherwise.
+     */
+    boolean isAvailable(Schedule schedule) {
+        return !occupiedSlots.intersects(schedule.getSlotMask());
+    }
+
+    /**
+     * Adds a section to the instructor's load, checking for a schedule conflict and the teaching-unit limit
+     * and adding the section as one step. Adding a section the instructor already teaches has no effect.
+     * Use {@link Section#assignInstructor(Instructor)} so the section knows its instructor.
+     * @param section   The section to teach.
+     */
+    void teach(Section section) {
+        requireNonNull(section, "Section cannot be null");
+        lock.lock();
+        try {
+            if (sections.contains(section)) {
+                return;
+            }
+            checkAssignment(section, sections, occupiedSlots, teachingUnits);
+            sections.add(section);
+            occupiedSlots = occupiedSlots.or(section.getSchedule().getSlotMask());
+            teachingUnits += section.getSubjectUnits();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a section from the instructor's load.
+     * @param section   The section to stop teaching.
+     * @return          true if the instructor was teaching the section.
+     */
+    boolean stopTeaching(Section section) {
+        requireNonNull(section, "Section cannot be null");
+        lock.lock();
+        try {
+            if (!sections.remove(section)) {
+                return false;
+            }
+            // taught sections never overlap, so the section's slots are the instructor's alone
+            occupiedSlots = occupiedSlots.andNot(section.getSchedule().getSlotMask());
+            teachingUnits -= section.getSubjectUnits();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks a section against a load of this instructor's, e.g. one being planned, without changing anything.
+     * @param section       The section to teach.
+     * @param teaching      The sections in the load.
+     * @param occupied      The time slots of the sections in the load.
+     * @param units         The units of the sections in the load.
+     */
+    void checkAssignment(Section section, Collection<Section> teaching, WeeklySlotMask occupied, int units) {
+        if (occupied.intersects(section.getSchedule().getSlotMask())) {
+            for (Section other : teaching) {
+                if (other.getSchedule().hasConflictWith(section.getSchedule())) {
+                    throw new InstructorScheduleConflictException("Instructor " + this + " already teaches section " + other
+                            + " during " + other.getSchedule() + ", which overlaps section " + section + " during " + section.getSchedule());
+                }
+            }
+        }
+        int newTeachingUnits = units + section.getSubjectUnits();
+        if (newTeachingUnits > maxTeachingUnits) {
+            throw new TeachingLoadExceededException("Instructor " + this + " cannot teach more than " + maxTeachingUnits
+                    + " units. Teaching units with section " + section + ": " + newTeachingUnits + " units");
+        }
+    }
+
+    /**
+     * Retrieves a copy of the sections the instructor teaches.
+     * @return      A copy of the sections, in the order they were added.
+     */
+    List<Section> getSections() {
+        lock.lock();
+        try {
+            return new ArrayList<>(sections);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets every time slot the instructor teaches in.
+     * @return      The union of the taught sections' slots.
+     */
+    WeeklySlotMask getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    int getTeachingUnits() {
+        return teachingUnits;
+    }
+
+    int getMaxTeachingUnits() {
+        return maxTeachingUnits;
+    }
+
+    String getInstructorId() {
+        return instructorId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        Instructor instructor = (Instructor) o;
+        return Objects.equals(instructorId, instructor.instructorId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instructorId);
+    }
+
+    @Override
+    public String toString() {
+        return instructorId;
+    }
+}
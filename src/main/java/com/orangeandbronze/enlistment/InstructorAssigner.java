@@ -0,0 +1,117 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Assigns or reassigns instructors to many sections at once, e.g. when the teaching plan for a term is loaded.
+ * <p>
+ * A batch is checked as a whole: each instructor's load after the batch is the sections the instructor keeps
+ * plus the ones the batch gives the instructor, so two instructors may trade sections at the same time. Loads
+ * of different instructors do not depend on each other, so each instructor is checked on its own thread.
+ * A batch is applied only if every assignment in it is valid; otherwise nothing changes.
+ */
+class InstructorAssigner {
+
+    private InstructorAssigner() {
+    }
+
+    /**
+     * Checks a batch of assignments without changing anything.
+     * @param assignments   The instructor to teach each section.
+     * @return              Why each invalid assignment cannot be made, keyed by section; empty if all are valid.
+     */
+    static Map<Section, RuntimeException> validate(Map<Section, Instructor> assignments) {
+        requireNonNull(assignments, "Assignments cannot be null");
+        isTrue(assignments.entrySet().stream().noneMatch(entry -> entry.getKey() == null || entry.getValue() == null),
+                "Assignments cannot contain null sections or instructors");
+        Map<Instructor, List<Section>> gained = assignments.entrySet().stream()
+                .filter(entry -> !entry.getValue().equals(entry.getKey().getInstructor()))
+                .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+
+        Map<Section, RuntimeException> problems = new ConcurrentHashMap<>();
+        gained.entrySet().parallelStream().forEach(entry -> {
+            Instructor instructor = entry.getKey();
+            List<Section> load = new ArrayList<>();
+            WeeklySlotMask occupied = WeeklySlotMask.EMPTY;
+            int units = 0;
+            for (Section kept : instructor.getSections()) {
+                Instructor next = assignments.get(kept);
+                if (next == null || next.equals(instructor)) {
+                    load.add(kept);
+                    occupied = occupied.or(kept.getSchedule().getSlotMask());
+                    units += kept.getSubjectUnits();
+                }
+            }
+            List<Section> sections = new ArrayList<>(entry.getValue());
+            sections.sort(Comparator.comparing(Section::toString));
+            for (Section section : sections) {
+                try {
+                    instructor.checkAssignment(section, load, occupied, units);
+                    load.add(section);
+                    occupied = occupied.or(section.getSchedule().getSlotMask());
+                    units += section.getSubjectUnits();
+                } catch (RuntimeException e) {
+                    problems.put(section, e);
+                }
+            }
+        });
+        return problems;
+    }
+
+    /**
+     * Checks a batch of assignments and, if all are valid, makes them. Sections that change instructors first
+     * leave their old instructors, then join their new ones, so while a batch is applied they briefly have none.
+     * If another change to an instructor gets in between and an assignment fails, the sections go back to their
+     * old instructors. A section whose old instructor took on a conflicting section meanwhile cannot go back and
+     * is left without an instructor; it is reported with the failure.
+     * @param assignments   The instructor to teach each section.
+     * @return              Why each invalid assignment cannot be made, or why the batch failed and each section
+     *                      that could not go back to its old instructor, keyed by section; empty if the batch was made.
+     */
+    static Map<Section, RuntimeException> assign(Map<Section, Instructor> assignments) {
+        Map<Section, RuntimeException> problems = validate(assignments);
+        if (!problems.isEmpty()) {
+            return problems;
+        }
+
+        Map<Section, Instructor> previous = new LinkedHashMap<>();
+        assignments.forEach((section, instructor) -> {
+            if (!instructor.equals(section.getInstructor())) {
+                previous.put(section, section.getInstructor());
+                section.unassignInstructor();
+            }
+        });
+        List<Section> assigned = new ArrayList<>(previous.size());
+        for (Section section : previous.keySet()) {
+            try {
+                section.assignInstructor(assignments.get(section));
+                assigned.add(section);
+            } catch (RuntimeException e) {
+                Map<Section, RuntimeException> failures = new LinkedHashMap<>();
+                failures.put(section, e);
+                assigned.forEach(Section::unassignInstructor);
+                previous.forEach((moved, instructor) -> {
+                    if (instructor != null) {
+                        try {
+                            moved.assignInstructor(instructor);
+                        } catch (RuntimeException restore) {
+                            // the old instructor took on something else meanwhile; the section stays unassigned
+                            if (moved.equals(section)) {
+                                e.addSuppressed(restore);
+                            } else {
+                                failures.put(moved, restore);
+                            }
+                        }
+                    }
+                });
+                return failures;
+            }
+        }
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class InstructorScheduleConflictException extends RuntimeException {
+    InstructorScheduleConflictException(String msg) {
+        super(msg);
+    }
+}
\ No newline at end of file
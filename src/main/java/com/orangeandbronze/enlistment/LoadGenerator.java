@@ -0,0 +1,176 @@
+package com.orangeandbronze.enlistment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Drives a {@link TrafficTrace} against a {@link SyntheticCatalog} and reports what happened.
+ * <p>
+ * {@link #run} submits operations concurrently through an {@link EnlistmentDispatcher} at a fixed
+ * rate, which is how enlistment day looks to the server. {@link #replaySequentially} applies the
+ * operations one by one in trace order, so the outcome of every operation is exactly reproducible
+ * from the trace alone. Both refuse a trace generated against a different catalog.
+ * <p>
+ * Run from the command line with
+ * {@code gradle loadGenerator --args="<seed> <subjects> <rooms> <students> <operations> <opsPerSecond> [traceFile [sequential|concurrent]]"}.
+ * A missing trace file is captured to, and the run is concurrent unless {@code sequential} is given. An existing
+ * trace file is replayed sequentially unless {@code concurrent} is given, and the arguments must describe the
+ * catalog it was captured against.
+ */
+class LoadGenerator {
+    private final SyntheticCatalog catalog;
+
+    LoadGenerator(SyntheticCatalog catalog) {
+        requireNonNull(catalog, "Catalog cannot be null");
+        this.catalog = catalog;
+    }
+
+    /**
+     * Submits the trace's operations at a fixed rate and waits for all of them to complete.
+     * @param trace         The operations to submit.
+     * @param dispatcher    The dispatcher that runs the operations.
+     * @param opsPerSecond  The submission rate; operations are submitted on a fixed schedule
+     *                      regardless of how fast earlier ones complete.
+     * @return              Throughput, latency and rejection statistics.
+     */
+    LoadReport run(TrafficTrace trace, EnlistmentDispatcher dispatcher, int opsPerSecond) {
+        requireNonNull(trace, "Trace cannot be null");
+        requireNonNull(dispatcher, "Dispatcher cannot be null");
+        isTrue(opsPerSecond > 0, "opsPerSecond must be greater than 0, was: " + opsPerSecond);
+        trace.checkCatalog(catalog);
+
+        List<TrafficTrace.Operation> operations = trace.getOperations();
+        long[] latencies = new long[operations.size()];
+        Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[operations.size()];
+        long intervalNanos = 1_000_000_000L / opsPerSecond;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations.size(); i++) {
+            long due = start + i * intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final int index = i;
+            long submitted = System.nanoTime();
+            pending[i] = submit(operations.get(i), dispatcher).whenComplete((ignored, failure) -> {
+                latencies[index] = System.nanoTime() - submitted;
+                if (failure != null) {
+                    recordRejection(rejections, failure);
+                }
+            });
+        }
+        // individual failures are already recorded as rejections
+        CompletableFuture.allOf(pending).exceptionally(failure -> null).join();
+        return new LoadReport(System.nanoTime() - start, latencies, sum(rejections));
+    }
+
+    /**
+     * Applies the trace's operations one at a time on the calling thread, in trace order.
+     * @param trace     The operations to apply.
+     * @return          Latency and rejection statistics; the rejections are deterministic.
+     */
+    LoadReport replaySequentially(TrafficTrace trace) {
+        requireNonNull(trace, "Trace cannot be null");
+        trace.checkCatalog(catalog);
+        List<TrafficTrace.Operation> operations = trace.getOperations();
+        long[] latencies = new long[operations.size()];
+        Map<String, LongAdder> rejections = new HashMap<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < operations.size(); i++) {
+            TrafficTrace.Operation operation = operations.get(i);
+            Student student = catalog.getStudents().get(operation.getStudentIndex());
+            Section section = catalog.getSections().get(operation.getSectionIndex());
+            long began = System.nanoTime();
+            try {
+                if (operation.getType() == TrafficTrace.OperationType.ENLIST) {
+                    student.enlist(section);
+                } else {
+                    student.cancelEnlistment(section);
+                }
+            } catch (RuntimeException e) {
+                recordRejection(rejections, e);
+            }
+            latencies[i] = System.nanoTime() - began;
+        }
+        return new LoadReport(System.nanoTime() - start, latencies, sum(rejections));
+    }
+
+    private CompletableFuture<Void> submit(TrafficTrace.Operation operation, EnlistmentDispatcher dispatcher) {
+        Student student = catalog.getStudents().get(operation.getStudentIndex());
+        Section section = catalog.getSections().get(operation.getSectionIndex());
+        return operation.getType() == TrafficTrace.OperationType.ENLIST
+                ? dispatcher.enlist(student, section)
+                : dispatcher.cancel(student, section);
+    }
+
+    private static void recordRejection(Map<String, LongAdder> rejections, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        rejections.computeIfAbsent(cause.getClass().getSimpleName(), name -> new LongAdder()).increment();
+    }
+
+    private static Map<String, Long> sum(Map<String, LongAdder> rejections) {
+        Map<String, Long> totals = new HashMap<>();
+        rejections.forEach((type, count) -> totals.put(type, count.sum()));
+        return totals;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 6) {
+            System.err.println("usage: LoadGenerator <seed> <subjects> <rooms> <students> <operations> <opsPerSecond> [traceFile [sequential|concurrent]]");
+            System.exit(2);
+        }
+        long seed = Long.parseLong(args[0]);
+        int subjects = Integer.parseInt(args[1]);
+        int rooms = Integer.parseInt(args[2]);
+        int students = Integer.parseInt(args[3]);
+        int operations = Integer.parseInt(args[4]);
+        int opsPerSecond = Integer.parseInt(args[5]);
+
+        Path traceFile = args.length > 6 ? Paths.get(args[6]) : null;
+        boolean replay = traceFile != null && traceFile.toFile().exists();
+        boolean sequential = args.length > 7 ? parseMode(args[7]) : replay;
+        SyntheticCatalog catalog;
+        TrafficTrace trace;
+        if (replay) {
+            trace = TrafficTrace.read(traceFile);
+            catalog = SyntheticCatalog.generate(seed, subjects, 2, rooms, students);
+            trace.checkCatalog(catalog);
+            System.out.println("Replaying " + trace.getOperations().size() + " operations from " + traceFile
+                    + (sequential ? " in order" : " at " + opsPerSecond + " operations per second"));
+        } else {
+            catalog = SyntheticCatalog.generate(seed, subjects, 2, rooms, students);
+            trace = TrafficTrace.generate(catalog, operations, 15);
+            if (traceFile != null) {
+                trace.write(traceFile);
+                System.out.println("Captured trace to " + traceFile);
+            }
+        }
+
+        LoadGenerator generator = new LoadGenerator(catalog);
+        if (sequential) {
+            System.out.println(generator.replaySequentially(trace));
+            return;
+        }
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100_000)) {
+            System.out.println(generator.run(trace, dispatcher, opsPerSecond));
+        }
+    }
+
+    private static boolean parseMode(String mode) {
+        isTrue(mode.equals("sequential") || mode.equals("concurrent"), "Mode must be sequential or concurrent, was: " + mode);
+        return mode.equals("sequential");
+    }
+}
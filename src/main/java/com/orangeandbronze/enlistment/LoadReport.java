@@ -0,0 +1,81 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The result of driving a {@link TrafficTrace}: throughput, latency percentiles and
+ * how many operations were rejected, broken down by rejection type.
+ */
+class LoadReport {
+    private final int operations;
+    private final long elapsedNanos;
+    private final long[] sortedLatencyNanos;
+    private final Map<String, Long> rejections;
+
+    /**
+     * Creates a report.
+     * @param elapsedNanos      The wall-clock time taken to run the whole trace.
+     * @param latencyNanos      The latency of each completed operation; the array is copied.
+     * @param rejections        The number of rejected operations keyed by exception simple name.
+     */
+    LoadReport(long elapsedNanos, long[] latencyNanos, Map<String, Long> rejections) {
+        requireNonNull(latencyNanos, "Latencies cannot be null");
+        requireNonNull(rejections, "Rejections cannot be null");
+        this.operations = latencyNanos.length;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencyNanos = latencyNanos.clone();
+        Arrays.sort(this.sortedLatencyNanos);
+        this.rejections = Collections.unmodifiableMap(new TreeMap<>(rejections));
+    }
+
+    int getOperations() {
+        return operations;
+    }
+
+    long getRejected() {
+        return rejections.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Gets the number of rejected operations per rejection type.
+     * @return      Counts keyed by the simple name of the exception that rejected the operation.
+     */
+    Map<String, Long> getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Gets the completed operations per second over the whole run.
+     * @return      The throughput.
+     */
+    double getThroughput() {
+        return elapsedNanos == 0 ? 0 : operations * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Gets a latency percentile using the nearest-rank method.
+     * @param percentile    The percentile, greater than 0 and at most 100.
+     * @return              The latency in nanoseconds, or 0 if no operations ran.
+     */
+    long getLatencyPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be within (0, 100], was: " + percentile);
+        }
+        if (operations == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * operations);
+        return sortedLatencyNanos[Math.max(rank, 1) - 1];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d ops in %.1f ms (%.0f ops/s), latency p50=%dus p90=%dus p99=%dus max=%dus, rejected=%d %s",
+                operations, elapsedNanos / 1e6, getThroughput(),
+                getLatencyPercentile(50) / 1000, getLatencyPercentile(90) / 1000,
+                getLatencyPercentile(99) / 1000, getLatencyPercentile(100) / 1000,
+                getRejected(), rejections);
+    }
+}
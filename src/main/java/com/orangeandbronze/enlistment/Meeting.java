@@ -0,0 +1,70 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * One recurring meeting of a class: the same period on each of a set of days.
+ */
+class Meeting {
+    private final Set<DayOfWeek> days;
+    private final Period period;
+
+    /**
+     * Creates a meeting.
+     * @param days      The days of the week the class meets; cannot be empty
+     * @param period    The time of day the class meets
+     */
+    Meeting(Set<DayOfWeek> days, Period period) {
+        requireNonNull(days, "Days cannot be null");
+        requireNonNull(period, "Period cannot be null");
+        isTrue(!days.isEmpty(), "A meeting must be on at least one day");
+        isTrue(days.stream().noneMatch(Objects::isNull), "Days cannot contain null elements");
+        this.days = Collections.unmodifiableSet(EnumSet.copyOf(days));
+        this.period = period.intern();
+    }
+
+    Set<DayOfWeek> getDays() {
+        return days;
+    }
+
+    Period getPeriod() {
+        return period;
+    }
+
+    /**
+     * Returns the slots of the week this meeting covers.
+     * @return      The slot mask
+     */
+    WeeklySlotMask toSlotMask() {
+        WeeklySlotMask mask = WeeklySlotMask.EMPTY;
+        for (DayOfWeek day : days) {
+            mask = mask.or(period.toSlotMask(day));
+        }
+        return mask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Meeting meeting = (Meeting) o;
+        return days.equals(meeting.days) && period.equals(meeting.period);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(days, period);
+    }
+
+    @Override
+    public String toString() {
+        return days.stream().map(day -> day.getDisplayName(TextStyle.SHORT, Locale.ENGLISH))
+                .collect(Collectors.joining("/")) + " " + period;
+    }
+}
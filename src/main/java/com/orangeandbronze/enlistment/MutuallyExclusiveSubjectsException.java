@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class MutuallyExclusiveSubjectsException extends RuntimeException {
+    MutuallyExclusiveSubjectsException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
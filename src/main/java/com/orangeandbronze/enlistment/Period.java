@@ -1,16 +1,24 @@
 package com.orangeandbronze.enlistment;
 
-import java.util.Objects;
+import java.time.DayOfWeek;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import static org.apache.commons.lang3.Validate.*;
 
+/**
+ * Represents a span of time within a day, on a five-minute grid.
+ */
 class Period {
-    private final int startHour;
-    private final boolean startIsAtBottomOfHour;
-    private final int endHour;
-    private final boolean endIsAtBottomOfHour;
+    private static final ConcurrentMap<Integer, Period> CANONICAL = new ConcurrentHashMap<>();
+
+    private final int startMinute;
+    private final int endMinute;
 
     /**
      * Creates a period with the specified start and end times.
+     * Periods created this way are on the half-hour grid between 8:30 and 17:30;
+     * use {@link #ofMinutes(int, int)} for any other time of day.
      * @param startHour                The hour in military time that the period starts
      * @param startIsAtBottomOfHour    Whether the period starts at the bottom of the hour
      * @param endHour                  The hour in military time that the period ends
@@ -28,10 +36,51 @@ class Period {
         isTrue(startHour <= endHour, periodStartsBeforeEndsMsg);
         isTrue(startHour < endHour || (!startIsAtBottomOfHour && endIsAtBottomOfHour), periodStartsBeforeEndsMsg);
 
-        this.startHour = startHour;
-        this.startIsAtBottomOfHour = startIsAtBottomOfHour;
-        this.endHour = endHour;
-        this.endIsAtBottomOfHour = endIsAtBottomOfHour;
+        this.startMinute = startHour * 60 + (startIsAtBottomOfHour ? 30 : 0);
+        this.endMinute = endHour * 60 + (endIsAtBottomOfHour ? 30 : 0);
+    }
+
+    private Period(int startMinute, int endMinute) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    /**
+     * Returns the canonical period with the specified start and end times, on the half-hour grid
+     * between 8:30 and 17:30.
+     * @param startHour                The hour in military time that the period starts
+     * @param startIsAtBottomOfHour    Whether the period starts at the bottom of the hour
+     * @param endHour                  The hour in military time that the period ends
+     * @param endIsAtBottomOfHour      Whether the period ends at the bottom of the hour
+     * @return                         The canonical period
+     */
+    static Period of(int startHour, boolean startIsAtBottomOfHour, int endHour, boolean endIsAtBottomOfHour) {
+        return new Period(startHour, startIsAtBottomOfHour, endHour, endIsAtBottomOfHour).intern();
+    }
+
+    /**
+     * Returns the canonical period between two times of day, at any time of the day.
+     * Every call with the same arguments returns the same instance.
+     * @param startMinute   The start, in minutes after midnight; must be a multiple of 5
+     * @param endMinute     The end, in minutes after midnight, up to 1440; must be a multiple of 5
+     * @return              The canonical period
+     */
+    static Period ofMinutes(int startMinute, int endMinute) {
+        isTrue(startMinute % WeeklySlotMask.MINUTES_PER_SLOT == 0 && endMinute % WeeklySlotMask.MINUTES_PER_SLOT == 0,
+                "Period must start and end on a " + WeeklySlotMask.MINUTES_PER_SLOT + "-minute boundary");
+        inclusiveBetween(0, 24 * 60, startMinute, "Period must be within the day");
+        inclusiveBetween(0, 24 * 60, endMinute, "Period must be within the day");
+        isTrue(startMinute < endMinute, "Period must start before it ends");
+        return CANONICAL.computeIfAbsent(key(startMinute, endMinute), k -> new Period(startMinute, endMinute));
+    }
+
+    /**
+     * Returns the canonical instance equal to this period.
+     * @return      The canonical period
+     */
+    Period intern() {
+        Period period = CANONICAL.get(key(startMinute, endMinute));
+        return period != null ? period : CANONICAL.computeIfAbsent(key(startMinute, endMinute), k -> this);
     }
 
     /**
@@ -41,40 +90,46 @@ class Period {
      * @return          true if there is overlap, false otherwise
      */
     boolean overlapsWith(Period other) {
-        int start = this.getStart();
-        int end = this.getEnd();
-        int otherStart = other.getStart();
-        int otherEnd = other.getEnd();
+        return Math.min(endMinute, other.endMinute) > Math.max(startMinute, other.startMinute);
+    }
 
-        return Math.min(end, otherEnd) > Math.max(start, otherStart);
+    /**
+     * Returns the slots this period covers on the given day.
+     * @param day   The day
+     * @return      The slot mask
+     */
+    WeeklySlotMask toSlotMask(DayOfWeek day) {
+        return WeeklySlotMask.of(day, startMinute / WeeklySlotMask.MINUTES_PER_SLOT,
+                endMinute / WeeklySlotMask.MINUTES_PER_SLOT);
     }
 
     /**
-     * Returns an order-preserving numerical representation of the start of the period.
+     * Returns an order-preserving numerical representation of the start of the period,
+     * the number of minutes after midnight.
      * e.g. if Period A starts before Period B, A.getStart() will be less than B.getStart().
      * @return      The numerical representation
      */
-    int getStart() { return startHour*100 + (startIsAtBottomOfHour ? 50 : 0); }
+    int getStart() { return startMinute; }
 
     /**
-     * Returns an order-preserving numerical representation of the end of the period.
+     * Returns an order-preserving numerical representation of the end of the period,
+     * the number of minutes after midnight.
      * e.g. if Period A ends before Period B, A.getEnd() will be less than B.getEnd().
      * @return      The numerical representation
      */
-    int getEnd() { return endHour*100 + (endIsAtBottomOfHour ? 50 : 0); }
+    int getEnd() { return endMinute; }
+
+    /**
+     * Gets the length of the period.
+     * @return      The length in minutes
+     */
+    int getLengthInMinutes() {
+        return endMinute - startMinute;
+    }
 
     @Override
     public String toString() {
-        String startMinutes = startIsAtBottomOfHour ? "30" : "00";
-        String endMinutes = endIsAtBottomOfHour ? "30" : "00";
-
-        String startHourAsString = startHour >= 0 && startHour <= 9 ? "0" + startHour : Integer.toString(startHour);
-        String endHourAsString = endHour >= 0 && endHour <= 9 ? "0" + endHour : Integer.toString(endHour);
-
-        String start = startHourAsString + ":" + startMinutes;
-        String end = endHourAsString + ":" + endMinutes;
-
-        return start + " - " + end;
+        return String.format("%02d:%02d - %02d:%02d", startMinute / 60, startMinute % 60, endMinute / 60, endMinute % 60);
     }
 
     @Override
@@ -82,11 +137,15 @@ class Period {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Period period = (Period) o;
-        return startHour == period.startHour && startIsAtBottomOfHour == period.startIsAtBottomOfHour && endHour == period.endHour && endIsAtBottomOfHour == period.endIsAtBottomOfHour;
+        return startMinute == period.startMinute && endMinute == period.endMinute;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(startHour, startIsAtBottomOfHour, endHour, endIsAtBottomOfHour);
+        return key(startMinute, endMinute);
+    }
+
+    private static int key(int startMinute, int endMinute) {
+        return (startMinute << 16) | endMinute;
     }
 }
@@ -0,0 +1,98 @@
+package com.orangeandbronze.enlistment;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Watches a policy file and installs it as the {@link EnlistmentPolicy} in force whenever it changes.
+ * A file that fails to parse is not installed; the policy already in force stays, and the error is
+ * kept in {@link #getLastError()}.
+ * <p>
+ * A change is found by the SHA-256 digest of the file's content rather than its modification time, which
+ * may not move when the file is rewritten within the file system's timestamp granularity. Policy files are
+ * small, so each check reads the whole file, and the policy is parsed from the same bytes that were digested.
+ * Write a new policy to a temporary file and move it over the watched one, so a check never reads it half
+ * written. Reloads run one at a time, so a file read earlier is never installed after one read later.
+ */
+class PolicyReloader implements AutoCloseable {
+    private final Path file;
+    private final ScheduledExecutorService poller;
+    // guarded by this
+    private byte[] lastDigest;
+    private volatile Exception lastError;
+
+    /**
+     * Loads the policy file now, then checks it for changes at the given interval.
+     * @param file      The policy file.
+     * @param interval  How often to check the file.
+     */
+    PolicyReloader(Path file, Duration interval) {
+        requireNonNull(file, "File cannot be null");
+        requireNonNull(interval, "Interval cannot be null");
+        this.file = file;
+        reload();
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "policy-reloader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        poller.scheduleWithFixedDelay(this::reload, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Installs the policy file if its content changed since it was last loaded.
+     * @return      true if a new policy was installed, false otherwise.
+     */
+    synchronized boolean reload() {
+        try {
+            byte[] content = Files.readAllBytes(file);
+            byte[] digest = digest(content);
+            if (Arrays.equals(digest, lastDigest)) {
+                return false;
+            }
+            EnlistmentPolicy policy = EnlistmentPolicy.parse(
+                    new String(content, StandardCharsets.UTF_8).lines().collect(Collectors.toList()));
+            EnlistmentPolicy.install(policy);
+            lastDigest = digest;
+            lastError = null;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e;
+            return false;
+        }
+    }
+
+    private static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the error from the last attempt to load the file.
+     * @return      The error, or null if the last load succeeded.
+     */
+    Exception getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+}
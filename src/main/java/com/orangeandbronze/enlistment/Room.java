@@ -2,19 +2,26 @@ package com.orangeandbronze.enlistment;
 
 import static org.apache.commons.lang3.Validate.*;
 
+import java.util.AbstractCollection;
+import java.util.Iterator;
 import java.util.Objects;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static org.apache.commons.lang3.StringUtils.*;
 
 /**
  * Represents a room where classes would be held, with a maximum capacity.
+ * The room keeps the union of its taken time slots as a {@link WeeklySlotMask}, so checking a
+ * schedule against the room does not depend on how many sections the room already holds.
  */
 class Room {
     private final String roomName;
     private final int maxCapacity;
-    private final Collection<Schedule> takenTimeSlots = new HashSet<>();
+    private final ReentrantLock occupancyLock = new ReentrantLock();
+    private final Collection<Schedule> takenTimeSlots = new TakenTimeSlots();
+    private volatile WeeklySlotMask occupiedSlots = WeeklySlotMask.EMPTY;
 
     /**
      * Creates a new room with a specified name and maximum capacity.
@@ -35,11 +42,88 @@ class Room {
      * @param numberOfEnlisted  The number of students enrolled in the associated section.
      */
     void checkForOverCapacity(int numberOfEnlisted) {
-        if (numberOfEnlisted >= maxCapacity) {
-            throw new RoomCapacityReachedException("Room " + this + " has reached max capacity of " + maxCapacity);
+        checkForOverCapacity(numberOfEnlisted, maxCapacity);
+    }
+
+    /**
+     * Checks the number of enrolled students against a capacity other than the room's own, e.g. a simulated one.
+     * @param numberOfEnlisted  The number of students enrolled in the associated section.
+     * @param capacity          The capacity to check against.
+     */
+    void checkForOverCapacity(int numberOfEnlisted, int capacity) {
+        if (numberOfEnlisted >= capacity) {
+            throw new RoomCapacityReachedException("Room " + this + " has reached max capacity of " + capacity);
+        }
+    }
+
+    /**
+     * Checks if the room is free for the whole of the given schedule.
+     * @param schedule  The schedule to check.
+     * @return          true if none of the schedule's slots are taken, false otherwise.
+     */
+    boolean isAvailable(Schedule schedule) {
+        return !occupiedSlots.intersects(schedule.getSlotMask());
+    }
+
+    /**
+     * Takes the schedule's time slots in the room, checking for a conflict and taking the slots as one step.
+     * @param schedule  The schedule to take.
+     */
+    void reserve(Schedule schedule) {
+        occupancyLock.lock();
+        try {
+            if (!isAvailable(schedule)) {
+                throw new ScheduleRoomConflictException("Room " + this + " is already taken during " + schedule);
+            }
+            takenTimeSlots.add(schedule);
+        } finally {
+            occupancyLock.unlock();
         }
     }
 
+    /**
+     * Opens a section in the room, checking for a conflict and taking the schedule's slots as one step, so
+     * two sections opened at the same time cannot both get the same slots.
+     * @param sectionId     The section identifier.
+     * @param schedule      The schedule for the section.
+     * @param subject       The subject of the section.
+     * @return              The new section.
+     */
+    Section openSection(String sectionId, Schedule schedule, Subject subject) {
+        occupancyLock.lock();
+        try {
+            Section section = new Section(sectionId, schedule, this, subject);
+            takenTimeSlots.add(schedule);
+            return section;
+        } finally {
+            occupancyLock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the time slots of a section opened in the room with
+     * {@link #openSection(String, Schedule, Subject)}, e.g. when the section was one of several opened together
+     * and another could not be.
+     * @param section   The section, which must have no students.
+     */
+    void closeSection(Section section) {
+        isTrue(this.equals(section.getRoom()), "Section " + section + " is not held in room " + this);
+        isTrue(section.getNumberOfEnlisted() == 0, "Section " + section + " still has students");
+        takenTimeSlots.remove(section.getSchedule());
+    }
+
+    /**
+     * Gets every time slot taken in the room.
+     * @return      The union of the taken schedules' slots.
+     */
+    WeeklySlotMask getOccupiedSlots() {
+        return occupiedSlots;
+    }
+
+    int getMaxCapacity() {
+        return maxCapacity;
+    }
+
     Collection<Schedule> getTakenTimeSlots() {
         return this.takenTimeSlots;
     }
@@ -49,6 +133,68 @@ class Room {
         return roomName;
     }
 
+    /**
+     * The room's taken schedules. Every change also updates the room's occupied slot mask.
+     */
+    private final class TakenTimeSlots extends AbstractCollection<Schedule> {
+        private final Collection<Schedule> schedules = new HashSet<>();
+
+        @Override
+        public boolean add(Schedule schedule) {
+            occupancyLock.lock();
+            try {
+                boolean added = schedules.add(schedule);
+                if (added) {
+                    occupiedSlots = occupiedSlots.or(schedule.getSlotMask());
+                }
+                return added;
+            } finally {
+                occupancyLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return schedules.contains(o);
+        }
+
+        @Override
+        public Iterator<Schedule> iterator() {
+            Iterator<Schedule> iterator = schedules.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Schedule next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove() {
+                    occupancyLock.lock();
+                    try {
+                        iterator.remove();
+                        WeeklySlotMask remaining = WeeklySlotMask.EMPTY;
+                        for (Schedule schedule : schedules) {
+                            remaining = remaining.or(schedule.getSlotMask());
+                        }
+                        occupiedSlots = remaining;
+                    } finally {
+                        occupancyLock.unlock();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return schedules.size();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -0,0 +1,357 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.StringUtils.isAlphanumeric;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Assigns rooms to planned sections so that no two sections share a room at the same time and
+ * as few seats as possible go to waste.
+ * <p>
+ * A greedy pass places the most demanded sections first, each in the smallest free room that
+ * seats its expected demand. Several local searches then improve that start in parallel, each with
+ * its own seed, by moving single sections to other free rooms and swapping the rooms of two sections.
+ * The best result wins. The search is deterministic for a given seed.
+ * <p>
+ * The cost of a placement is the number of empty seats, plus a heavy penalty per student who does not
+ * fit, plus a heavier penalty per section left without any room.
+ */
+class RoomAssigner {
+    private static final long OVERFLOW_PENALTY_PER_STUDENT = 100;
+    private static final long UNASSIGNED_PENALTY = 1_000_000;
+
+    /**
+     * A section that has yet to be given a room.
+     */
+    static final class SectionPlan {
+        private final String sectionId;
+        private final Subject subject;
+        private final Schedule schedule;
+        private final int expectedDemand;
+
+        /**
+         * Creates a plan.
+         * @param sectionId         The section identifier.
+         * @param subject           The subject of the section.
+         * @param schedule          The schedule of the section.
+         * @param expectedDemand    The number of students expected to enlist.
+         */
+        SectionPlan(String sectionId, Subject subject, Schedule schedule, int expectedDemand) {
+            notBlank(sectionId, "sectionId cannot be null or blank");
+            isTrue(isAlphanumeric(sectionId), "sectionId must be alphanumeric, was: " + sectionId);
+            requireNonNull(subject, "Subject cannot be null");
+            requireNonNull(schedule, "Schedule cannot be null");
+            isTrue(expectedDemand >= 0, "expectedDemand cannot be negative, was: " + expectedDemand);
+            this.sectionId = sectionId;
+            this.subject = subject;
+            this.schedule = schedule.intern();
+            this.expectedDemand = expectedDemand;
+        }
+
+        String getSectionId() {
+            return sectionId;
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+
+        Schedule getSchedule() {
+            return schedule;
+        }
+
+        int getExpectedDemand() {
+            return expectedDemand;
+        }
+
+        @Override
+        public String toString() {
+            return sectionId;
+        }
+    }
+
+    /**
+     * The outcome of an assignment run.
+     */
+    static final class RoomAssignment {
+        private final Map<SectionPlan, Room> rooms;
+        private final List<SectionPlan> unassigned;
+        private final long wastedSeats;
+        private final long overflowStudents;
+
+        private RoomAssignment(Map<SectionPlan, Room> rooms, List<SectionPlan> unassigned) {
+            this.rooms = Collections.unmodifiableMap(rooms);
+            this.unassigned = Collections.unmodifiableList(unassigned);
+            long wasted = 0;
+            long overflow = 0;
+            for (Map.Entry<SectionPlan, Room> entry : rooms.entrySet()) {
+                int difference = entry.getValue().getMaxCapacity() - entry.getKey().getExpectedDemand();
+                if (difference >= 0) {
+                    wasted += difference;
+                } else {
+                    overflow -= difference;
+                }
+            }
+            this.wastedSeats = wasted;
+            this.overflowStudents = overflow;
+        }
+
+        /**
+         * Gets the room given to a planned section.
+         * @param plan  The planned section.
+         * @return      The room, or null if the section could not be placed.
+         */
+        Room getRoom(SectionPlan plan) {
+            return rooms.get(plan);
+        }
+
+        Map<SectionPlan, Room> getRooms() {
+            return rooms;
+        }
+
+        /**
+         * Gets the planned sections for which every room was taken at their scheduled time.
+         * @return      The unplaced sections.
+         */
+        List<SectionPlan> getUnassigned() {
+            return unassigned;
+        }
+
+        /**
+         * Gets the total number of seats left empty if every section fills to its expected demand.
+         * @return      The wasted seats.
+         */
+        long getWastedSeats() {
+            return wastedSeats;
+        }
+
+        /**
+         * Gets the total number of expected students who do not fit in their section's room.
+         * @return      The students over capacity.
+         */
+        long getOverflowStudents() {
+            return overflowStudents;
+        }
+
+        /**
+         * Creates the assigned sections, opening each in its room with
+         * {@link Room#openSection(String, Schedule, Subject)}. Either every section is created or, if a room was
+         * taken at a section's time since the assignment was made, none is: the sections already opened are closed
+         * again and the conflict is thrown.
+         * @return      The sections, in no particular order.
+         */
+        List<Section> createSections() {
+            List<Section> sections = new ArrayList<>(rooms.size());
+            try {
+                rooms.forEach((plan, room) -> sections.add(room.openSection(plan.getSectionId(), plan.getSchedule(), plan.getSubject())));
+            } catch (RuntimeException e) {
+                sections.forEach(section -> section.getRoom().closeSection(section));
+                throw e;
+            }
+            return sections;
+        }
+
+        @Override
+        public String toString() {
+            return rooms.size() + " sections placed, " + unassigned.size() + " unplaced, "
+                    + wastedSeats + " seats wasted, " + overflowStudents + " students over capacity";
+        }
+    }
+
+    private final int searches;
+    private final int iterationsPerSearch;
+    private final long seed;
+
+    /**
+     * Creates an assigner.
+     * @param searches              The number of local searches run in parallel.
+     * @param iterationsPerSearch   The number of moves each local search tries.
+     * @param seed                  The seed the searches' random moves derive from.
+     */
+    RoomAssigner(int searches, int iterationsPerSearch, long seed) {
+        isTrue(searches > 0, "searches must be greater than 0, was: " + searches);
+        isTrue(iterationsPerSearch >= 0, "iterationsPerSearch cannot be negative, was: " + iterationsPerSearch);
+        this.searches = searches;
+        this.iterationsPerSearch = iterationsPerSearch;
+        this.seed = seed;
+    }
+
+    /**
+     * Assigns rooms to the planned sections. Time slots the rooms already have taken are respected.
+     * The rooms themselves are not changed; call {@link RoomAssignment#createSections()} to apply the result.
+     * @param plans     The sections to place.
+     * @param rooms     The rooms available.
+     * @return          The best assignment found.
+     */
+    RoomAssignment assign(Collection<SectionPlan> plans, Collection<Room> rooms) {
+        requireNonNull(plans, "Plans cannot be null");
+        requireNonNull(rooms, "Rooms cannot be null");
+        SectionPlan[] planArray = plans.toArray(new SectionPlan[0]);
+        Room[] roomArray = rooms.stream().sorted(Comparator.comparingInt(Room::getMaxCapacity)).toArray(Room[]::new);
+        isTrue(Arrays.stream(planArray).map(SectionPlan::getSectionId).distinct().count() == planArray.length,
+                "Section ids of plans must be unique");
+
+        Placement greedy = greedy(planArray, roomArray);
+        Placement best = IntStream.range(0, searches).parallel()
+                .mapToObj(search -> improve(greedy.copy(), new Random(seed + search)))
+                .min(Comparator.comparingLong(placement -> placement.cost))
+                .orElse(greedy);
+
+        Map<SectionPlan, Room> assigned = new HashMap<>();
+        List<SectionPlan> unassigned = new ArrayList<>();
+        for (int p = 0; p < planArray.length; p++) {
+            if (best.roomOf[p] < 0) {
+                unassigned.add(planArray[p]);
+            } else {
+                assigned.put(planArray[p], roomArray[best.roomOf[p]]);
+            }
+        }
+        return new RoomAssignment(assigned, unassigned);
+    }
+
+    private static Placement greedy(SectionPlan[] plans, Room[] rooms) {
+        Placement placement = new Placement(plans, rooms);
+        Integer[] order = new Integer[plans.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer p) -> plans[p].getExpectedDemand()).reversed());
+
+        for (int p : order) {
+            int chosen = -1;
+            // rooms are sorted by capacity: take the smallest that fits, otherwise the largest that is free
+            for (int r = 0; r < rooms.length; r++) {
+                if (placement.isFree(r, p)) {
+                    chosen = r;
+                    if (rooms[r].getMaxCapacity() >= plans[p].getExpectedDemand()) {
+                        break;
+                    }
+                }
+            }
+            if (chosen >= 0) {
+                placement.move(p, chosen);
+            }
+        }
+        return placement;
+    }
+
+    private Placement improve(Placement placement, Random random) {
+        int plans = placement.plans.length;
+        int rooms = placement.rooms.length;
+        if (plans == 0 || rooms == 0) {
+            return placement;
+        }
+        for (int i = 0; i < iterationsPerSearch; i++) {
+            int p = random.nextInt(plans);
+            if (random.nextBoolean()) {
+                // relocate p to another room that is free at its time
+                int r = random.nextInt(rooms);
+                if (r != placement.roomOf[p] && placement.isFree(r, p)
+                        && placement.costIn(p, r) < placement.costIn(p, placement.roomOf[p])) {
+                    placement.move(p, r);
+                }
+            } else {
+                // swap the rooms of p and q if each fits in the other's room
+                int q = random.nextInt(plans);
+                int rp = placement.roomOf[p];
+                int rq = placement.roomOf[q];
+                if (p == q || rp == rq) {
+                    continue;
+                }
+                long before = placement.costIn(p, rp) + placement.costIn(q, rq);
+                long after = placement.costIn(p, rq) + placement.costIn(q, rp);
+                if (after < before) {
+                    placement.trySwap(p, q);
+                }
+            }
+        }
+        return placement;
+    }
+
+    /**
+     * A mutable assignment of plans to rooms used during the search. Room -1 means unplaced.
+     */
+    private static final class Placement {
+        final SectionPlan[] plans;
+        final Room[] rooms;
+        final int[] roomOf;
+        final WeeklySlotMask[] occupied;
+        long cost;
+
+        Placement(SectionPlan[] plans, Room[] rooms) {
+            this.plans = plans;
+            this.rooms = rooms;
+            this.roomOf = new int[plans.length];
+            Arrays.fill(roomOf, -1);
+            this.occupied = Arrays.stream(rooms).map(Room::getOccupiedSlots).toArray(WeeklySlotMask[]::new);
+            for (int p = 0; p < plans.length; p++) {
+                cost += costIn(p, -1);
+            }
+        }
+
+        private Placement(Placement other) {
+            this.plans = other.plans;
+            this.rooms = other.rooms;
+            this.roomOf = other.roomOf.clone();
+            this.occupied = other.occupied.clone();
+            this.cost = other.cost;
+        }
+
+        Placement copy() {
+            return new Placement(this);
+        }
+
+        boolean isFree(int room, int plan) {
+            return !occupied[room].intersects(plans[plan].getSchedule().getSlotMask());
+        }
+
+        long costIn(int plan, int room) {
+            int demand = plans[plan].getExpectedDemand();
+            if (room < 0) {
+                return UNASSIGNED_PENALTY + OVERFLOW_PENALTY_PER_STUDENT * demand;
+            }
+            int difference = rooms[room].getMaxCapacity() - demand;
+            return difference >= 0 ? difference : -difference * OVERFLOW_PENALTY_PER_STUDENT;
+        }
+
+        void move(int plan, int room) {
+            WeeklySlotMask mask = plans[plan].getSchedule().getSlotMask();
+            int from = roomOf[plan];
+            cost -= costIn(plan, from);
+            if (from >= 0) {
+                // sections in one room never overlap, so removing the plan's slots is exact
+                occupied[from] = occupied[from].andNot(mask);
+            }
+            occupied[room] = occupied[room].or(mask);
+            roomOf[plan] = room;
+            cost += costIn(plan, room);
+        }
+
+        boolean trySwap(int p, int q) {
+            int rp = roomOf[p];
+            int rq = roomOf[q];
+            WeeklySlotMask maskP = plans[p].getSchedule().getSlotMask();
+            WeeklySlotMask maskQ = plans[q].getSchedule().getSlotMask();
+            WeeklySlotMask roomPWithoutP = rp < 0 ? null : occupied[rp].andNot(maskP);
+            WeeklySlotMask roomQWithoutQ = rq < 0 ? null : occupied[rq].andNot(maskQ);
+            if ((rq >= 0 && roomQWithoutQ.intersects(maskP)) || (rp >= 0 && roomPWithoutP.intersects(maskQ))) {
+                return false;
+            }
+            cost -= costIn(p, rp) + costIn(q, rq);
+            if (rp >= 0) {
+                occupied[rp] = roomPWithoutP.or(maskQ);
+            }
+            if (rq >= 0) {
+                occupied[rq] = roomQWithoutQ.or(maskP);
+            }
+            roomOf[p] = rq;
+            roomOf[q] = rp;
+            cost += costIn(p, rq) + costIn(q, rp);
+            return true;
+        }
+    }
+
+}
@@ -1,15 +1,27 @@
 package com.orangeandbronze.enlistment;
 
-import java.util.Objects;
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
 
 /**
  * Represents a schedule with specific days and periods.
+ * <p>
+ * A schedule is one or more {@link Meeting}s. The slots of the week they cover are precomputed
+ * into a {@link WeeklySlotMask}, so checking two schedules for conflict costs the same however many
+ * meetings they have. Two schedules are equal when they cover exactly the same slots.
  */
 class Schedule {
-    private final Days days;
-    private final Period period;
+    private static final ConcurrentMap<WeeklySlotMask, Schedule> CANONICAL = new ConcurrentHashMap<>();
+
+    private final List<Meeting> meetings;
+    private final String label;
+    private final WeeklySlotMask slotMask;
 
     /**
      * Creates a schedule with the specified days and period.
@@ -17,29 +29,90 @@ class Schedule {
      * @param period    The period for the schedule
      */
     Schedule(Days days, Period period) {
-        requireNonNull(days, "Days cannot be null");
-        requireNonNull(period, "Period cannot be null");
-        this.days = days;
-        this.period = period;
+        this(List.of(new Meeting(requireNonNull(days, "Days cannot be null").getDaysOfWeek(),
+                requireNonNull(period, "Period cannot be null"))), days + " " + period);
     }
 
-    boolean hasConflictWith(Schedule other) {
-        if (days != other.getDays()) {
-            return false;
+    private Schedule(List<Meeting> meetings, String label) {
+        requireNonNull(meetings, "Meetings cannot be null");
+        isTrue(!meetings.isEmpty(), "A schedule must have at least one meeting");
+        isTrue(meetings.stream().noneMatch(Objects::isNull), "Meetings cannot contain null elements");
+        WeeklySlotMask mask = WeeklySlotMask.EMPTY;
+        for (Meeting meeting : meetings) {
+            WeeklySlotMask meetingMask = meeting.toSlotMask();
+            isTrue(!mask.intersects(meetingMask), "Meetings of one schedule cannot overlap: " + meetings);
+            mask = mask.or(meetingMask);
         }
+        this.meetings = List.copyOf(meetings);
+        this.label = label != null ? label
+                : this.meetings.stream().map(Meeting::toString).collect(Collectors.joining(", "));
+        this.slotMask = mask;
+    }
 
-        return period.overlapsWith(other.getPeriod());
+    /**
+     * Returns the canonical schedule for the specified days and period.
+     * @param days      The days for the schedule
+     * @param period    The period for the schedule
+     * @return          The canonical schedule
+     */
+    static Schedule of(Days days, Period period) {
+        return new Schedule(days, period).intern();
     }
 
-    Days getDays() {
-        return days;
+    /**
+     * Returns the canonical schedule meeting in the given period on each of the given days,
+     * e.g. a Saturday-only class or an evening class.
+     * @param days      The days of the week
+     * @param period    The period for the schedule
+     * @return          The canonical schedule
+     */
+    static Schedule of(Set<DayOfWeek> days, Period period) {
+        return of(List.of(new Meeting(days, period)));
+    }
+
+    /**
+     * Returns the canonical schedule made up of the given meetings, e.g. a lecture on Monday and
+     * Thursday with a 90-minute lab on Friday.
+     * @param meetings  The meetings; cannot overlap each other
+     * @return          The canonical schedule
+     */
+    static Schedule of(List<Meeting> meetings) {
+        return new Schedule(meetings, null).intern();
     }
 
-    Period getPeriod() { return period; }
+    /**
+     * Returns the canonical instance equal to this schedule.
+     * @return      The canonical schedule
+     */
+    Schedule intern() {
+        Schedule schedule = CANONICAL.get(slotMask);
+        return schedule != null ? schedule : CANONICAL.computeIfAbsent(slotMask, k -> this);
+    }
+
+    /**
+     * Checks if the schedule overlaps with another schedule at any time of the week.
+     * @param other     The other schedule
+     * @return          true if the schedules overlap, false otherwise
+     */
+    boolean hasConflictWith(Schedule other) {
+        return this == other || slotMask.intersects(other.slotMask);
+    }
+
+    /**
+     * Returns the five-minute slots of the week the schedule covers.
+     * @return      The slot mask
+     */
+    WeeklySlotMask getSlotMask() {
+        return slotMask;
+    }
+
+    List<Meeting> getMeetings() {
+        return meetings;
+    }
 
     @Override
     public String toString() {
-        return days + " " + period;
+        return label;
     }
 
     @Override
@@ -47,19 +120,11 @@ class Schedule {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Schedule schedule = (Schedule) o;
-        return days == schedule.days && period == schedule.period;
+        return slotMask.equals(schedule.slotMask);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(days, period);
+        return slotMask.hashCode();
     }
 }
-
-/**
- * Represents the days of the week for the schedule.
- */
-enum Days {
-    MTH, TF, WS
-}
-
@@ -0,0 +1,10 @@
+package com.orangeandbronze.enlistment;
+
+/**
+ * Is told when a seat in a section is given back, by a cancellation or a swap out of the section.
+ * Listeners are called on the thread that freed the seat, so they must return quickly and never block.
+ */
+@FunctionalInterface
+interface SeatListener {
+    void seatFreed(Section section);
+}
@@ -1,6 +1,9 @@
 package com.orangeandbronze.enlistment;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang3.Validate.*;
 import static org.apache.commons.lang3.StringUtils.*;
@@ -14,8 +17,13 @@ class Section {
     private final String sectionId;
     private final Schedule schedule;
     private final Room room;
-    private int numberOfEnlisted;
+    private final AtomicInteger numberOfEnlisted = new AtomicInteger();
     private final Subject subject;
+    private final List<SeatListener> seatListeners = new CopyOnWriteArrayList<>();
+    private final StudentRoster roster = new StudentRoster();
+    // changed under instructorLock, which is always taken before an instructor's own lock
+    private final ReentrantLock instructorLock = new ReentrantLock();
+    private volatile Instructor instructor;
 
     /**
      * Creates a new Section with no enrolled students
@@ -33,19 +41,15 @@ class Section {
         requireNonNull(room, "Room cannot be null");
 
         requireNonNull(subject, "subjectId cannot be null");
-        Collection<Schedule> timeSlots = room.getTakenTimeSlots();
-        for (Schedule currtimeSlot : timeSlots) {
-            if (currtimeSlot.hasConflictWith(schedule)) {
-                throw new ScheduleRoomConflictException(
-                        "This section " + this + " has overlapping schedule and room with section " + schedule);
-            }
+        if (!room.isAvailable(schedule)) {
+            throw new ScheduleRoomConflictException(
+                    "This section " + sectionID + " has overlapping schedule " + schedule + " in room " + room);
         }
 
         this.sectionId = sectionID;
-        this.schedule = schedule;
+        this.schedule = schedule.intern();
         this.room = room;
         this.subject = subject;
-        this.numberOfEnlisted = 0;
     }
 
     /**
@@ -75,15 +79,102 @@ class Section {
      * @return          The number of enrolled students.
      */
     int getNumberOfEnlisted() {
-        return numberOfEnlisted;
+        return numberOfEnlisted.get();
+    }
+
+    /**
+     * Gets the student numbers of the students enlisted in the section, i.e. the class list.
+     * @return          The student numbers, in ascending order.
+     */
+    int[] getRoster() {
+        return roster.toArray();
+    }
+
+    /**
+     * Gets the number of students on the section's roster.
+     * @return          The number of students.
+     */
+    int getHeadcount() {
+        return roster.size();
+    }
+
+    boolean hasStudent(int studentNo) {
+        return roster.contains(studentNo);
+    }
+
+    /**
+     * Updates the roster once a student's enlistment in the section is committed.
+     */
+    void addToRoster(int studentNo) {
+        roster.add(studentNo);
+    }
+
+    /**
+     * Updates the roster once a student's leaving the section is committed.
+     */
+    void removeFromRoster(int studentNo) {
+        roster.remove(studentNo);
     }
 
     /**
      * Increases enrolled student count by one, checks for room overcapacity.
+     * The capacity check and the increment happen as one atomic step, so concurrent
+     * enlistments can never oversell the room.
      */
     void addNumberOfEnlisted() {
-        room.checkForOverCapacity(numberOfEnlisted);
-        numberOfEnlisted++;
+        int current;
+        do {
+            current = numberOfEnlisted.get();
+            room.checkForOverCapacity(current);
+        } while (!numberOfEnlisted.compareAndSet(current, current + 1));
+    }
+
+    /**
+     * Decreases enrolled student count by one, freeing a seat in the room.
+     * The count never goes below zero.
+     */
+    void removeNumberOfEnlisted() {
+        numberOfEnlisted.updateAndGet(current -> current > 0 ? current - 1 : 0);
+    }
+
+    /**
+     * Decreases enrolled student count by one, like {@link #removeNumberOfEnlisted()}, and tells the
+     * {@link SeatListener}s that a seat is free. Used when a student leaves the section, as opposed to
+     * giving back a seat that was only held while an enlistment was being committed.
+     */
+    void releaseSeat() {
+        removeNumberOfEnlisted();
+        notifySeatFreed();
+    }
+
+    /**
+     * Tells the {@link SeatListener}s that a seat is free, for a seat already given back with
+     * {@link #removeNumberOfEnlisted()}, e.g. under a student's commit lock, which listeners must not be called under.
+     */
+    void notifySeatFreed() {
+        for (SeatListener listener : seatListeners) {
+            try {
+                listener.seatFreed(this);
+            } catch (RuntimeException e) {
+                // a misbehaving listener must not affect the student leaving
+            }
+        }
+    }
+
+    /**
+     * Registers a listener to be told whenever a student leaves the section. Registering the same
+     * listener again has no effect.
+     * @param listener  The listener.
+     */
+    void addSeatListener(SeatListener listener) {
+        requireNonNull(listener, "Listener cannot be null");
+        if (!seatListeners.contains(listener)) {
+            seatListeners.add(listener);
+        }
+    }
+
+    void removeSeatListener(SeatListener listener) {
+        seatListeners.remove(listener);
     }
 
     /**
@@ -112,8 +203,62 @@ class Section {
         return subject;
     }
 
+    /**
+     * Gets the room where the section is held.
+     * @return     The room for the section.
+     */
+    Room getRoom() {
+        return room;
+    }
+
     int getSubjectUnits() { return subject.getUnits(); }
 
+    /**
+     * Gets the instructor teaching the section.
+     * @return     The instructor, or null if none is assigned yet.
+     */
+    Instructor getInstructor() {
+        return instructor;
+    }
+
+    /**
+     * Assigns an instructor to the section, or reassigns it. The section is added to the new instructor's load
+     * before it leaves the old one's, so if the new instructor cannot teach it the old one keeps it.
+     * @param newInstructor     The instructor to teach the section.
+     */
+    void assignInstructor(Instructor newInstructor) {
+        requireNonNull(newInstructor, "Instructor cannot be null");
+        instructorLock.lock();
+        try {
+            Instructor current = instructor;
+            if (newInstructor.equals(current)) {
+                return;
+            }
+            newInstructor.teach(this);
+            instructor = newInstructor;
+            if (current != null) {
+                current.stopTeaching(this);
+            }
+        } finally {
+            instructorLock.unlock();
+        }
+    }
+
+    /**
+     * Leaves the section without an instructor.
+     */
+    void unassignInstructor() {
+        instructorLock.lock();
+        try {
+            if (instructor != null) {
+                instructor.stopTeaching(this);
+                instructor = null;
+            }
+        } finally {
+            instructorLock.unlock();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
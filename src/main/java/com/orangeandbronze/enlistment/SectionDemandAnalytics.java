@@ -0,0 +1,312 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Keeps sliding-window demand statistics per section and per subject, fed by {@link EnlistmentEvent}s.
+ * <p>
+ * Receiving an event only offers it to a bounded queue, so the enlistment path never waits on
+ * analytics; if the queue is full the event is dropped and counted in {@link #getDroppedEvents()}.
+ * A single background thread drains the queue, updates the counters and publishes immutable
+ * snapshots, so every query is a map lookup or a field read.
+ */
+class SectionDemandAnalytics implements EnlistmentListener, AutoCloseable {
+
+    /**
+     * Demand for one section over the current window.
+     */
+    static final class SectionDemand {
+        private final Section section;
+        private final int enlisted;
+        private final long windowEnlistments;
+        private final long windowCancellations;
+        private final Map<String, Long> windowRejections;
+
+        SectionDemand(Section section, int enlisted, long windowEnlistments, long windowCancellations,
+                      Map<String, Long> windowRejections) {
+            this.section = section;
+            this.enlisted = enlisted;
+            this.windowEnlistments = windowEnlistments;
+            this.windowCancellations = windowCancellations;
+            this.windowRejections = Collections.unmodifiableMap(windowRejections);
+        }
+
+        Section getSection() {
+            return section;
+        }
+
+        /**
+         * Gets the fraction of the room's seats that were taken when the last event was processed.
+         * @return      A value from 0 to 1.
+         */
+        double getFillRate() {
+            return (double) enlisted / section.getRoom().getMaxCapacity();
+        }
+
+        long getWindowEnlistments() {
+            return windowEnlistments;
+        }
+
+        long getWindowCancellations() {
+            return windowCancellations;
+        }
+
+        /**
+         * Gets the number of rejected enlistments in the window, keyed by the simple name of the rejection.
+         * @return      The rejection counts.
+         */
+        Map<String, Long> getWindowRejections() {
+            return windowRejections;
+        }
+
+        /**
+         * Gets the number of enlistment attempts in the window, whether they succeeded or not.
+         * Sections are ranked as hot by this value.
+         * @return      The number of attempts.
+         */
+        long getWindowAttempts() {
+            return windowEnlistments + windowRejections.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        @Override
+        public String toString() {
+            return section + " fill=" + Math.round(getFillRate() * 100) + "% +" + windowEnlistments
+                    + " -" + windowCancellations + " rejected=" + windowRejections;
+        }
+    }
+
+    /**
+     * Demand for one subject, across all of its sections, over the current window.
+     */
+    static final class SubjectDemand {
+        private final Subject subject;
+        private final long windowEnlistments;
+        private final long windowCapacityRejections;
+        private final long windowRejections;
+
+        SubjectDemand(Subject subject, long windowEnlistments, long windowCapacityRejections, long windowRejections) {
+            this.subject = subject;
+            this.windowEnlistments = windowEnlistments;
+            this.windowCapacityRejections = windowCapacityRejections;
+            this.windowRejections = windowRejections;
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+
+        long getWindowEnlistments() {
+            return windowEnlistments;
+        }
+
+        /**
+         * Gets the number of students turned away in the window because a section was full;
+         * a subject with many of these needs another section.
+         * @return      The number of capacity rejections.
+         */
+        long getWindowCapacityRejections() {
+            return windowCapacityRejections;
+        }
+
+        long getWindowRejections() {
+            return windowRejections;
+        }
+
+        @Override
+        public String toString() {
+            return subject + " +" + windowEnlistments + " full=" + windowCapacityRejections + " rejected=" + windowRejections;
+        }
+    }
+
+    private static final String CAPACITY_REJECTION = RoomCapacityReachedException.class.getSimpleName();
+
+    private final Clock clock;
+    private final long windowMillis;
+    private final int buckets;
+    private final int topN;
+    private final BlockingQueue<EnlistmentEvent> queue;
+    private final LongAdder droppedEvents = new LongAdder();
+
+    // owned by the draining thread
+    private final Map<Section, SectionCounters> sectionCounters = new HashMap<>();
+    private final Map<Subject, SubjectCounters> subjectCounters = new HashMap<>();
+
+    // published snapshots
+    private final Map<Section, SectionDemand> sectionDemand = new ConcurrentHashMap<>();
+    private final Map<Subject, SubjectDemand> subjectDemand = new ConcurrentHashMap<>();
+    private volatile List<SectionDemand> hottestSections = Collections.emptyList();
+
+    private ScheduledExecutorService drainer;
+
+    /**
+     * Creates the analytics pipeline. Call {@link #start(Duration)} to drain events in the background.
+     * @param clock             The clock that defines the window.
+     * @param window            The length of the sliding window.
+     * @param buckets           The number of buckets the window is split into.
+     * @param topN              The number of hot sections to keep.
+     * @param queueCapacity     The number of events that may wait to be processed before new ones are dropped.
+     */
+    SectionDemandAnalytics(Clock clock, Duration window, int buckets, int topN, int queueCapacity) {
+        requireNonNull(clock, "Clock cannot be null");
+        requireNonNull(window, "Window cannot be null");
+        isTrue(buckets > 0, "buckets must be greater than 0, was: " + buckets);
+        isTrue(window.toMillis() >= buckets, "window must be at least one millisecond per bucket, was: " + window);
+        isTrue(topN > 0, "topN must be greater than 0, was: " + topN);
+        isTrue(queueCapacity > 0, "queueCapacity must be greater than 0, was: " + queueCapacity);
+        this.clock = clock;
+        this.windowMillis = window.toMillis();
+        this.buckets = buckets;
+        this.topN = topN;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @Override
+    public void onEvent(EnlistmentEvent event) {
+        if (event.getSection() != null && !queue.offer(event)) {
+            droppedEvents.increment();
+        }
+    }
+
+    /**
+     * Starts draining events on a background thread.
+     * @param interval      How often queued events are processed and snapshots refreshed.
+     */
+    synchronized void start(Duration interval) {
+        requireNonNull(interval, "Interval cannot be null");
+        isTrue(drainer == null, "Analytics already started");
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "section-demand-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = Math.max(1, interval.toMillis());
+        drainer.scheduleWithFixedDelay(this::drain, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Processes every queued event and refreshes the published snapshots.
+     * Must only be called from one thread at a time; {@link #start(Duration)} does this periodically.
+     */
+    void drain() {
+        List<EnlistmentEvent> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        Set<Section> touchedSections = new HashSet<>();
+        for (EnlistmentEvent event : batch) {
+            long at = event.getTimestamp().toEpochMilli();
+            Section section = event.getSection();
+            SectionCounters counters = sectionCounters.computeIfAbsent(section, s -> new SectionCounters());
+            SubjectCounters subject = subjectCounters.computeIfAbsent(section.getSubject(), s -> new SubjectCounters());
+            switch (event.getType()) {
+                case ENLISTED:
+                    counters.enlistments.add(at, 1);
+                    subject.enlistments.add(at, 1);
+                    break;
+                case CANCELLED:
+                    counters.cancellations.add(at, 1);
+                    break;
+                case REJECTED:
+                    String reason = event.getRejection().getClass().getSimpleName();
+                    counters.rejections.computeIfAbsent(reason, r -> newCounter()).add(at, 1);
+                    subject.rejections.add(at, 1);
+                    if (reason.equals(CAPACITY_REJECTION)) {
+                        subject.capacityRejections.add(at, 1);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            touchedSections.add(section);
+        }
+        touchedSections.forEach(section -> sectionCounters.get(section).enlisted = section.getNumberOfEnlisted());
+        refresh();
+    }
+
+    /**
+     * Gets the demand for a section.
+     * @param section   The section.
+     * @return          The demand as of the last refresh, or null if no event for the section has been seen.
+     */
+    SectionDemand getSectionDemand(Section section) {
+        return sectionDemand.get(section);
+    }
+
+    /**
+     * Gets the demand for a subject across all its sections.
+     * @param subject   The subject.
+     * @return          The demand as of the last refresh, or null if no event for the subject has been seen.
+     */
+    SubjectDemand getSubjectDemand(Subject subject) {
+        return subjectDemand.get(subject);
+    }
+
+    /**
+     * Gets the sections with the most enlistment attempts in the window, most attempted first.
+     * @return      At most {@code topN} sections, as of the last refresh.
+     */
+    List<SectionDemand> getHottestSections() {
+        return hottestSections;
+    }
+
+    long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (drainer != null) {
+            drainer.shutdownNow();
+            drainer = null;
+        }
+    }
+
+    private void refresh() {
+        long now = clock.millis();
+        PriorityQueue<SectionDemand> top = new PriorityQueue<>(Comparator.comparingLong(SectionDemand::getWindowAttempts));
+        sectionCounters.forEach((section, counters) -> {
+            Map<String, Long> rejections = new TreeMap<>();
+            counters.rejections.forEach((reason, counter) -> {
+                long count = counter.get(now);
+                if (count > 0) {
+                    rejections.put(reason, count);
+                }
+            });
+            SectionDemand demand = new SectionDemand(section, counters.enlisted,
+                    counters.enlistments.get(now), counters.cancellations.get(now), rejections);
+            sectionDemand.put(section, demand);
+            top.add(demand);
+            if (top.size() > topN) {
+                top.poll();
+            }
+        });
+        subjectCounters.forEach((subject, counters) -> subjectDemand.put(subject, new SubjectDemand(subject,
+                counters.enlistments.get(now), counters.capacityRejections.get(now), counters.rejections.get(now))));
+
+        List<SectionDemand> hottest = new ArrayList<>(top);
+        hottest.sort(Comparator.comparingLong(SectionDemand::getWindowAttempts).reversed());
+        hottestSections = Collections.unmodifiableList(hottest);
+    }
+
+    private WindowedCounter newCounter() {
+        return new WindowedCounter(windowMillis, buckets);
+    }
+
+    private final class SectionCounters {
+        final WindowedCounter enlistments = newCounter();
+        final WindowedCounter cancellations = newCounter();
+        final Map<String, WindowedCounter> rejections = new HashMap<>();
+        int enlisted;
+    }
+
+    private final class SubjectCounters {
+        final WindowedCounter enlistments = newCounter();
+        final WindowedCounter capacityRejections = newCounter();
+        final WindowedCounter rejections = newCounter();
+    }
+}
@@ -4,44 +4,88 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+import static com.orangeandbronze.enlistment.EnlistmentStageEvent.*;
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang3.Validate.*;
 
 /**
  * Represents a student from a specific degree program with a student number and their enrolled sections.
+ * <p>
+ * The enrolled sections are kept as an immutable, versioned {@link EnlistmentState}. Enlisting and cancelling
+ * check the next state against the current one without holding a lock. Only then do they take the student's
+ * short commit lock, and under it, if no other operation on the student committed first, take or give back the
+ * seats and install the state; otherwise they start over from the newer state. Concurrent operations on one
+ * student are therefore applied one after the other, and operations on different students share nothing.
+ * Because seats change together with the state, a double-submitted enlistment never holds a second seat, even
+ * briefly, so no other student is turned away from a seat the committed states leave free, and
+ * {@link #snapshotOf(List)} can read many students at one moment. {@link SeatListener}s are told of a freed seat
+ * only after the lock is let go.
+ * Grades are expected to be posted while the student is not enlisting.
+ * <p>
+ * Each stage of enlisting, swapping, cancelling and assessing is timed with an {@link EnlistmentStageEvent}
+ * for Java Flight Recorder.
  */
 class Student {
+    // held while whileCommitsWait holds the commit locks of many students
+    private static final ReentrantLock SNAPSHOT_LOCK = new ReentrantLock();
+
     private final int studentNo;
-    private final Collection<Section> sections = new HashSet<>();
+    private final AtomicReference<EnlistmentState> state;
+    // held while seats are taken or given back and the state is installed, never while checking
+    private final ReentrantLock commitLock = new ReentrantLock();
 
-    private final Collection<Subject> subjectsTaken = new HashSet<>();
+    private final Transcript transcript = new Transcript();
 
     private final DegreeProgram studentDegreeProgram;
 
-    private int totalUnitsEnlisted;
+    private final int yearLevel;
+
+    // the enlistment policy as it applies to this student, resolved again whenever another policy is installed
+    private volatile EnlistmentPolicy.Resolved policy;
 
     /**
      * Creates a student with the specified student number, enrolled sections, and subjects taken.
      * @param studentNo     Specific student number for each student.
      * @param sections      The collection of sections in which a student is enrolled.
-     * @param subjectsTaken The collection of subjects taken by the student.
+     * @param subjectsTaken The collection of subjects taken by the student, which count as passed.
      * @param studentDegreeProgram      The degree program the student is currentlu enrolled in.
      */
     Student(int studentNo, Collection<Section> sections, Collection<Subject> subjectsTaken, DegreeProgram studentDegreeProgram) {
+        this(studentNo, 1, sections, subjectsTaken, studentDegreeProgram);
+    }
+
+    /**
+     * Creates a student in a specific year level, which the {@link EnlistmentPolicy} may set rules for.
+     * The student takes a seat in each of the sections and is put on their rosters, so cancelling one
+     * later gives back a seat the student actually held.
+     * @param studentNo     Specific student number for each student.
+     * @param yearLevel     The student's year level, starting from 1.
+     * @param sections      The collection of sections in which a student is enrolled.
+     * @param subjectsTaken The collection of subjects taken by the student, which count as passed.
+     * @param studentDegreeProgram      The degree program the student is currently enrolled in.
+     */
+    Student(int studentNo, int yearLevel, Collection<Section> sections, Collection<Subject> subjectsTaken, DegreeProgram studentDegreeProgram) {
         isTrue(studentNo >= 0, "Student number cannot be negative" + studentNo);
+        isTrue(yearLevel >= 1, "Year level must be at least 1, was: " + yearLevel);
         requireNonNull(sections, "Sections cannot be null");
         requireNonNull(subjectsTaken, "Subjects taken cannot be null");
         requireNonNull(studentDegreeProgram, "Degree Program cannot be null");
 
         this.studentNo = studentNo;
+        this.yearLevel = yearLevel;
         this.studentDegreeProgram = studentDegreeProgram;
-        this.sections.addAll(sections);
-        this.subjectsTaken.addAll(subjectsTaken);
-        this.subjectsTaken.removeIf(Objects::isNull); // subjectsTaken can be null
-        this.totalUnitsEnlisted = 0;
+        subjectsTaken.stream().filter(Objects::nonNull) // subjectsTaken can be null
+                .forEach(subject -> transcript.post(subject, 0, Grade.PASSED));
 
-        isTrue(!this.sections.contains(null), "Sections cannot contain null elements");
+        isTrue(sections.stream().noneMatch(Objects::isNull), "Sections cannot contain null elements");
+        EnlistmentState initial = EnlistmentState.of(sections);
+        reserveSeats(initial.getSections());
+        initial.getSections().forEach(section -> section.addToRoster(studentNo));
+        this.state = new AtomicReference<>(initial);
     }
 
     /**
@@ -54,64 +98,333 @@ class Student {
     }
 
     /**
-     * Enlists the student in a new section, checking for schedule conflicts with existing sections and for duplicate subject. While making sure the student has less than 24 units.
+     * Enlists the student in a new section, checking for schedule conflicts with existing sections and for duplicate subject. While making sure the student stays within the unit limit of the {@link EnlistmentPolicy}.
+     * The section's subject must not be mutually exclusive with an enlisted subject, and its corequisites must already be enlisted or passed;
+     * use {@link #enlistAll(Collection)} to enlist in corequisites together.
      * @param newSection    The section to be enlisted.
+     * @return              The student's enlistment state right after the section was enlisted.
      */
-    void enlist(Section newSection) {
+    EnlistmentState enlist(Section newSection) {
         requireNonNull(newSection, "Section cannot be null");
-        int newTotalUnitsEnlisted;
+        return enlistAll(List.of(newSection));
+    }
 
-        // check for schedule conflicts
-        sections.forEach(existingSection -> existingSection.checkForConflict(newSection));
+    /**
+     * Enlists the student in several sections at once, e.g. a lecture and its laboratory. Either every section is
+     * enlisted or, if any check fails, none is.
+     * @param newSections   The sections to be enlisted.
+     * @return              The student's enlistment state right after the sections were enlisted.
+     */
+    EnlistmentState enlistAll(Collection<Section> newSections) {
+        requireNonNull(newSections, "Sections cannot be null");
+        List<Section> group = new ArrayList<>(newSections);
+        List<Section> timed = EnlistmentStageEvent.isRecording() ? group : null;
+        int[] attempt = new int[1];
+        return timed(ENLIST, TOTAL, timed, attempt, () -> {
+            while (true) {
+                attempt[0]++;
+                EnlistmentState current = state.get();
+                EnlistmentState next = timed(ENLIST, CHECK, timed, attempt,
+                        () -> current.enlist(group, studentDegreeProgram, transcript, policy().getMaxUnits()));
+                commitLock.lock();
+                try {
+                    boolean reserved = timed(ENLIST, RESERVE, timed, attempt, () -> {
+                        if (state.get() != current) {
+                            // another operation on this student committed first; check again
+                            return false;
+                        }
+                        reserveSeats(group);
+                        return true;
+                    });
+                    if (reserved) {
+                        timed(ENLIST, COMMIT, timed, attempt, () -> {
+                            state.set(next);
+                            group.forEach(section -> section.addToRoster(studentNo));
+                            return null;
+                        });
+                        return next;
+                    }
+                } finally {
+                    commitLock.unlock();
+                }
+            }
+        });
+    }
 
-        // check if subject is part of degree program
-        studentDegreeProgram.checkIfSubjectPartOfProgram(newSection.getSubject());
+    /**
+     * Cancels the student's enlistment in a specific section. A section whose subject is a corequisite of another
+     * enlisted section, and not passed, cannot be cancelled alone; use {@link #cancelAll(Collection)} to cancel both.
+     * @param other The section from which the student's enlistment will be canceled.
+     * @return      The student's enlistment state right after the enlistment was cancelled.
+     */
+    EnlistmentState cancelEnlistment(Section other) {
+        requireNonNull(other, "Section cannot be null");
+        return cancelAll(List.of(other));
+    }
 
-        // check for prerequisites
-        newSection.checkPrerequisites(subjectsTaken);
+    /**
+     * Cancels the student's enlistment in several sections at once, e.g. a lecture and its laboratory. Either every
+     * section is cancelled or, if any check fails, none is.
+     * @param sections  The sections to cancel.
+     * @return          The student's enlistment state right after the enlistments were cancelled.
+     */
+    EnlistmentState cancelAll(Collection<Section> sections) {
+        requireNonNull(sections, "Sections cannot be null");
+        List<Section> group = new ArrayList<>(sections);
+        List<Section> timed = EnlistmentStageEvent.isRecording() ? group : null;
+        int[] attempt = new int[1];
+        return timed(CANCEL, TOTAL, timed, attempt, () -> {
+            while (true) {
+                attempt[0]++;
+                EnlistmentState current = state.get();
+                EnlistmentState next = timed(CANCEL, CHECK, timed, attempt, () -> current.cancel(group, transcript));
+                boolean committed;
+                commitLock.lock();
+                try {
+                    committed = timed(CANCEL, COMMIT, timed, attempt, () -> {
+                        if (state.get() != current) {
+                            return false;
+                        }
+                        state.set(next);
+                        for (Section section : group) {
+                            section.removeFromRoster(studentNo);
+                            section.removeNumberOfEnlisted();
+                        }
+                        return true;
+                    });
+                } finally {
+                    commitLock.unlock();
+                }
+                if (committed) {
+                    // a listener may enlist someone else, so it is told only once the lock is let go
+                    timed(CANCEL, RELEASE, timed, attempt, () -> {
+                        group.forEach(Section::notifySeatFreed);
+                        return null;
+                    });
+                    return next;
+                }
+            }
+        });
+    }
 
-        // check for duplicate subjects
-        if (sections.stream().anyMatch(existingSection -> existingSection.hasSameSubject(newSection))) {
-            throw new DuplicateSubjectEnlistmentException("Cannot enlist in two sections with the same subject");
+    /**
+     * Moves the student from one section to another in one step. The new section is checked against the student's
+     * sections without the old one, and a seat in it is taken before the old seat is given back, so if the new section
+     * cannot be enlisted in the student keeps the old one.
+     * @param oldSection    The enlisted section to leave.
+     * @param newSection    The section to enlist in instead.
+     * @return              The student's enlistment state right after the swap.
+     */
+    EnlistmentState swap(Section oldSection, Section newSection) {
+        requireNonNull(oldSection, "Old section cannot be null");
+        requireNonNull(newSection, "New section cannot be null");
+        isTrue(!oldSection.equals(newSection), "Cannot swap a section for itself: " + oldSection);
+        List<Section> timed = EnlistmentStageEvent.isRecording() ? List.of(oldSection, newSection) : null;
+        int[] attempt = new int[1];
+        return timed(SWAP, TOTAL, timed, attempt, () -> {
+            while (true) {
+                attempt[0]++;
+                EnlistmentState current = state.get();
+                EnlistmentState next = timed(SWAP, CHECK, timed, attempt,
+                        () -> current.swap(oldSection, newSection, studentDegreeProgram, transcript, policy().getMaxUnits()));
+                boolean reserved;
+                commitLock.lock();
+                try {
+                    reserved = timed(SWAP, RESERVE, timed, attempt, () -> {
+                        if (state.get() != current) {
+                            return false;
+                        }
+                        newSection.addNumberOfEnlisted();
+                        return true;
+                    });
+                    if (reserved) {
+                        timed(SWAP, COMMIT, timed, attempt, () -> {
+                            state.set(next);
+                            newSection.addToRoster(studentNo);
+                            oldSection.removeFromRoster(studentNo);
+                            oldSection.removeNumberOfEnlisted();
+                            return null;
+                        });
+                    }
+                } finally {
+                    commitLock.unlock();
+                }
+                if (reserved) {
+                    timed(SWAP, RELEASE, timed, attempt, () -> {
+                        oldSection.notifySeatFreed();
+                        return null;
+                    });
+                    return next;
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the enlistment states of several students as of one moment, e.g. to export them while enlistment is
+     * live; the same as {@link #whileCommitsWait(List, Supplier)} reading each student's state.
+     * @param students      The students.
+     * @return              Their enlistment states, in the same order.
+     */
+    static List<EnlistmentState> snapshotOf(List<Student> students) {
+        requireNonNull(students, "Students cannot be null");
+        return whileCommitsWait(students, () -> {
+            List<EnlistmentState> states = new ArrayList<>(students.size());
+            for (Student student : students) {
+                states.add(student.state.get());
+            }
+            return states;
+        });
+    }
+
+    /**
+     * Reads something as of one moment for several students. Every student's commit lock is taken, in order,
+     * before anything is read, so no operation on them commits in between: their states agree with each other and
+     * with the seat counts of the sections they enlist in. Operations on these students keep checking meanwhile
+     * and only wait to commit. One read is done at a time, so two reads never wait on each other's locks.
+     * @param students      The students.
+     * @param read          What to read, e.g. the students' states; must not enlist or cancel.
+     * @return              What was read.
+     */
+    static <T> T whileCommitsWait(List<Student> students, Supplier<T> read) {
+        requireNonNull(students, "Students cannot be null");
+        requireNonNull(read, "Read cannot be null");
+        Student[] order = students.toArray(new Student[0]);
+        SNAPSHOT_LOCK.lock();
+        int locked = 0;
+        try {
+            for (Student student : order) {
+                student.commitLock.lock();
+                locked++;
+            }
+            return read.get();
+        } finally {
+            for (int i = 0; i < locked; i++) {
+                order[i].commitLock.unlock();
+            }
+            SNAPSHOT_LOCK.unlock();
         }
+    }
 
-        // check if total units is not more than 24
-        newTotalUnitsEnlisted = totalUnitsEnlisted + newSection.getSubjectUnits();
-        if (newTotalUnitsEnlisted > 24) {
-            throw new MaxUnitsPerStudentLimitExceededException("Cannot enlist in more than 24 units. Current total units enlisted: " + newTotalUnitsEnlisted + " units");
+    /**
+     * Runs one stage of an operation, timing it with an {@link EnlistmentStageEvent} if a recording was running
+     * when the operation began. A rejection is recorded on the event and rethrown, and a body returning
+     * {@code false} records that the stage lost a race.
+     * @param operation     The operation, e.g. {@link EnlistmentStageEvent#ENLIST}.
+     * @param stage         The stage, e.g. {@link EnlistmentStageEvent#CHECK}.
+     * @param sections      The sections the operation works on, or null not to time it.
+     * @param attempt       The attempt in progress, read when the stage ends.
+     * @param body          The stage.
+     * @return              What the stage returned.
+     */
+    private <T> T timed(String operation, String stage, List<Section> sections, int[] attempt, Supplier<T> body) {
+        if (sections == null) {
+            return body.get();
         }
+        EnlistmentStageEvent event = EnlistmentStageEvent.begin(operation, stage);
+        try {
+            T result = body.get();
+            if (Boolean.FALSE.equals(result)) {
+                event.retry();
+            }
+            return result;
+        } catch (RuntimeException e) {
+            event.reject(e);
+            throw e;
+        } finally {
+            event.end(studentNo, sections, attempt[0]);
+        }
+    }
 
-        sections.add(newSection);
-        newSection.addNumberOfEnlisted();
-        totalUnitsEnlisted = newTotalUnitsEnlisted;
+    /**
+     * Checks enlisting in sections against a given state of this student's, e.g. a simulated one, without
+     * changing anything; the same checks as {@link #enlistAll(Collection)} apart from seats.
+     * @param from          The state to enlist from.
+     * @param newSections   The sections to enlist in.
+     * @return              The state with the sections enlisted.
+     */
+    EnlistmentState checkEnlist(EnlistmentState from, List<Section> newSections) {
+        requireNonNull(from, "Enlistment state cannot be null");
+        return from.enlist(newSections, studentDegreeProgram, transcript, policy().getMaxUnits());
     }
 
     /**
-     * Cancels the student's enlistment in a specific section
-     * @param other The section from which the student's enlistment will be canceled.
+     * Checks cancelling sections against a given state of this student's without changing anything; the same
+     * checks as {@link #cancelAll(Collection)}.
+     * @param from          The state to cancel from.
+     * @param sections      The sections to cancel.
+     * @return              The state without the sections.
      */
-    void cancelEnlistment(Section other) {
-        requireNonNull(other, "Section cannot be null");
-        if (!sections.contains(other)) {
-            throw new CancellingUnenlistedSectionException("Cannot cancel enlistment for a section that hasn't been enlisted");
-        }
+    EnlistmentState checkCancel(EnlistmentState from, List<Section> sections) {
+        requireNonNull(from, "Enlistment state cannot be null");
+        return from.cancel(sections, transcript);
+    }
 
-        sections.remove(other);
+    /**
+     * Checks a swap against a given state of this student's without changing anything; the same checks as
+     * {@link #swap(Section, Section)} apart from seats.
+     * @param from          The state to swap from.
+     * @param oldSection    The enlisted section to leave.
+     * @param newSection    The section to enlist in instead.
+     * @return              The state with the sections swapped.
+     */
+    EnlistmentState checkSwap(EnlistmentState from, Section oldSection, Section newSection) {
+        requireNonNull(from, "Enlistment state cannot be null");
+        return from.swap(oldSection, newSection, studentDegreeProgram, transcript, policy().getMaxUnits());
     }
 
     /**
-     * Requests the assessment of the student's tuition fees.
+     * Takes a seat in every section, giving back the ones taken if a section is full.
+     */
+    private static void reserveSeats(List<Section> group) {
+        for (int i = 0; i < group.size(); i++) {
+            try {
+                group.get(i).addNumberOfEnlisted();
+            } catch (RuntimeException e) {
+                for (int j = 0; j < i; j++) {
+                    group.get(j).removeNumberOfEnlisted();
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Requests the assessment of the student's tuition fees, using the fees of the {@link EnlistmentPolicy}.
      * @return      The total amount of tuition fees to be paid by the student.
      */
     BigDecimal requestAssessment() {
-        // declare totalUnits as big decimal data type
-        final BigDecimal UNIT_COST = new BigDecimal(2000);
-        final BigDecimal LAB_FEE = new BigDecimal(1000);
-        final BigDecimal MISC_FEE = new BigDecimal(3000);
-        final BigDecimal VAT = new BigDecimal("1.12");
+        return requestAssessment(state.get());
+    }
+
+    /**
+     * Requests the assessment of a snapshot of the student's enlistment, e.g. so whoever asked knows which
+     * {@link EnlistmentState#getVersion() version} the amount is for.
+     * @param current   The enlistment state, from {@link #getEnlistmentState()}.
+     * @return          The total amount of tuition fees for the sections in the state.
+     */
+    BigDecimal requestAssessment(EnlistmentState current) {
+        requireNonNull(current, "Enlistment state cannot be null");
+        List<Section> timed = EnlistmentStageEvent.isRecording() ? current.getSections() : null;
+        return timed(ASSESS, TOTAL, timed, new int[] {1}, () -> assess(current));
+    }
+
+    /**
+     * Assesses the tuition fees of a snapshot of the student's enlistment, e.g. one already read for an export,
+     * so the fees agree with the sections in it.
+     * @param current   The enlistment state, from {@link #getEnlistmentState()}.
+     * @return          The total amount of tuition fees for the sections in the state.
+     */
+    BigDecimal assess(EnlistmentState current) {
+        requireNonNull(current, "Enlistment state cannot be null");
+        EnlistmentPolicy.Resolved fees = policy();
+        final BigDecimal UNIT_COST = fees.getUnitCost();
+        final BigDecimal LAB_FEE = fees.getLabFee();
+        final BigDecimal MISC_FEE = fees.getMiscFee();
+        final BigDecimal VAT = fees.getVat();
 
         BigDecimal total = BigDecimal.ZERO;
-        for (Section section : sections) {
+        for (Section section : current.getSections()) {
             int units = section.getSubject().getUnits();
             BigDecimal subjectCost = UNIT_COST.multiply(BigDecimal.valueOf(units));
             total = total.add(subjectCost);
@@ -133,11 +446,83 @@ class Student {
      * @return      A copy of the sections in which the student is enrolled.
      */
     Collection<Section> getSections() {
-        return new ArrayList<>(sections);
+        return new ArrayList<>(state.get().getSections());
+    }
+
+    /**
+     * Gets the student's current enlistment state, an immutable snapshot that needs no copying.
+     * @return      The enlistment state.
+     */
+    EnlistmentState getEnlistmentState() {
+        return state.get();
+    }
+
+    /**
+     * Posts a grade to the student's transcript.
+     * @param subject   The subject.
+     * @param term      The term the subject was taken.
+     * @param grade     The grade.
+     */
+    void postGrade(Subject subject, int term, Grade grade) {
+        transcript.post(subject, term, grade);
+    }
+
+    /**
+     * Retrieves a copy of the subjects the student has taken, passed or not.
+     * @return      A copy of the subjects taken.
+     */
+    Collection<Subject> getSubjectsTaken() {
+        return new ArrayList<>(transcript.getSubjectsTaken());
+    }
+
+    /**
+     * Retrieves the subjects the student has passed.
+     * @return      A copy of the passed subjects as a bitset over {@link Subject#getIndex()}.
+     */
+    BitSet getPassedSubjects() {
+        return transcript.getPassedSubjects();
+    }
+
+    long getTranscriptVersion() {
+        return transcript.getVersion();
+    }
+
+    boolean hasPassed(Subject subject) {
+        return transcript.hasPassed(subject);
+    }
+
+    List<Transcript.Entry> getTranscript() {
+        return transcript.getEntries();
+    }
+
+    int getStudentNo() {
+        return studentNo;
+    }
+
+    DegreeProgram getDegreeProgram() {
+        return studentDegreeProgram;
     }
 
     int getTotalUnitsEnlisted() {
-        return totalUnitsEnlisted;
+        return state.get().getTotalUnits();
+    }
+
+    int getYearLevel() {
+        return yearLevel;
+    }
+
+    /**
+     * Gets the enlistment policy in force as it applies to this student.
+     * @return      The resolved policy.
+     */
+    EnlistmentPolicy.Resolved policy() {
+        EnlistmentPolicy current = EnlistmentPolicy.current();
+        EnlistmentPolicy.Resolved resolved = policy;
+        if (resolved == null || !resolved.isResolvedFrom(current)) {
+            resolved = current.resolve(studentNo, yearLevel, studentDegreeProgram);
+            policy = resolved;
+        }
+        return resolved;
     }
 
     @Override
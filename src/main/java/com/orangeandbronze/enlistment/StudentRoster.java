@@ -0,0 +1,77 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The student numbers of the students in a section, kept as a sorted {@code int[]}.
+ * <p>
+ * The array is never changed once published: adding or removing a student builds a new one and swaps
+ * it in with a compare-and-set. A section seats tens of students, so copying is cheap, and reading the
+ * roster takes no lock and sees a consistent snapshot however many students are enlisting at once.
+ */
+final class StudentRoster {
+    private static final int[] EMPTY = new int[0];
+
+    private final AtomicReference<int[]> studentNumbers = new AtomicReference<>(EMPTY);
+
+    /**
+     * Adds a student.
+     * @param studentNo     The student number.
+     * @return              true if the student was not yet in the roster.
+     */
+    boolean add(int studentNo) {
+        while (true) {
+            int[] current = studentNumbers.get();
+            int position = Arrays.binarySearch(current, studentNo);
+            if (position >= 0) {
+                return false;
+            }
+            int insertion = -position - 1;
+            int[] next = new int[current.length + 1];
+            System.arraycopy(current, 0, next, 0, insertion);
+            next[insertion] = studentNo;
+            System.arraycopy(current, insertion, next, insertion + 1, current.length - insertion);
+            if (studentNumbers.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Removes a student.
+     * @param studentNo     The student number.
+     * @return              true if the student was in the roster.
+     */
+    boolean remove(int studentNo) {
+        while (true) {
+            int[] current = studentNumbers.get();
+            int position = Arrays.binarySearch(current, studentNo);
+            if (position < 0) {
+                return false;
+            }
+            int[] next = current.length == 1 ? EMPTY : new int[current.length - 1];
+            System.arraycopy(current, 0, next, 0, position);
+            System.arraycopy(current, position + 1, next, position, current.length - position - 1);
+            if (studentNumbers.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    boolean contains(int studentNo) {
+        return Arrays.binarySearch(studentNumbers.get(), studentNo) >= 0;
+    }
+
+    int size() {
+        return studentNumbers.get().length;
+    }
+
+    /**
+     * Gets the student numbers.
+     * @return      A copy of the student numbers, in ascending order.
+     */
+    int[] toArray() {
+        return studentNumbers.get().clone();
+    }
+}
@@ -1,6 +1,9 @@
 package com.orangeandbronze.enlistment;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.apache.commons.lang3.StringUtils.isAlphanumeric;
 import static org.apache.commons.lang3.Validate.*;
@@ -11,10 +14,19 @@ import static java.util.Objects.requireNonNull;
  * laboratory indicator, and prerequisites.
  */
 class Subject {
+    private static final ConcurrentMap<String, Integer> INDEXES = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
     private final String subjectId;
+    private final int index;
     private final int units;
     private final boolean isLaboratory;
     private final Collection<Subject> prereqSubjects = new HashSet<>();
+    private final BitSet prereqIndexes = new BitSet();
+    private final Collection<Subject> coreqSubjects = new HashSet<>();
+    private final BitSet coreqIndexes = new BitSet();
+    private final Collection<Subject> exclusiveSubjects = new HashSet<>();
+    private final BitSet exclusiveIndexes = new BitSet();
 
     /**
      * Creates a new Subject with specified parameters
@@ -30,10 +42,12 @@ class Subject {
         isTrue(units >= 0, "Units cannot be a negative number" + units);
 
         this.subjectId = subjectId;
+        this.index = INDEXES.computeIfAbsent(subjectId, id -> NEXT_INDEX.getAndIncrement());
         this.units = units;
         this.isLaboratory = isLaboratory;
         this.prereqSubjects.addAll(prereqSubjects);
         isTrue(!this.prereqSubjects.contains(null), "Prerequisite subjects cannot contain null elements");
+        this.prereqSubjects.forEach(prereq -> prereqIndexes.set(prereq.getIndex()));
     }
 
     /**
@@ -46,6 +60,16 @@ class Subject {
         this(subjectId, units, isLaboratory, Collections.emptyList());
     }
 
+    /**
+     * Gets the index of the subject, a small number unique to its subjectId. Equal subjects have
+     * the same index, so sets of subjects can be kept as bitsets indexed by it.
+     *
+     * @return      The index of the subject.
+     */
+    int getIndex() {
+        return index;
+    }
+
     /**
      * Gets the number of units for the subject.
      *
@@ -65,6 +89,15 @@ class Subject {
     }
     
 
+    /**
+     * Gets the prerequisites of the subject.
+     *
+     * @return      An unmodifiable view of the prerequisite subjects.
+     */
+    Collection<Subject> getPrerequisites() {
+        return Collections.unmodifiableCollection(prereqSubjects);
+    }
+
     /**
      * Checks if the student has met the prerequisites for the subject.
      * @param subjectsTaken     The collection of subjects taken by the student.
@@ -80,6 +113,119 @@ class Subject {
         }
     }
 
+    /**
+     * Tells if every prerequisite of the subject has been passed, without building an error.
+     * @param passedSubjects    The subjects the student has passed, as a bitset over {@link #getIndex()}.
+     * @return                  true if the prerequisites are met.
+     */
+    boolean arePrerequisitesPassed(BitSet passedSubjects) {
+        requireNonNull(passedSubjects, "Passed subjects cannot be null");
+        for (int i = prereqIndexes.nextSetBit(0); i >= 0; i = prereqIndexes.nextSetBit(i + 1)) {
+            if (!passedSubjects.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the student has passed the prerequisites for the subject.
+     * @param passedSubjects    The subjects the student has passed, as a bitset over {@link #getIndex()}.
+     */
+    void checkPrerequisites(BitSet passedSubjects) {
+        requireNonNull(passedSubjects, "Passed subjects cannot be null");
+        for (int i = prereqIndexes.nextSetBit(0); i >= 0; i = prereqIndexes.nextSetBit(i + 1)) {
+            if (!passedSubjects.get(i)) {
+                Collection<Subject> unmet = new HashSet<>();
+                for (Subject prereq : prereqSubjects) {
+                    if (!passedSubjects.get(prereq.getIndex())) {
+                        unmet.add(prereq);
+                    }
+                }
+                throw new PrerequisitesNotMetException("Unmet Prerequisites: " + unmet);
+            }
+        }
+    }
+
+    /**
+     * Makes two subjects corequisites of each other: a student must take them in the same term,
+     * unless the other has already been passed. Set up the catalog before enlistment opens.
+     * @param other     The other subject.
+     */
+    void addCorequisite(Subject other) {
+        requireNonNull(other, "Corequisite cannot be null");
+        isTrue(!equals(other), "A subject cannot be its own corequisite: " + this);
+        isTrue(!exclusiveSubjects.contains(other), other + " is mutually exclusive with " + this);
+        coreqSubjects.add(other);
+        coreqIndexes.set(other.getIndex());
+        other.coreqSubjects.add(this);
+        other.coreqIndexes.set(index);
+    }
+
+    /**
+     * Makes two subjects mutually exclusive: a student cannot take both in the same term.
+     * Set up the catalog before enlistment opens.
+     * @param other     The other subject.
+     */
+    void addExclusion(Subject other) {
+        requireNonNull(other, "Excluded subject cannot be null");
+        isTrue(!equals(other), "A subject cannot exclude itself: " + this);
+        isTrue(!coreqSubjects.contains(other), other + " is a corequisite of " + this);
+        exclusiveSubjects.add(other);
+        exclusiveIndexes.set(other.getIndex());
+        other.exclusiveSubjects.add(this);
+        other.exclusiveIndexes.set(index);
+    }
+
+    Collection<Subject> getCorequisites() {
+        return Collections.unmodifiableCollection(coreqSubjects);
+    }
+
+    Collection<Subject> getExclusions() {
+        return Collections.unmodifiableCollection(exclusiveSubjects);
+    }
+
+    /**
+     * Checks if the subject has corequisites or exclusions, so callers can skip building the
+     * bitsets {@link #checkCorequisitesAndExclusions(BitSet, BitSet)} needs when it has none.
+     * @return      true if the subject has corequisites or exclusions.
+     */
+    boolean hasCorequisitesOrExclusions() {
+        return !coreqIndexes.isEmpty() || !exclusiveIndexes.isEmpty();
+    }
+
+    /**
+     * Checks the subject's corequisites and exclusions against a student's load for the term.
+     * @param load              The subjects the student would be enlisted in, this one included,
+     *                          as a bitset over {@link #getIndex()}.
+     * @param passedSubjects    The subjects the student has passed, which also satisfy corequisites.
+     */
+    void checkCorequisitesAndExclusions(BitSet load, BitSet passedSubjects) {
+        requireNonNull(load, "Load cannot be null");
+        requireNonNull(passedSubjects, "Passed subjects cannot be null");
+        if (exclusiveIndexes.intersects(load)) {
+            Collection<Subject> clashing = new HashSet<>();
+            for (Subject excluded : exclusiveSubjects) {
+                if (load.get(excluded.getIndex())) {
+                    clashing.add(excluded);
+                }
+            }
+            throw new MutuallyExclusiveSubjectsException("Cannot take " + this + " together with " + clashing);
+        }
+        for (int i = coreqIndexes.nextSetBit(0); i >= 0; i = coreqIndexes.nextSetBit(i + 1)) {
+            if (!load.get(i) && !passedSubjects.get(i)) {
+                Collection<Subject> unmet = new HashSet<>();
+                for (Subject coreq : coreqSubjects) {
+                    if (!load.get(coreq.getIndex()) && !passedSubjects.get(coreq.getIndex())) {
+                        unmet.add(coreq);
+                    }
+                }
+                throw new CorequisiteNotMetException("Unmet Corequisites of " + this + ": " + unmet
+                        + "; enlist in them together");
+            }
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,147 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * A randomly generated but fully reproducible catalog of subjects, rooms, sections and students,
+ * used to drive load against the enlistment model.
+ * <p>
+ * The same seed and sizes always produce the same catalog, so a captured {@link TrafficTrace}
+ * can be replayed against a fresh copy of exactly the state it was recorded against.
+ */
+class SyntheticCatalog {
+    /** Half-hour aligned periods of 1.5 hours that tile the 8:30 to 17:30 day. */
+    private static final Period[] PERIODS = {
+            Period.of(8, true, 10, false),
+            Period.of(10, false, 11, true),
+            Period.of(11, true, 13, false),
+            Period.of(13, false, 14, true),
+            Period.of(14, true, 16, false),
+            Period.of(16, false, 17, true)
+    };
+    private static final int SLOTS_PER_ROOM = PERIODS.length * Days.values().length;
+
+    private final long seed;
+    private final int sectionsPerSubject;
+    private final List<Subject> subjects;
+    private final List<Room> rooms;
+    private final List<Section> sections;
+    private final List<Student> students;
+    private final DegreeProgram degreeProgram;
+
+    private SyntheticCatalog(long seed, int sectionsPerSubject, List<Subject> subjects, List<Room> rooms, List<Section> sections,
+                             List<Student> students, DegreeProgram degreeProgram) {
+        this.seed = seed;
+        this.sectionsPerSubject = sectionsPerSubject;
+        this.subjects = subjects;
+        this.rooms = rooms;
+        this.sections = sections;
+        this.students = students;
+        this.degreeProgram = degreeProgram;
+    }
+
+    /**
+     * Generates a catalog.
+     * @param seed                  The seed all random choices are derived from.
+     * @param subjectCount          The number of subjects in the single generated degree program.
+     * @param sectionsPerSubject    The number of sections opened for each subject.
+     * @param roomCount             The number of rooms; each holds at most 18 sections (6 periods on 3 day pairs).
+     * @param studentCount          The number of students.
+     * @return                      The generated catalog.
+     */
+    static SyntheticCatalog generate(long seed, int subjectCount, int sectionsPerSubject, int roomCount, int studentCount) {
+        isTrue(subjectCount > 0, "subjectCount must be greater than 0, was: " + subjectCount);
+        isTrue(sectionsPerSubject > 0, "sectionsPerSubject must be greater than 0, was: " + sectionsPerSubject);
+        isTrue(roomCount > 0, "roomCount must be greater than 0, was: " + roomCount);
+        isTrue(studentCount >= 0, "studentCount cannot be negative, was: " + studentCount);
+        isTrue((long) subjectCount * sectionsPerSubject <= (long) roomCount * SLOTS_PER_ROOM,
+                "Not enough rooms for " + subjectCount * sectionsPerSubject + " sections");
+        Random random = new Random(seed);
+
+        // prerequisite chains: each subject may depend on up to two earlier subjects
+        List<Subject> subjects = new ArrayList<>(subjectCount);
+        for (int i = 0; i < subjectCount; i++) {
+            List<Subject> prereqs = new ArrayList<>();
+            for (int p = 0; p < 2 && i > 0; p++) {
+                if (random.nextInt(100) < 40) {
+                    prereqs.add(subjects.get(random.nextInt(i)));
+                }
+            }
+            int units = 1 + random.nextInt(5);
+            subjects.add(new Subject("SUBJ" + i, units, random.nextInt(100) < 25, prereqs));
+        }
+        DegreeProgram degreeProgram = new DegreeProgram("SYNTHETIC", subjects);
+
+        // room capacities between 10 and 60 seats
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(new Room("R" + i, 10 + random.nextInt(51), Collections.emptyList()));
+        }
+
+        // sections fill the rooms' free slots in a shuffled order so schedules spread over all days
+        List<Integer> slots = new ArrayList<>(roomCount * SLOTS_PER_ROOM);
+        for (int i = 0; i < roomCount * SLOTS_PER_ROOM; i++) {
+            slots.add(i);
+        }
+        Collections.shuffle(slots, random);
+        List<Section> sections = new ArrayList<>(subjectCount * sectionsPerSubject);
+        int nextSlot = 0;
+        for (Subject subject : subjects) {
+            for (int s = 0; s < sectionsPerSubject; s++) {
+                int slot = slots.get(nextSlot++);
+                Room room = rooms.get(slot / SLOTS_PER_ROOM);
+                int roomSlot = slot % SLOTS_PER_ROOM;
+                Schedule schedule = Schedule.of(Days.values()[roomSlot / PERIODS.length], PERIODS[roomSlot % PERIODS.length]);
+                Section section = new Section(subject + "S" + s, schedule, room, subject);
+                room.getTakenTimeSlots().add(schedule);
+                sections.add(section);
+            }
+        }
+
+        // each student has passed a prerequisite-closed prefix of the catalog
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int studentNo = 0; studentNo < studentCount; studentNo++) {
+            int progress = random.nextInt(subjectCount + 1);
+            Set<Subject> taken = new HashSet<>();
+            for (int i = 0; i < progress; i++) {
+                Subject subject = subjects.get(i);
+                if (random.nextInt(100) < 70 && subject.getPrerequisites().stream().allMatch(taken::contains)) {
+                    taken.add(subject);
+                }
+            }
+            students.add(new Student(studentNo, Collections.emptyList(), taken, degreeProgram));
+        }
+
+        return new SyntheticCatalog(seed, sectionsPerSubject, subjects, rooms, sections, students, degreeProgram);
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    int getSectionsPerSubject() {
+        return sectionsPerSubject;
+    }
+
+    List<Subject> getSubjects() {
+        return Collections.unmodifiableList(subjects);
+    }
+
+    List<Room> getRooms() {
+        return Collections.unmodifiableList(rooms);
+    }
+
+    List<Section> getSections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    List<Student> getStudents() {
+        return Collections.unmodifiableList(students);
+    }
+
+    DegreeProgram getDegreeProgram() {
+        return degreeProgram;
+    }
+}
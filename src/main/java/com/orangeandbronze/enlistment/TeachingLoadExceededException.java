@@ -0,0 +1,7 @@
+package com.orangeandbronze.enlistment;
+
+public class TeachingLoadExceededException extends RuntimeException {
+    TeachingLoadExceededException(String msg) {
+        super(msg);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Captures live traffic through an {@link EnlistmentDispatcher} as a {@link TrafficTrace}, so an
+ * enlistment-day incident can be replayed with {@link LoadGenerator}.
+ * <p>
+ * Register the recorder with {@link EnlistmentDispatcher#addListener(EnlistmentListener)}. Every enlistment and
+ * cancellation is recorded, whether it took effect or was rejected, in the order the events arrive. A swap that
+ * took effect is recorded as the cancellation and enlistment it made; a rejected swap is not recorded, as a
+ * trace has no swaps. Events about students or sections outside the catalog are counted in
+ * {@link #getSkipped()} and not recorded.
+ */
+class TrafficRecorder implements EnlistmentListener {
+    private final SyntheticCatalog catalog;
+    private final Map<Student, Integer> studentIndexes = new HashMap<>();
+    private final Map<Section, Integer> sectionIndexes = new HashMap<>();
+    // guarded by itself
+    private final List<TrafficTrace.Operation> operations = new ArrayList<>();
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Creates a recorder for traffic against a catalog.
+     * @param catalog   The catalog the dispatcher's students and sections come from.
+     */
+    TrafficRecorder(SyntheticCatalog catalog) {
+        requireNonNull(catalog, "Catalog cannot be null");
+        this.catalog = catalog;
+        List<Student> students = catalog.getStudents();
+        for (int i = 0; i < students.size(); i++) {
+            studentIndexes.put(students.get(i), i);
+        }
+        List<Section> sections = catalog.getSections();
+        for (int i = 0; i < sections.size(); i++) {
+            sectionIndexes.put(sections.get(i), i);
+        }
+    }
+
+    @Override
+    public void onEvent(EnlistmentEvent event) {
+        TrafficTrace.OperationType type;
+        if (event.getAttempted() == EnlistmentEvent.Type.ENLISTED) {
+            type = TrafficTrace.OperationType.ENLIST;
+        } else if (event.getAttempted() == EnlistmentEvent.Type.CANCELLED) {
+            type = TrafficTrace.OperationType.CANCEL;
+        } else {
+            return;
+        }
+        Integer student = studentIndexes.get(event.getStudent());
+        Integer section = event.getSection() == null ? null : sectionIndexes.get(event.getSection());
+        if (student == null || section == null) {
+            skipped.increment();
+            return;
+        }
+        TrafficTrace.Operation operation = new TrafficTrace.Operation(type, student, section);
+        synchronized (operations) {
+            operations.add(operation);
+        }
+    }
+
+    /**
+     * Gets the traffic recorded so far as a trace against the catalog, e.g. to {@link TrafficTrace#write write} it.
+     * @return      The trace.
+     */
+    TrafficTrace toTrace() {
+        List<TrafficTrace.Operation> recorded;
+        synchronized (operations) {
+            recorded = new ArrayList<>(operations);
+        }
+        return new TrafficTrace(catalog.getSeed(), catalog.getSubjects().size(), catalog.getSectionsPerSubject(),
+                catalog.getRooms().size(), catalog.getStudents().size(), recorded);
+    }
+
+    /**
+     * Gets the number of events about students or sections outside the catalog.
+     * @return      The events not recorded.
+     */
+    long getSkipped() {
+        return skipped.sum();
+    }
+}
@@ -0,0 +1,235 @@
+package com.orangeandbronze.enlistment;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * An ordered list of enlist and cancel operations against a {@link SyntheticCatalog}.
+ * Operations refer to students and sections by their position in the catalog, so a trace can be
+ * saved, shared and replayed against a regenerated catalog. The trace records the seed and sizes of
+ * the catalog it was generated against, so the same catalog can be regenerated and a different one
+ * is refused.
+ * <p>
+ * The text format is one operation per line, {@code ENLIST <student> <section>} or
+ * {@code CANCEL <student> <section>}, preceded by a {@code # seed=<seed>} header and a
+ * {@code # subjects=<n> sectionsPerSubject=<n> rooms=<n> students=<n>} header.
+ */
+class TrafficTrace {
+    enum OperationType {
+        ENLIST, CANCEL
+    }
+
+    /**
+     * A single operation in a trace.
+     */
+    static final class Operation {
+        private final OperationType type;
+        private final int studentIndex;
+        private final int sectionIndex;
+
+        Operation(OperationType type, int studentIndex, int sectionIndex) {
+            requireNonNull(type, "Operation type cannot be null");
+            isTrue(studentIndex >= 0, "studentIndex cannot be negative, was: " + studentIndex);
+            isTrue(sectionIndex >= 0, "sectionIndex cannot be negative, was: " + sectionIndex);
+            this.type = type;
+            this.studentIndex = studentIndex;
+            this.sectionIndex = sectionIndex;
+        }
+
+        OperationType getType() {
+            return type;
+        }
+
+        int getStudentIndex() {
+            return studentIndex;
+        }
+
+        int getSectionIndex() {
+            return sectionIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Operation operation = (Operation) o;
+            return studentIndex == operation.studentIndex && sectionIndex == operation.sectionIndex && type == operation.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, studentIndex, sectionIndex);
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + studentIndex + " " + sectionIndex;
+        }
+    }
+
+    private static final String SEED_HEADER = "# seed=";
+    private static final String CATALOG_HEADER = "# subjects=%d sectionsPerSubject=%d rooms=%d students=%d";
+
+    private final long seed;
+    private final int subjectCount;
+    private final int sectionsPerSubject;
+    private final int roomCount;
+    private final int studentCount;
+    private final List<Operation> operations;
+
+    /**
+     * Creates a trace against a catalog generated with the given seed and sizes.
+     * @param seed                  The catalog's seed.
+     * @param subjectCount          The catalog's number of subjects.
+     * @param sectionsPerSubject    The catalog's number of sections per subject.
+     * @param roomCount             The catalog's number of rooms.
+     * @param studentCount          The catalog's number of students.
+     * @param operations            The operations, in order.
+     */
+    TrafficTrace(long seed, int subjectCount, int sectionsPerSubject, int roomCount, int studentCount, List<Operation> operations) {
+        isTrue(subjectCount > 0, "subjectCount must be greater than 0, was: " + subjectCount);
+        isTrue(sectionsPerSubject > 0, "sectionsPerSubject must be greater than 0, was: " + sectionsPerSubject);
+        isTrue(roomCount > 0, "roomCount must be greater than 0, was: " + roomCount);
+        isTrue(studentCount >= 0, "studentCount cannot be negative, was: " + studentCount);
+        requireNonNull(operations, "Operations cannot be null");
+        this.seed = seed;
+        this.subjectCount = subjectCount;
+        this.sectionsPerSubject = sectionsPerSubject;
+        this.roomCount = roomCount;
+        this.studentCount = studentCount;
+        this.operations = List.copyOf(operations);
+    }
+
+    /**
+     * Generates a trace against a catalog. Cancellations only target sections the same student
+     * asked to enlist in earlier in the trace, as a real student would.
+     * @param catalog           The catalog the trace runs against; its seed is reused for the trace.
+     * @param operationCount    The number of operations to generate.
+     * @param cancelPercent     The percentage (0 to 100) of operations that are cancellations.
+     * @return                  The generated trace.
+     */
+    static TrafficTrace generate(SyntheticCatalog catalog, int operationCount, int cancelPercent) {
+        requireNonNull(catalog, "Catalog cannot be null");
+        isTrue(operationCount >= 0, "operationCount cannot be negative, was: " + operationCount);
+        inclusiveBetween(0, 100, cancelPercent, "cancelPercent must be within 0 to 100, was: " + cancelPercent);
+        int studentCount = catalog.getStudents().size();
+        int sectionCount = catalog.getSections().size();
+        isTrue(studentCount > 0 || operationCount == 0, "Catalog has no students to generate traffic for");
+
+        Random random = new Random(catalog.getSeed() ^ 0x5DEECE66DL);
+        Map<Integer, List<Integer>> requested = new HashMap<>();
+        List<Operation> operations = new ArrayList<>(operationCount);
+        for (int i = 0; i < operationCount; i++) {
+            int student = random.nextInt(studentCount);
+            List<Integer> studentRequests = requested.computeIfAbsent(student, s -> new ArrayList<>());
+            if (!studentRequests.isEmpty() && random.nextInt(100) < cancelPercent) {
+                int section = studentRequests.remove(random.nextInt(studentRequests.size()));
+                operations.add(new Operation(OperationType.CANCEL, student, section));
+            } else {
+                int section = random.nextInt(sectionCount);
+                studentRequests.add(section);
+                operations.add(new Operation(OperationType.ENLIST, student, section));
+            }
+        }
+        return new TrafficTrace(catalog.getSeed(), catalog.getSubjects().size(), catalog.getSectionsPerSubject(),
+                catalog.getRooms().size(), studentCount, operations);
+    }
+
+    /**
+     * Reads a trace previously written with {@link #write(Path)}.
+     * @param file      The file to read.
+     * @return          The trace.
+     */
+    static TrafficTrace read(Path file) throws IOException {
+        Long seed = null;
+        int[] sizes = null;
+        List<Operation> operations = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(SEED_HEADER)) {
+                    seed = Long.parseLong(line.substring(SEED_HEADER.length()));
+                } else if (line.startsWith("# subjects=")) {
+                    sizes = parseCatalogHeader(line);
+                } else if (!line.isBlank() && !line.startsWith("#")) {
+                    String[] parts = line.trim().split("\\s+");
+                    isTrue(parts.length == 3, "Malformed trace line: " + line);
+                    operations.add(new Operation(OperationType.valueOf(parts[0]),
+                            Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                }
+            }
+        }
+        isTrue(seed != null, "Trace has no seed header: " + file);
+        isTrue(sizes != null, "Trace has no catalog header: " + file);
+        return new TrafficTrace(seed, sizes[0], sizes[1], sizes[2], sizes[3], operations);
+    }
+
+    private static int[] parseCatalogHeader(String line) {
+        String[] fields = line.substring(1).trim().split("\\s+");
+        String[] names = {"subjects", "sectionsPerSubject", "rooms", "students"};
+        isTrue(fields.length == names.length, "Malformed catalog header: " + line);
+        int[] sizes = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            isTrue(fields[i].startsWith(names[i] + "="), "Malformed catalog header: " + line);
+            sizes[i] = Integer.parseInt(fields[i].substring(names[i].length() + 1));
+        }
+        return sizes;
+    }
+
+    /**
+     * Writes the trace in its text format.
+     * @param file      The file to write.
+     */
+    void write(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(SEED_HEADER + seed);
+            writer.newLine();
+            writer.write(String.format(CATALOG_HEADER, subjectCount, sectionsPerSubject, roomCount, studentCount));
+            writer.newLine();
+            for (Operation operation : operations) {
+                writer.write(operation.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Regenerates the catalog the trace was generated against.
+     * @return      A fresh copy of the catalog.
+     */
+    SyntheticCatalog regenerateCatalog() {
+        return SyntheticCatalog.generate(seed, subjectCount, sectionsPerSubject, roomCount, studentCount);
+    }
+
+    /**
+     * Checks that a catalog has the seed and sizes the trace was generated against.
+     * @param catalog   The catalog the trace is about to run against.
+     */
+    void checkCatalog(SyntheticCatalog catalog) {
+        requireNonNull(catalog, "Catalog cannot be null");
+        String expected = describe(seed, subjectCount, sectionsPerSubject, roomCount, studentCount);
+        String actual = describe(catalog.getSeed(), catalog.getSubjects().size(), catalog.getSectionsPerSubject(),
+                catalog.getRooms().size(), catalog.getStudents().size());
+        isTrue(expected.equals(actual), "Trace was generated against the catalog " + expected + ", not " + actual);
+    }
+
+    private static String describe(long seed, int subjects, int sectionsPerSubject, int rooms, int students) {
+        return SEED_HEADER.substring(2) + seed + " " + String.format(CATALOG_HEADER.substring(2), subjects, sectionsPerSubject, rooms, students);
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    List<Operation> getOperations() {
+        return operations;
+    }
+}
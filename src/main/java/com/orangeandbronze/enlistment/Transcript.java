@@ -0,0 +1,192 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * The grades a student has received, one entry per subject and term.
+ * <p>
+ * Each entry is packed into a single {@code long}: the subject's {@link Subject#getIndex()} in the high
+ * 32 bits, the term in the next 24 and the grade in the low 8. Alongside the entries the transcript keeps
+ * a bitset of the passed subjects, updated as grades are posted, so prerequisite checks never scan the
+ * entries. A subject counts as passed if any of its entries has a passing grade. The subject of each entry is
+ * kept as posted, so creating an equal subject again, e.g. on a catalog reload, does not change a transcript.
+ * <p>
+ * Not thread-safe; like the rest of a {@link Student}, it is changed by one command at a time.
+ */
+class Transcript {
+    /** The largest term number that fits in an entry. */
+    static final int MAX_TERM = (1 << 24) - 1;
+
+    private static final Grade[] GRADES = Grade.values();
+
+    /**
+     * One entry of a transcript.
+     */
+    static final class Entry {
+        private final Subject subject;
+        private final int term;
+        private final Grade grade;
+
+        private Entry(Subject subject, int term, Grade grade) {
+            this.subject = subject;
+            this.term = term;
+            this.grade = grade;
+        }
+
+        Subject getSubject() {
+            return subject;
+        }
+
+        int getTerm() {
+            return term;
+        }
+
+        Grade getGrade() {
+            return grade;
+        }
+
+        @Override
+        public String toString() {
+            return subject + " (" + term + "): " + grade;
+        }
+    }
+
+    private long[] entries = new long[8];
+    private Subject[] subjects = new Subject[8];
+    private int size;
+    private final BitSet passed = new BitSet();
+    private long version;
+
+    /**
+     * Posts a grade. A grade for a subject and term that already has one replaces it, e.g. when an
+     * incomplete is completed.
+     * @param subject   The subject.
+     * @param term      The term the subject was taken, from 0 to {@link #MAX_TERM}.
+     * @param grade     The grade.
+     */
+    void post(Subject subject, int term, Grade grade) {
+        requireNonNull(subject, "Subject cannot be null");
+        requireNonNull(grade, "Grade cannot be null");
+        inclusiveBetween(0, MAX_TERM, term, "Term must be from 0 to " + MAX_TERM + ", was: " + term);
+        int index = subject.getIndex();
+        long key = key(index, term);
+        long entry = key | grade.ordinal();
+
+        boolean replaced = false;
+        for (int i = 0; i < size; i++) {
+            if ((entries[i] & ~0xFFL) == key) {
+                entries[i] = entry;
+                subjects[i] = subject;
+                replaced = true;
+                break;
+            }
+        }
+        if (!replaced) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+                subjects = Arrays.copyOf(subjects, size * 2);
+            }
+            entries[size] = entry;
+            subjects[size] = subject;
+            size++;
+        }
+
+        if (grade.isPassing()) {
+            passed.set(index);
+        } else if (replaced && passed.get(index)) {
+            passed.set(index, hasPassingEntry(index));
+        }
+        version++;
+    }
+
+    /**
+     * Checks if the subject has been passed.
+     * @param subject   The subject.
+     * @return          true if any grade posted for the subject is passing.
+     */
+    boolean hasPassed(Subject subject) {
+        requireNonNull(subject, "Subject cannot be null");
+        return passed.get(subject.getIndex());
+    }
+
+    /**
+     * Checks that every prerequisite of a subject has been passed.
+     * @param subject   The subject to be taken.
+     */
+    void checkPrerequisites(Subject subject) {
+        requireNonNull(subject, "Subject cannot be null");
+        subject.checkPrerequisites(passed);
+    }
+
+    /**
+     * Checks a subject's corequisites and exclusions against a student's load for the term.
+     * @param subject   The subject to be taken.
+     * @param load      The subjects the student would be enlisted in, as a bitset over {@link Subject#getIndex()}.
+     */
+    void checkCorequisitesAndExclusions(Subject subject, BitSet load) {
+        requireNonNull(subject, "Subject cannot be null");
+        subject.checkCorequisitesAndExclusions(load, passed);
+    }
+
+    /**
+     * Gets the passed subjects.
+     * @return      A copy of the passed subjects as a bitset over {@link Subject#getIndex()}.
+     */
+    BitSet getPassedSubjects() {
+        return (BitSet) passed.clone();
+    }
+
+    /**
+     * Gets every subject with a grade, passed or not.
+     * @return      The subjects taken.
+     */
+    Collection<Subject> getSubjectsTaken() {
+        Set<Subject> taken = new LinkedHashSet<>();
+        for (int i = 0; i < size; i++) {
+            taken.add(subjects[i]);
+        }
+        return taken;
+    }
+
+    /**
+     * Gets the entries in the order they were first posted.
+     * @return      The entries.
+     */
+    List<Entry> getEntries() {
+        List<Entry> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long entry = entries[i];
+            result.add(new Entry(subjects[i],
+                    (int) ((entry >>> 8) & MAX_TERM), GRADES[(int) (entry & 0xFF)]));
+        }
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Gets the version of the transcript; every posted grade adds one.
+     * @return      The version.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    private boolean hasPassingEntry(int subjectIndex) {
+        for (int i = 0; i < size; i++) {
+            if ((int) (entries[i] >>> 32) == subjectIndex && GRADES[(int) (entries[i] & 0xFF)].isPassing()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(int subjectIndex, int term) {
+        return ((long) subjectIndex << 32) | ((long) term << 8);
+    }
+}
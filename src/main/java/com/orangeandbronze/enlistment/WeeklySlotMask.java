@@ -0,0 +1,141 @@
+package com.orangeandbronze.enlistment;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * An immutable set of five-minute slots across the seven days of the week, stored as a bitmask.
+ * <p>
+ * The whole week is 2016 slots, which fit in 32 longs. Each mask also remembers the range of
+ * words that hold any slots, so checking two typical schedules for overlap touches only a few words
+ * no matter how many meetings the schedules have.
+ */
+final class WeeklySlotMask {
+    static final int MINUTES_PER_SLOT = 5;
+    static final int SLOTS_PER_DAY = 24 * 60 / MINUTES_PER_SLOT;
+    static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    private static final int WORDS = (SLOTS_PER_WEEK + 63) / 64;
+
+    static final WeeklySlotMask EMPTY = new WeeklySlotMask(new long[WORDS]);
+
+    private final long[] words;
+    private final int firstWord;
+    private final int lastWord;
+    private final int hash;
+
+    private WeeklySlotMask(long[] words) {
+        this.words = words;
+        int first = -1;
+        int last = -2;
+        for (int i = 0; i < words.length; i++) {
+            if (words[i] != 0) {
+                if (first < 0) {
+                    first = i;
+                }
+                last = i;
+            }
+        }
+        this.firstWord = first < 0 ? 0 : first;
+        this.lastWord = last;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    /**
+     * Creates a mask covering a range of slots on one day.
+     * @param day           The day.
+     * @param startSlot     The first slot of the day covered, inclusive.
+     * @param endSlot       The slot of the day where coverage ends, exclusive.
+     * @return              The mask.
+     */
+    static WeeklySlotMask of(DayOfWeek day, int startSlot, int endSlot) {
+        isTrue(0 <= startSlot && startSlot <= endSlot && endSlot <= SLOTS_PER_DAY,
+                "Slots must be within the day and start before they end, were: " + startSlot + " to " + endSlot);
+        long[] words = new long[WORDS];
+        int offset = (day.getValue() - 1) * SLOTS_PER_DAY;
+        setRange(words, offset + startSlot, offset + endSlot);
+        return new WeeklySlotMask(words);
+    }
+
+    /**
+     * Checks if the two masks share any slot.
+     * @param other     The other mask.
+     * @return          true if there is a shared slot, false otherwise.
+     */
+    boolean intersects(WeeklySlotMask other) {
+        int from = Math.max(firstWord, other.firstWord);
+        int to = Math.min(lastWord, other.lastWord);
+        for (int i = from; i <= to; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a mask holding the slots of both masks.
+     * @param other     The other mask.
+     * @return          The union.
+     */
+    WeeklySlotMask or(WeeklySlotMask other) {
+        long[] union = words.clone();
+        for (int i = other.firstWord; i <= other.lastWord; i++) {
+            union[i] |= other.words[i];
+        }
+        return new WeeklySlotMask(union);
+    }
+
+    /**
+     * Returns a mask holding the slots of this mask that are not in the other.
+     * @param other     The other mask.
+     * @return          The difference.
+     */
+    WeeklySlotMask andNot(WeeklySlotMask other) {
+        long[] difference = words.clone();
+        for (int i = other.firstWord; i <= other.lastWord; i++) {
+            difference[i] &= ~other.words[i];
+        }
+        return new WeeklySlotMask(difference);
+    }
+
+    boolean isEmpty() {
+        return lastWord < 0;
+    }
+
+    /**
+     * Gets the number of slots in the mask.
+     * @return      The number of slots.
+     */
+    int cardinality() {
+        int count = 0;
+        for (int i = firstWord; i <= lastWord; i++) {
+            count += Long.bitCount(words[i]);
+        }
+        return count;
+    }
+
+    private static void setRange(long[] words, int from, int to) {
+        for (int bit = from; bit < to; ) {
+            int word = bit >>> 6;
+            int end = Math.min(to, (word + 1) << 6);
+            long mask = (end - bit == 64 ? -1L : ((1L << (end - bit)) - 1)) << (bit & 63);
+            words[word] |= mask;
+            bit = end;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WeeklySlotMask that = (WeeklySlotMask) o;
+        return hash == that.hash && Arrays.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,69 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.Arrays;
+
+import static org.apache.commons.lang3.Validate.*;
+
+/**
+ * Counts events over a sliding time window split into fixed-width buckets.
+ * Counts older than the window fall out one bucket at a time, so adding and reading are
+ * constant time for a fixed number of buckets.
+ * <p>
+ * Not thread-safe; each counter is meant to be owned by a single updating thread.
+ */
+class WindowedCounter {
+    private final long bucketMillis;
+    private final long[] counts;
+    private long newestBucket;
+    private long total;
+
+    /**
+     * Creates a counter.
+     * @param windowMillis  The length of the sliding window in milliseconds.
+     * @param buckets       The number of buckets the window is split into.
+     */
+    WindowedCounter(long windowMillis, int buckets) {
+        isTrue(buckets > 0, "buckets must be greater than 0, was: " + buckets);
+        isTrue(windowMillis >= buckets, "windowMillis must be at least the number of buckets, was: " + windowMillis);
+        this.bucketMillis = windowMillis / buckets;
+        this.counts = new long[buckets];
+        this.newestBucket = Long.MIN_VALUE;
+    }
+
+    /**
+     * Adds to the count at the given time.
+     * @param nowMillis     The time of the events, in epoch milliseconds; should not go backwards.
+     * @param amount        The number of events.
+     */
+    void add(long nowMillis, long amount) {
+        advanceTo(nowMillis);
+        counts[(int) Math.floorMod(newestBucket, (long) counts.length)] += amount;
+        total += amount;
+    }
+
+    /**
+     * Gets the number of events within the window ending at the given time.
+     * @param nowMillis     The end of the window, in epoch milliseconds.
+     * @return              The count.
+     */
+    long get(long nowMillis) {
+        advanceTo(nowMillis);
+        return total;
+    }
+
+    private void advanceTo(long nowMillis) {
+        long bucket = Math.floorDiv(nowMillis, bucketMillis);
+        if (newestBucket == Long.MIN_VALUE || bucket - newestBucket >= counts.length) {
+            Arrays.fill(counts, 0);
+            total = 0;
+            newestBucket = bucket;
+            return;
+        }
+        while (newestBucket < bucket) {
+            newestBucket++;
+            int index = (int) Math.floorMod(newestBucket, (long) counts.length);
+            total -= counts[index];
+            counts[index] = 0;
+        }
+    }
+}
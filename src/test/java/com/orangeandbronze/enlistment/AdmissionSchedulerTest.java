@@ -0,0 +1,128 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionSchedulerTest {
+    static final Instant OPENING = Instant.parse("2024-08-01T08:00:00Z");
+
+    final Subject ADMSUBJ = new Subject("ADMSUBJ", 3, false);
+    final DegreeProgram BS_CS = new DegreeProgram("BS CS", Set.of(ADMSUBJ));
+    final AdmissionScheduler.PriorityWindow SENIORS = AdmissionScheduler.PriorityWindow.forYearLevels(
+            "Seniors", Set.of(4), OPENING, 2, 2);
+    final AdmissionScheduler.PriorityWindow OTHERS = AdmissionScheduler.PriorityWindow.forYearLevels(
+            "Others", Set.of(1, 2, 3), OPENING.plus(Duration.ofHours(1)), 1, 1);
+
+    Student student(int studentNo, int yearLevel) {
+        return new Student(studentNo, yearLevel, Collections.emptyList(), Collections.emptyList(), BS_CS);
+    }
+
+    @Test
+    void admits_in_order_at_window_rate() {
+        SettableClock clock = new SettableClock(OPENING);
+        AdmissionScheduler scheduler = new AdmissionScheduler(clock, List.of(SENIORS, OTHERS));
+        Student first = student(1, 4);
+        Student second = student(2, 4);
+        Student third = student(3, 4);
+        AdmissionScheduler.Ticket firstTicket = scheduler.request(first);
+        scheduler.request(second);
+        AdmissionScheduler.Ticket thirdTicket = scheduler.request(third);
+
+        assertTrue(scheduler.admit().isEmpty());
+        clock.advance(Duration.ofSeconds(1));
+        List<Student> admitted = scheduler.admit();
+        assertAll(
+                () -> assertEquals(List.of(first, second), admitted),
+                () -> assertTrue(firstTicket.getAdmission().isDone()),
+                () -> assertFalse(thirdTicket.getAdmission().isDone()),
+                () -> assertEquals(OPENING.plusMillis(1500), thirdTicket.getEstimatedAdmission()));
+        clock.advance(Duration.ofMillis(500));
+        assertEquals(List.of(third), scheduler.admit());
+    }
+
+    @Test
+    void later_window_waits_for_its_opening() {
+        SettableClock clock = new SettableClock(OPENING);
+        AdmissionScheduler scheduler = new AdmissionScheduler(clock, List.of(SENIORS, OTHERS));
+        Student freshman = student(1, 1);
+        AdmissionScheduler.Ticket ticket = scheduler.request(freshman);
+
+        clock.advance(Duration.ofMinutes(30));
+        assertAll(
+                () -> assertTrue(scheduler.admit().isEmpty()),
+                () -> assertEquals(OTHERS, ticket.getWindow()),
+                () -> assertEquals(OTHERS.getOpensAt().plusSeconds(1), ticket.getEstimatedAdmission()));
+        clock.advance(Duration.ofMinutes(30).plusSeconds(1));
+        assertEquals(List.of(freshman), scheduler.admit());
+        assertTrue(scheduler.isAdmitted(freshman));
+    }
+
+    @Test
+    void asking_again_keeps_place_in_line() {
+        SettableClock clock = new SettableClock(OPENING);
+        AdmissionScheduler scheduler = new AdmissionScheduler(clock, List.of(SENIORS));
+        Student first = student(1, 4);
+        Student second = student(2, 4);
+        AdmissionScheduler.Ticket ticket = scheduler.request(first);
+        scheduler.request(second);
+
+        assertAll(
+                () -> assertSame(ticket, scheduler.request(first)),
+                () -> assertEquals(2, scheduler.getWaiting(SENIORS)));
+        clock.advance(Duration.ofMillis(500));
+        assertEquals(List.of(first), scheduler.admit());
+    }
+
+    @Test
+    void student_outside_every_window_rejected() {
+        AdmissionScheduler scheduler = new AdmissionScheduler(new SettableClock(OPENING), List.of(SENIORS));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.request(student(1, 1)));
+    }
+
+    @Test
+    void dispatcher_holds_enlistment_until_student_is_admitted() throws Exception {
+        SettableClock clock = new SettableClock(OPENING);
+        AdmissionScheduler scheduler = new AdmissionScheduler(clock, List.of(SENIORS, OTHERS));
+        Section section = new Section("A", Schedule.of(Days.MTH, Period.of(8, true, 10, false)),
+                new Room("X", 10, Collections.emptyList()), ADMSUBJ);
+        Student freshman = student(1, 1);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100)) {
+            dispatcher.setAdmissionScheduler(scheduler);
+            CompletableFuture<Void> enlisted = dispatcher.enlist(freshman, section);
+            Thread.sleep(50);
+            assertAll(
+                    () -> assertFalse(enlisted.isDone()),
+                    () -> assertEquals(1, scheduler.getWaiting(OTHERS)),
+                    () -> assertEquals(0, section.getNumberOfEnlisted()),
+                    () -> assertTrue(freshman.getSections().isEmpty()));
+
+            clock.advance(Duration.ofHours(1).plusSeconds(1));
+            scheduler.admit();
+            enlisted.get(5, TimeUnit.SECONDS);
+            assertEquals(List.of(section), List.copyOf(freshman.getSections()));
+        }
+    }
+
+    @Test
+    void dispatcher_fails_enlistment_of_student_outside_every_window() {
+        AdmissionScheduler scheduler = new AdmissionScheduler(new SettableClock(OPENING), List.of(SENIORS));
+        Section section = new Section("A", Schedule.of(Days.MTH, Period.of(8, true, 10, false)),
+                new Room("X", 10, Collections.emptyList()), ADMSUBJ);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100)) {
+            dispatcher.setAdmissionScheduler(scheduler);
+            CompletableFuture<Void> enlisted = dispatcher.enlist(student(1, 1), section);
+            assertTrue(enlisted.isCompletedExceptionally());
+        }
+    }
+}
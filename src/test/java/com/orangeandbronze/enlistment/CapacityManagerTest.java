@@ -0,0 +1,196 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityManagerTest {
+    final Schedule MTH_0830 = Schedule.of(Days.MTH, Period.of(8, true, 10, false));
+    final Schedule TF_0830 = Schedule.of(Days.TF, Period.of(8, true, 10, false));
+    final Subject MTH101A = new Subject("MTH101A", 3, false);
+    final Subject CCPROG1 = new Subject("CCPROG1", 3, true);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(MTH101A, CCPROG1)));
+
+    @Test
+    void overflow_section_is_opened_for_students_turned_away_from_full_section() throws Exception {
+        Room full = new Room("FULL", 1, Collections.emptyList());
+        Room spare = new Room("SPARE", 5, Collections.emptyList());
+        Section section = new Section("A", MTH_0830, full, MTH101A);
+        full.reserve(MTH_0830);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(full, spare), List.of(MTH_0830),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 2, true)) {
+            dispatcher.addListener(manager);
+            Student first = new Student(1, BS_CS_ST);
+            Student second = new Student(2, BS_CS_ST);
+            Student third = new Student(3, BS_CS_ST);
+            dispatcher.enlist(first, section).get(5, TimeUnit.SECONDS);
+            CompletableFuture<Void> rejected1 = dispatcher.enlist(second, section);
+            CompletableFuture<Void> rejected2 = dispatcher.enlist(third, section);
+            assertThrows(Exception.class, () -> rejected1.get(5, TimeUnit.SECONDS));
+            assertThrows(Exception.class, () -> rejected2.get(5, TimeUnit.SECONDS));
+
+            var proposals = manager.evaluate();
+
+            assertEquals(1, proposals.size());
+            var proposal = proposals.get(0);
+            assertAll(
+                    () -> assertEquals(spare, proposal.getRoom()),
+                    () -> assertEquals(Set.of(second, third), new HashSet<>(proposal.getStudents())),
+                    () -> assertFalse(spare.isAvailable(MTH_0830)),
+                    () -> assertTrue(manager.getWaitlist(MTH101A).isEmpty())
+            );
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dispatcher.getInFlight() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertAll(
+                    () -> assertEquals(1, second.getSections().size()),
+                    () -> assertEquals(1, third.getSections().size())
+            );
+        }
+    }
+
+    @Test
+    void proposal_prefers_schedule_the_waitlisted_students_can_attend() {
+        Room full = new Room("FULL", 1, Collections.emptyList());
+        Room spare = new Room("SPARE", 5, Collections.emptyList());
+        Section section = new Section("A", TF_0830, full, MTH101A);
+        Section busy = new Section("B", MTH_0830, new Room("OTHER", 5, Collections.emptyList()), CCPROG1);
+        Student waiting = new Student(2, BS_CS_ST);
+        waiting.enlist(busy);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(spare), List.of(MTH_0830, TF_0830),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 1, false)) {
+            manager.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, waiting, section,
+                    new RoomCapacityReachedException("full"), Clock.systemUTC().instant()));
+
+            var proposals = manager.evaluate();
+
+            assertAll(
+                    () -> assertEquals(1, proposals.size()),
+                    () -> assertEquals(TF_0830, proposals.get(0).getSchedule()),
+                    () -> assertTrue(spare.isAvailable(TF_0830)),
+                    () -> assertEquals(List.of(waiting), manager.getWaitlist(MTH101A))
+            );
+        }
+    }
+
+    @Test
+    void freed_seat_goes_to_first_waitlisted_student() throws Exception {
+        Room full = new Room("FULL", 1, Collections.emptyList());
+        Section section = new Section("A", MTH_0830, full, MTH101A);
+        Section other = new Section("B", TF_0830, new Room("OTHER", 5, Collections.emptyList()), MTH101A);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(), List.of(),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 10, false)) {
+            dispatcher.addListener(manager);
+            Student leaving = new Student(1, BS_CS_ST);
+            Student waiting = new Student(2, BS_CS_ST);
+            dispatcher.enlist(leaving, section).get(5, TimeUnit.SECONDS);
+            assertThrows(Exception.class, () -> dispatcher.enlist(waiting, section).get(5, TimeUnit.SECONDS));
+            manager.evaluate();
+
+            dispatcher.swap(leaving, section, other).get(5, TimeUnit.SECONDS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (waiting.getSections().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertAll(
+                    () -> assertEquals(List.of(section), List.copyOf(waiting.getSections())),
+                    () -> assertEquals(List.of(other), List.copyOf(leaving.getSections())),
+                    () -> assertTrue(manager.getWaitlist(MTH101A).isEmpty())
+            );
+        }
+    }
+
+    @Test
+    void freed_seat_skips_waitlisted_student_who_got_the_subject_elsewhere() throws Exception {
+        Room full = new Room("FULL", 1, Collections.emptyList());
+        Section section = new Section("A", MTH_0830, full, MTH101A);
+        Section other = new Section("B", TF_0830, new Room("OTHER", 5, Collections.emptyList()), MTH101A);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(), List.of(),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 10, false)) {
+            dispatcher.addListener(manager);
+            Student leaving = new Student(1, BS_CS_ST);
+            Student stale = new Student(2, BS_CS_ST);
+            Student waiting = new Student(3, BS_CS_ST);
+            dispatcher.enlist(leaving, section).get(5, TimeUnit.SECONDS);
+            assertThrows(Exception.class, () -> dispatcher.enlist(stale, section).get(5, TimeUnit.SECONDS));
+            assertThrows(Exception.class, () -> dispatcher.enlist(waiting, section).get(5, TimeUnit.SECONDS));
+            manager.evaluate();
+            stale.enlist(other);
+
+            dispatcher.cancel(leaving, section).get(5, TimeUnit.SECONDS);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (waiting.getSections().isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertAll(
+                    () -> assertEquals(List.of(section), List.copyOf(waiting.getSections())),
+                    () -> assertEquals(List.of(other), List.copyOf(stale.getSections())),
+                    () -> assertTrue(manager.getWaitlist(MTH101A).isEmpty())
+            );
+        }
+    }
+
+    @Test
+    void proposals_in_one_evaluation_do_not_share_a_room_slot() {
+        Room spare = new Room("SPARE", 5, Collections.emptyList());
+        Section mathSection = new Section("A", MTH_0830, new Room("FULL1", 1, Collections.emptyList()), MTH101A);
+        Section progSection = new Section("B", MTH_0830, new Room("FULL2", 1, Collections.emptyList()), CCPROG1);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(spare), List.of(MTH_0830, TF_0830),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 1, true)) {
+            manager.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, new Student(1, BS_CS_ST), mathSection,
+                    new RoomCapacityReachedException("full"), Clock.systemUTC().instant()));
+            manager.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, new Student(2, BS_CS_ST), progSection,
+                    new RoomCapacityReachedException("full"), Clock.systemUTC().instant()));
+
+            var proposals = manager.evaluate();
+
+            assertAll(
+                    () -> assertEquals(2, proposals.size()),
+                    () -> assertNotEquals(proposals.get(0).getSchedule(), proposals.get(1).getSchedule()),
+                    () -> assertFalse(spare.isAvailable(MTH_0830)),
+                    () -> assertFalse(spare.isAvailable(TF_0830)),
+                    () -> assertTrue(manager.getWaitlist(MTH101A).isEmpty()),
+                    () -> assertTrue(manager.getWaitlist(CCPROG1).isEmpty())
+            );
+        }
+    }
+
+    @Test
+    void proposal_whose_room_slot_was_taken_keeps_its_waitlist() {
+        Room spare = new Room("SPARE", 5, Collections.emptyList());
+        Section section = new Section("A", MTH_0830, new Room("FULL", 1, Collections.emptyList()), MTH101A);
+        Student waiting = new Student(1, BS_CS_ST);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(spare), List.of(MTH_0830),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 1, false)) {
+            manager.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, waiting, section,
+                    new RoomCapacityReachedException("full"), Clock.systemUTC().instant()));
+            var proposal = manager.evaluate().get(0);
+            spare.reserve(MTH_0830);
+
+            assertThrows(ScheduleRoomConflictException.class, () -> manager.open(proposal));
+            assertEquals(List.of(waiting), manager.getWaitlist(MTH101A));
+        }
+    }
+}
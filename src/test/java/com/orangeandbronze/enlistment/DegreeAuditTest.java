@@ -0,0 +1,89 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DegreeAuditTest {
+    final Subject CCPROG1 = new Subject("CCPROG1", 3, true);
+    final Subject CCPROG2 = new Subject("CCPROG2", 3, true, List.of(CCPROG1));
+    final Subject CCPROG3 = new Subject("CCPROG3", 3, true, List.of(CCPROG2));
+    final Subject CSMATH1 = new Subject("CSMATH1", 3, false);
+    final Subject CCDSALG = new Subject("CCDSALG", 3, false, List.of(CCPROG2, CSMATH1));
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", List.of(CCPROG1, CCPROG2, CCPROG3, CSMATH1, CCDSALG));
+
+    @Test
+    void new_student_needs_every_subject_along_the_longest_chain() {
+        var result = new DegreeAudit(BS_CS_ST).audit(Collections.emptyList());
+
+        assertAll(
+                () -> assertEquals(5, result.getRemainingCount()),
+                () -> assertEquals(Set.of(CCPROG1, CSMATH1), Set.copyOf(result.getEligibleSubjects())),
+                () -> assertEquals(3, result.getMinimumTerms()),
+                () -> assertTrue(result.getUnreachableSubjects().isEmpty())
+        );
+    }
+
+    @Test
+    void passed_subjects_unlock_the_next_ones() {
+        var result = new DegreeAudit(BS_CS_ST).audit(List.of(CCPROG1, CCPROG2));
+
+        assertAll(
+                () -> assertEquals(Set.of(CCPROG3, CSMATH1, CCDSALG), Set.copyOf(result.getRemainingSubjects())),
+                () -> assertEquals(Set.of(CCPROG3, CSMATH1), Set.copyOf(result.getEligibleSubjects())),
+                () -> assertFalse(result.isEligible(CCDSALG)),
+                () -> assertEquals(2, result.getMinimumTerms())
+        );
+    }
+
+    @Test
+    void subject_depending_on_unpassed_subject_outside_the_program_is_unreachable() {
+        Subject GEMATMW = new Subject("GEMATMW", 3, false);
+        Subject STMATH = new Subject("STMATH", 3, false, List.of(GEMATMW));
+        DegreeProgram BS_MATH = new DegreeProgram("BS MATH", List.of(CSMATH1, STMATH));
+
+        var notPassed = new DegreeAudit(BS_MATH).audit(Collections.emptyList());
+        var passed = new DegreeAudit(BS_MATH).audit(List.of(GEMATMW));
+
+        assertAll(
+                () -> assertEquals(List.of(STMATH), notPassed.getUnreachableSubjects()),
+                () -> assertEquals(1, notPassed.getMinimumTerms()),
+                () -> assertTrue(passed.isEligible(STMATH))
+        );
+    }
+
+    @Test
+    void program_from_reloaded_catalog_gets_its_own_audit() {
+        Subject reloadedProg3 = new Subject("CCPROG3", 3, true, List.of(CCPROG1));
+        DegreeProgram reloaded = new DegreeProgram("BS CS-ST", List.of(CCPROG1, CCPROG2, reloadedProg3, CSMATH1, CCDSALG));
+
+        var before = DegreeAudit.forProgram(BS_CS_ST).audit(List.of(CCPROG1));
+        var after = DegreeAudit.forProgram(reloaded).audit(List.of(CCPROG1));
+
+        assertAll(
+                () -> assertEquals(BS_CS_ST, reloaded),
+                () -> assertSame(DegreeAudit.forProgram(BS_CS_ST), DegreeAudit.forProgram(BS_CS_ST)),
+                () -> assertFalse(before.isEligible(CCPROG3)),
+                () -> assertTrue(after.isEligible(reloadedProg3))
+        );
+    }
+
+    @Test
+    void batch_audit_keeps_student_order() {
+        List<Student> students = new ArrayList<>();
+        students.add(new Student(1, Collections.emptyList(), List.of(CCPROG1, CCPROG2, CCPROG3, CSMATH1), BS_CS_ST));
+        students.add(new Student(2, BS_CS_ST));
+
+        var results = DegreeAudit.auditAll(students);
+
+        assertAll(
+                () -> assertEquals(1, results.get(0).getMinimumTerms()),
+                () -> assertEquals(3, results.get(1).getMinimumTerms())
+        );
+    }
+}
@@ -0,0 +1,73 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DemandForecasterTest {
+    final Subject CCPROG1 = new Subject("CCPROG1", 3, true);
+    final Subject CCPROG2 = new Subject("CCPROG2", 3, true, List.of(CCPROG1));
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", List.of(CCPROG1, CCPROG2));
+
+    @Test
+    void counts_follow_transcript_changes_incrementally() {
+        DemandForecaster forecaster = new DemandForecaster(1.0);
+        Student freshman = new Student(1, BS_CS_ST);
+        Student sophomore = new Student(2, Collections.emptyList(), List.of(CCPROG1), BS_CS_ST);
+        forecaster.markAllChanged(List.of(freshman, sophomore));
+        forecaster.refresh();
+
+        assertAll(
+                () -> assertEquals(1, forecaster.getEligibleCount(CCPROG1)),
+                () -> assertEquals(1, forecaster.getEligibleCount(CCPROG2))
+        );
+
+        forecaster.remove(sophomore);
+        int reaudited = forecaster.refresh();
+
+        assertAll(
+                () -> assertEquals(0, reaudited),
+                () -> assertEquals(1, forecaster.getEligibleCount(CCPROG1)),
+                () -> assertEquals(0, forecaster.getEligibleCount(CCPROG2))
+        );
+    }
+
+    @Test
+    void posted_grades_are_picked_up_without_marking_the_student() {
+        DemandForecaster forecaster = new DemandForecaster(1.0);
+        Student freshman = new Student(1, BS_CS_ST);
+        Student other = new Student(2, BS_CS_ST);
+        forecaster.markAllChanged(List.of(freshman, other));
+        forecaster.refresh();
+
+        freshman.postGrade(CCPROG1, 1, Grade.PASSED);
+        int reaudited = forecaster.refresh();
+
+        assertAll(
+                () -> assertEquals(1, reaudited),
+                () -> assertEquals(1, forecaster.getEligibleCount(CCPROG1)),
+                () -> assertEquals(1, forecaster.getEligibleCount(CCPROG2)),
+                () -> assertEquals(0, forecaster.refresh())
+        );
+    }
+
+    @Test
+    void recommends_smallest_rooms_that_seat_expected_students() {
+        DemandForecaster forecaster = new DemandForecaster(0.5);
+        for (int studentNo = 0; studentNo < 130; studentNo++) {
+            forecaster.markChanged(new Student(studentNo, BS_CS_ST));
+        }
+        forecaster.refresh();
+
+        var recommendation = forecaster.recommend(CCPROG1, List.of(20, 40, 50));
+
+        assertAll(
+                () -> assertEquals(130, recommendation.getEligibleStudents()),
+                () -> assertEquals(65, recommendation.getExpectedStudents()),
+                () -> assertEquals(List.of(50, 20), recommendation.getRoomCapacities())
+        );
+    }
+}
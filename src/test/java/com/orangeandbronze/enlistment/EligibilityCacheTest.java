@@ -0,0 +1,85 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EligibilityCacheTest {
+    final Subject PROG1 = new Subject("ELIGPROG1", 3, false);
+    final Subject PROG2 = new Subject("ELIGPROG2", 3, false, List.of(PROG1));
+    final Subject OUTSIDE = new Subject("ELIGOUT", 3, false);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(PROG1, PROG2)));
+
+    Section section(String id, Subject subject, Days days) {
+        return new Section(id, Schedule.of(days, Period.of(8, true, 10, false)),
+                new Room("R" + id, 10, Collections.emptyList()), subject);
+    }
+
+    @Test
+    void browse_shows_only_eligible_sections() {
+        EligibilityCache cache = new EligibilityCache(10);
+        Student student = new Student(1, BS_CS_ST);
+        Section prog1 = section("A", PROG1, Days.MTH);
+        Section prog2 = section("B", PROG2, Days.TF);
+        Section outside = section("C", OUTSIDE, Days.WS);
+
+        assertAll(
+                () -> assertEquals(List.of(prog1), cache.filterEligible(student, List.of(prog1, prog2, outside))),
+                () -> assertTrue(cache.isEligible(student, PROG1)),
+                () -> assertFalse(cache.isEligible(student, PROG2)),
+                () -> assertEquals(1, cache.getMisses()),
+                () -> assertEquals(2, cache.getHits()));
+    }
+
+    @Test
+    void enlisting_and_grades_invalidate_the_entry() {
+        EligibilityCache cache = new EligibilityCache(10);
+        Student student = new Student(1, BS_CS_ST);
+        Section prog1 = section("A", PROG1, Days.MTH);
+        assertTrue(cache.isEligible(student, PROG1));
+
+        student.enlist(prog1);
+        assertFalse(cache.isEligible(student, PROG1));
+
+        student.cancelEnlistment(prog1);
+        student.postGrade(PROG1, 20231, Grade.TWO);
+        assertAll(
+                () -> assertTrue(cache.isEligible(student, PROG2)),
+                () -> assertEquals(3, cache.getMisses()));
+    }
+
+    @Test
+    void least_recently_used_student_evicted() {
+        EligibilityCache cache = new EligibilityCache(2);
+        Student first = new Student(1, BS_CS_ST);
+        Student second = new Student(2, BS_CS_ST);
+        Student third = new Student(3, BS_CS_ST);
+        cache.isEligible(first, PROG1);
+        cache.isEligible(second, PROG1);
+        cache.isEligible(first, PROG1);
+        cache.isEligible(third, PROG1);
+
+        cache.isEligible(first, PROG1);
+        assertAll(
+                () -> assertEquals(2, cache.size()),
+                () -> assertEquals(1, cache.getEvictions()),
+                () -> assertEquals(2, cache.getHits()));
+    }
+
+    @Test
+    void large_cache_keeps_at_most_max_students_over_its_stripes() {
+        int maxStudents = EligibilityCache.MAX_STRIPES * EligibilityCache.MIN_STUDENTS_PER_STRIPE + 5;
+        EligibilityCache cache = new EligibilityCache(maxStudents);
+        for (int i = 0; i < maxStudents * 2; i++) {
+            cache.isEligible(new Student(i, BS_CS_ST), PROG1);
+        }
+        assertAll(
+                () -> assertTrue(cache.size() <= maxStudents),
+                () -> assertEquals(maxStudents * 2L, cache.size() + cache.getEvictions()),
+                () -> assertEquals(maxStudents * 2L, cache.getMisses()));
+    }
+}
@@ -0,0 +1,131 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentDispatcherTest {
+    final Schedule MTH_0830 = new Schedule(Days.MTH, new Period(8, true, 10, false));
+    final Subject MTH101A = new Subject("MTH101A", 3, false);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(MTH101A)));
+
+    @Test
+    void enlist_and_assess_through_dispatcher() throws Exception {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.enlist(student, section).get(5, TimeUnit.SECONDS);
+            BigDecimal assessment = dispatcher.requestAssessment(student).get(5, TimeUnit.SECONDS);
+
+            assertAll(
+                    () -> assertTrue(student.getSections().contains(section)),
+                    () -> assertEquals(new BigDecimal("10080.00"), assessment)
+            );
+        }
+    }
+
+    @Test
+    void rejection_is_reported_through_the_future() {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> dispatcher.cancel(student, section).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(CancellingUnenlistedSectionException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void commands_beyond_max_in_flight_are_rejected() throws Exception {
+        ExecutorService blocked = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        blocked.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(blocked, 1)) {
+            CompletableFuture<BigDecimal> admitted = dispatcher.requestAssessment(new Student(1, BS_CS_ST));
+            CompletableFuture<BigDecimal> rejected = dispatcher.requestAssessment(new Student(2, BS_CS_ST));
+
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(DispatcherSaturatedException.class, e.getCause());
+
+            release.countDown();
+            admitted.get(5, TimeUnit.SECONDS);
+            assertEquals(0, dispatcher.getInFlight());
+        }
+    }
+
+    @Test
+    void concurrent_enlistments_never_oversell_a_section() throws Exception {
+        final int CAP = 25;
+        Section section = new Section("A", MTH_0830, new Room("X", CAP, Collections.emptyList()), MTH101A);
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(1000)) {
+            for (int studentNo = 0; studentNo < 200; studentNo++) {
+                results.add(dispatcher.enlist(new Student(studentNo, BS_CS_ST), section));
+            }
+            long enlisted = results.stream().filter(future -> {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                    return true;
+                } catch (Exception e) {
+                    return false;
+                }
+            }).count();
+
+            assertAll(
+                    () -> assertEquals(CAP, enlisted),
+                    () -> assertEquals(CAP, section.getNumberOfEnlisted())
+            );
+        }
+    }
+
+    @Test
+    void event_assessment_is_of_the_committed_state() throws Exception {
+        Subject CCPROG1 = new Subject("DSPPROG1", 3, false);
+        Student student = new Student(1, new DegreeProgram("BS CS-ST", new HashSet<>(List.of(MTH101A, CCPROG1))));
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section other = new Section("B", new Schedule(Days.TF, new Period(8, true, 10, false)),
+                new Room("Y", 10, Collections.emptyList()), CCPROG1);
+        student.enlist(section);
+        // another command on the student commits while the cancellation is still running
+        section.addSeatListener(freed -> student.enlist(other));
+        List<EnlistmentEvent> events = new CopyOnWriteArrayList<>();
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.addListener(new EnlistmentListener() {
+                @Override
+                public void onEvent(EnlistmentEvent event) {
+                    events.add(event);
+                }
+
+                @Override
+                public boolean needsAssessment() {
+                    return true;
+                }
+            });
+            dispatcher.cancel(student, section).get(5, TimeUnit.SECONDS);
+        }
+
+        EnlistmentEvent cancelled = events.get(0);
+        assertAll(
+                () -> assertEquals(List.of(other), List.copyOf(student.getSections())),
+                () -> assertTrue(cancelled.getState().getSections().isEmpty()),
+                () -> assertEquals(new BigDecimal("3360.00"), cancelled.getAssessment()));
+    }
+}
@@ -0,0 +1,137 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentEventStreamTest {
+    final Schedule MTH_0830 = Schedule.of(Days.MTH, Period.of(8, true, 10, false));
+    final Subject STRM101 = new Subject("STRM101", 3, false);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(STRM101)));
+
+    static final class Collector implements Flow.Subscriber<EnlistmentEventStream.Change> {
+        final List<EnlistmentEventStream.Change> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final long initialRequest;
+
+        Collector(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (initialRequest > 0) {
+                subscription.request(initialRequest);
+            }
+        }
+
+        @Override
+        public void onNext(EnlistmentEventStream.Change item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    @Test
+    void enlistment_and_cancellation_are_streamed() throws Exception {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), STRM101);
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        EnlistmentEventStream stream = new EnlistmentEventStream(delivery, 16);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        stream.subscribe(collector);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.addListener(stream);
+            dispatcher.enlist(student, section).get(5, TimeUnit.SECONDS);
+            dispatcher.requestAssessment(student).get(5, TimeUnit.SECONDS);
+            dispatcher.cancel(student, section).get(5, TimeUnit.SECONDS);
+        }
+        stream.close();
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+        delivery.shutdown();
+
+        List<EnlistmentEventStream.Change> changes = collector.received;
+        assertAll(
+                () -> assertEquals(List.of(
+                        EnlistmentEventStream.Change.Type.ENLISTED,
+                        EnlistmentEventStream.Change.Type.SEATS_CHANGED,
+                        EnlistmentEventStream.Change.Type.ASSESSMENT_CHANGED,
+                        EnlistmentEventStream.Change.Type.CANCELLED,
+                        EnlistmentEventStream.Change.Type.SEATS_CHANGED,
+                        EnlistmentEventStream.Change.Type.ASSESSMENT_CHANGED),
+                        changes.stream().map(EnlistmentEventStream.Change::getType).collect(Collectors.toList())),
+                () -> assertEquals(1, changes.get(1).getSeatsTaken()),
+                () -> assertEquals(10, changes.get(1).getCapacity()),
+                () -> assertEquals(new BigDecimal("10080.00"), changes.get(2).getAssessment()),
+                () -> assertEquals(0, changes.get(4).getSeatsTaken()),
+                () -> assertEquals(new BigDecimal("3360.00"), changes.get(5).getAssessment()),
+                () -> assertEquals(0, stream.getDroppedChanges()));
+    }
+
+    @Test
+    void older_assessment_arriving_late_is_dropped() throws Exception {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), STRM101);
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        EnlistmentEventStream stream = new EnlistmentEventStream(delivery, 16);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        stream.subscribe(collector);
+
+        EnlistmentState enlisted = student.enlist(section);
+        EnlistmentState cancelled = student.cancelEnlistment(section);
+        // the cancellation's thread publishes first
+        stream.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.CANCELLED, student, section, null,
+                student.assess(cancelled), cancelled, Instant.EPOCH));
+        stream.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.ENLISTED, student, section, null,
+                student.assess(enlisted), enlisted, Instant.EPOCH));
+        stream.close();
+        assertTrue(collector.completed.await(5, TimeUnit.SECONDS));
+        delivery.shutdown();
+
+        List<EnlistmentEventStream.Change> assessments = collector.received.stream()
+                .filter(change -> change.getType() == EnlistmentEventStream.Change.Type.ASSESSMENT_CHANGED)
+                .collect(Collectors.toList());
+        assertAll(
+                () -> assertEquals(1, assessments.size()),
+                () -> assertEquals(new BigDecimal("3360.00"), assessments.get(0).getAssessment()),
+                () -> assertEquals(cancelled.getVersion(), assessments.get(0).getVersion()));
+    }
+
+    @Test
+    void slow_subscriber_drops_instead_of_blocking() throws Exception {
+        ExecutorService delivery = Executors.newSingleThreadExecutor();
+        EnlistmentEventStream stream = new EnlistmentEventStream(delivery, 1);
+        Collector slow = new Collector(0);
+        stream.subscribe(slow);
+        Student student = new Student(1, BS_CS_ST);
+        Section section = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), STRM101);
+
+        for (int i = 0; i < 20; i++) {
+            stream.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.ENLISTED, student, section, null,
+                    Instant.EPOCH));
+        }
+        stream.close();
+        delivery.shutdown();
+        assertAll(
+                () -> assertTrue(slow.received.isEmpty()),
+                () -> assertEquals(39, stream.getDroppedChanges()));
+    }
+}
@@ -0,0 +1,200 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentExporterTest {
+    final Subject SUBJ1 = new Subject("EXP101", 3, false);
+    final Subject SUBJ2 = new Subject("EXP102", 3, true);
+    final DegreeProgram PROGRAM = new DegreeProgram("BS EXP", Set.of(SUBJ1, SUBJ2));
+
+    private List<Student> students() {
+        Section section1 = new Section("EXPA", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("EXPX", 10, Collections.emptyList()), SUBJ1);
+        Section section2 = new Section("EXPB", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("EXPY", 10, Collections.emptyList()), SUBJ2);
+        List<Student> students = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Student student = new Student(i, PROGRAM);
+            if (i % 2 == 1) {
+                student.enlist(section1);
+            }
+            if (i >= 3) {
+                student.enlist(section2);
+            }
+            students.add(student);
+        }
+        return students;
+    }
+
+    @Test
+    void csv_shards_hold_every_student_in_order() throws IOException {
+        List<Student> students = students();
+        Path directory = Files.createTempDirectory("export");
+        try {
+            EnlistmentExporter.Result result = new EnlistmentExporter(EnlistmentExporter.Format.CSV, 2, 2, 1024)
+                    .export(students, directory, "enlistment");
+
+            List<String> rows = new ArrayList<>();
+            for (Path shard : result.getShards()) {
+                List<String> lines = Files.readAllLines(shard, StandardCharsets.US_ASCII);
+                assertEquals(EnlistmentExporter.CSV_HEADER.trim(), lines.get(0));
+                rows.addAll(lines.subList(1, lines.size()));
+            }
+            long bytes = 0;
+            for (Path shard : result.getShards()) {
+                bytes += Files.size(shard);
+            }
+            long totalBytes = bytes;
+            assertAll(
+                    () -> assertEquals(3, result.getShards().size()),
+                    () -> assertEquals(5, result.getRows()),
+                    () -> assertEquals(totalBytes, result.getBytes()),
+                    () -> assertEquals("1,1,3," + students.get(0).requestAssessment() + ",EXPA", rows.get(0)),
+                    () -> assertEquals("2,0,0," + students.get(1).requestAssessment() + ",", rows.get(1)),
+                    () -> assertEquals("3,2,6," + students.get(2).requestAssessment() + ",EXPA;EXPB", rows.get(2)),
+                    () -> assertEquals("4,1,3," + students.get(3).requestAssessment() + ",EXPB", rows.get(3)),
+                    () -> assertEquals("5,2,6," + students.get(4).requestAssessment() + ",EXPA;EXPB", rows.get(4)));
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void binary_rows_read_back() throws IOException {
+        List<Student> students = students();
+        Path directory = Files.createTempDirectory("export");
+        try {
+            EnlistmentExporter.Result result = new EnlistmentExporter(EnlistmentExporter.Format.BINARY, 10, 1, 1024)
+                    .export(students, directory, "enlistment");
+
+            assertEquals(1, result.getShards().size());
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(result.getShards().get(0)))) {
+                for (Student student : students) {
+                    assertEquals(student.getStudentNo(), in.readInt());
+                    assertEquals(student.getEnlistmentState().getVersion(), in.readLong());
+                    assertEquals(student.getTotalUnitsEnlisted(), in.readInt());
+                    assertEquals(student.requestAssessment(), BigDecimal.valueOf(in.readLong(), 2));
+                    List<String> sections = new ArrayList<>();
+                    for (int i = in.readShort(); i > 0; i--) {
+                        sections.add(new String(in.readNBytes(in.readShort()), StandardCharsets.UTF_8));
+                    }
+                    assertEquals(student.getSections().stream().map(Section::toString).collect(Collectors.toList()), sections);
+                }
+                assertEquals(-1, in.read());
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void failed_export_leaves_no_shard_files() throws IOException {
+        List<Student> students = students();
+        Path directory = Files.createTempDirectory("export");
+        try {
+            // a directory where the second shard belongs cannot be opened as a file
+            Files.createDirectory(directory.resolve("enlistment-00001.csv"));
+            EnlistmentExporter exporter = new EnlistmentExporter(EnlistmentExporter.Format.CSV, 2, 2, 1024);
+
+            assertThrows(IOException.class, () -> exporter.export(students, directory, "enlistment"));
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(List.of(directory.resolve("enlistment-00001.csv")), files.collect(Collectors.toList()));
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void rows_agree_with_themselves_while_enlistment_is_live() throws Exception {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(7, 40, 2, 10, 2_000);
+        List<Student> students = catalog.getStudents();
+        List<Section> sections = catalog.getSections();
+        Map<String, Integer> unitsBySection = sections.stream().collect(Collectors.toMap(Section::toString, Section::getSubjectUnits));
+        Path directory = Files.createTempDirectory("export");
+        Thread enlister = new Thread(() -> {
+            Random random = new Random(7);
+            for (int i = 0; i < 50_000; i++) {
+                try {
+                    students.get(random.nextInt(students.size())).enlist(sections.get(random.nextInt(sections.size())));
+                } catch (RuntimeException e) {
+                    // rejections are expected
+                }
+            }
+        });
+        try {
+            enlister.start();
+            EnlistmentExporter.Result result = new EnlistmentExporter(EnlistmentExporter.Format.CSV, 250, 4, 4096)
+                    .export(students, directory, "live");
+            enlister.join();
+
+            assertEquals(students.size(), result.getRows());
+            for (Path shard : result.getShards()) {
+                try (InputStream in = Files.newInputStream(shard)) {
+                    List<String> lines = new String(in.readAllBytes(), StandardCharsets.US_ASCII).lines().skip(1).collect(Collectors.toList());
+                    for (String line : lines) {
+                        String[] fields = line.split(",", -1);
+                        int units = fields[4].isEmpty() ? 0 : Arrays.stream(fields[4].split(";")).mapToInt(unitsBySection::get).sum();
+                        assertEquals(Integer.parseInt(fields[2]), units, line);
+                    }
+                }
+            }
+        } finally {
+            enlister.join();
+            deleteRecursively(directory);
+        }
+    }
+
+    @Test
+    void seat_passed_between_students_is_never_exported_twice() throws Exception {
+        Section section = new Section("EXPC", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("EXPZ", 1, Collections.emptyList()), SUBJ1);
+        List<Student> students = List.of(new Student(1, PROGRAM), new Student(2, PROGRAM));
+        Path directory = Files.createTempDirectory("export");
+        AtomicBoolean exporting = new AtomicBoolean(true);
+        Thread passer = new Thread(() -> {
+            while (exporting.get()) {
+                for (Student student : students) {
+                    student.enlist(section);
+                    student.cancelEnlistment(section);
+                }
+            }
+        });
+        try {
+            passer.start();
+            EnlistmentExporter exporter = new EnlistmentExporter(EnlistmentExporter.Format.CSV, 1, 2, 1024);
+            for (int i = 0; i < 200; i++) {
+                EnlistmentExporter.Result result = exporter.export(students, directory, "seat");
+                long rows = 0;
+                for (Path shard : result.getShards()) {
+                    rows += Files.readAllLines(shard, StandardCharsets.US_ASCII).stream().filter(line -> line.endsWith(",EXPC")).count();
+                }
+                assertTrue(rows <= 1, "export " + i + " has " + rows + " rows in a section of 1 seat");
+            }
+        } finally {
+            exporting.set(false);
+            passer.join();
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,177 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentHistoryTest {
+    final Instant T0 = Instant.parse("2026-06-01T09:00:00Z");
+
+    final Subject SUBJ1 = new Subject("HIS101", 3, false);
+    final Subject SUBJ2 = new Subject("HIS102", 3, false);
+    final Subject SUBJ3 = new Subject("HIS103", 3, false);
+    final DegreeProgram PROGRAM = new DegreeProgram("BS HIS", Set.of(SUBJ1, SUBJ2, SUBJ3));
+
+    final Section SECTION_A = new Section("HISA", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("HISX", 10, Collections.emptyList()), SUBJ1);
+    final Section SECTION_B = new Section("HISB", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("HISY", 10, Collections.emptyList()), SUBJ2);
+    final Section SECTION_C = new Section("HISC", Schedule.of(Days.WS, Period.of(8, true, 10, false)), new Room("HISZ", 10, Collections.emptyList()), SUBJ3);
+
+    private static EnlistmentEvent event(EnlistmentEvent.Type type, Student student, Section section, EnlistmentState state, Instant at) {
+        return new EnlistmentEvent(type, student, section, null, null, state, at);
+    }
+
+    @Test
+    void sections_rebuilt_at_past_moments() {
+        EnlistmentHistory history = new EnlistmentHistory(2);
+        Student student = new Student(1, PROGRAM);
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_A, student.enlist(SECTION_A), T0.plusSeconds(60)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_B, student.enlist(SECTION_B), T0.plusSeconds(120)));
+        history.onEvent(event(EnlistmentEvent.Type.CANCELLED, student, SECTION_A, student.cancelEnlistment(SECTION_A), T0.plusSeconds(180)));
+        EnlistmentState swapped = student.swap(SECTION_B, SECTION_C);
+        history.onEvent(event(EnlistmentEvent.Type.CANCELLED, student, SECTION_B, swapped, T0.plusSeconds(240)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_C, swapped, T0.plusSeconds(240)));
+
+        assertAll(
+                () -> assertEquals(List.of(), history.getSectionsAt(student, T0)),
+                () -> assertEquals(List.of(SECTION_A), history.getSectionsAt(student, T0.plusSeconds(60))),
+                () -> assertEquals(List.of(SECTION_A, SECTION_B), history.getSectionsAt(student, T0.plusSeconds(150))),
+                () -> assertEquals(List.of(SECTION_B), history.getSectionsAt(student, T0.plusSeconds(200))),
+                () -> assertEquals(List.of(SECTION_C), history.getSectionsAt(student, T0.plusSeconds(300))),
+                () -> assertArrayEquals(new int[] {1}, history.getStudentsAt(SECTION_A, T0.plusSeconds(179))),
+                () -> assertArrayEquals(new int[0], history.getStudentsAt(SECTION_A, T0.plusSeconds(180))),
+                () -> assertEquals(5, history.size()));
+    }
+
+    @Test
+    void audit_returns_a_students_changes_in_a_period() {
+        EnlistmentHistory history = new EnlistmentHistory();
+        Student student = new Student(1, PROGRAM);
+        Student other = new Student(2, PROGRAM);
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_A, student.enlist(SECTION_A), T0.plusSeconds(60)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, other, SECTION_A, other.enlist(SECTION_A), T0.plusSeconds(90)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_B, student.enlist(SECTION_B), T0.plusSeconds(120)));
+        history.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, student, SECTION_C, new RoomCapacityReachedException("full"), T0.plusSeconds(150)));
+
+        List<EnlistmentHistory.Entry> entries = history.audit(student, T0.plusSeconds(60), T0.plusSeconds(120));
+        assertAll(
+                () -> assertEquals(1, entries.size()),
+                () -> assertEquals(SECTION_A, entries.get(0).getSection()),
+                () -> assertEquals(T0.plusSeconds(60), entries.get(0).getTimestamp()),
+                () -> assertEquals(EnlistmentEvent.Type.ENLISTED, entries.get(0).getType()),
+                () -> assertEquals(1, entries.get(0).getVersion()),
+                () -> assertEquals(2, history.audit(SECTION_A, T0, T0.plusSeconds(600)).size()),
+                () -> assertEquals(3, history.size()));
+    }
+
+    @Test
+    void events_published_out_of_order_kept_in_version_order() {
+        EnlistmentHistory history = new EnlistmentHistory(1);
+        Student student = new Student(1, PROGRAM);
+        Student other = new Student(2, PROGRAM);
+        EnlistmentState enlisted = student.enlist(SECTION_A);
+        EnlistmentState cancelled = student.cancelEnlistment(SECTION_A);
+        // the cancellation's thread publishes first
+        history.onEvent(event(EnlistmentEvent.Type.CANCELLED, student, SECTION_A, cancelled, T0.plusMillis(10)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, other, SECTION_A, other.enlist(SECTION_A), T0.plusMillis(11)));
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_A, enlisted, T0.plusMillis(12)));
+
+        assertAll(
+                () -> assertEquals(List.of(), history.getSectionsAt(student, T0.plusSeconds(1))),
+                () -> assertArrayEquals(new int[] {2}, history.getStudentsAt(SECTION_A, T0.plusSeconds(1))),
+                () -> assertEquals(List.of(EnlistmentEvent.Type.ENLISTED, EnlistmentEvent.Type.CANCELLED),
+                        history.audit(student, T0, T0.plusSeconds(1)).stream().map(EnlistmentHistory.Entry::getType).collect(Collectors.toList())));
+    }
+
+    @Test
+    void events_timestamped_out_of_order_kept_in_version_order() {
+        EnlistmentHistory history = new EnlistmentHistory(1);
+        Student student = new Student(1, PROGRAM);
+        EnlistmentState enlisted = student.enlist(SECTION_A);
+        EnlistmentState cancelled = student.cancelEnlistment(SECTION_A);
+        // the cancellation took its time before the enlistment did, but publishes after it
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, SECTION_A, enlisted, T0.plusMillis(10)));
+        history.onEvent(event(EnlistmentEvent.Type.CANCELLED, student, SECTION_A, cancelled, T0.plusMillis(9)));
+
+        List<EnlistmentHistory.Entry> entries = history.audit(student, T0, T0.plusSeconds(1));
+        assertAll(
+                () -> assertEquals(List.of(), history.getSectionsAt(student, T0.plusMillis(100))),
+                () -> assertArrayEquals(new int[0], history.getStudentsAt(SECTION_A, T0.plusMillis(100))),
+                () -> assertEquals(List.of(EnlistmentEvent.Type.ENLISTED, EnlistmentEvent.Type.CANCELLED),
+                        entries.stream().map(EnlistmentHistory.Entry::getType).collect(Collectors.toList())),
+                () -> assertEquals(T0.plusMillis(10), entries.get(1).getTimestamp()),
+                () -> assertEquals(List.of(EnlistmentEvent.Type.ENLISTED, EnlistmentEvent.Type.CANCELLED),
+                        history.audit(SECTION_A, T0, T0.plusSeconds(1)).stream().map(EnlistmentHistory.Entry::getType).collect(Collectors.toList())));
+    }
+
+    @Test
+    void history_follows_a_dispatcher() throws Exception {
+        EnlistmentHistory history = new EnlistmentHistory();
+        Student student = new Student(1, PROGRAM);
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.addListener(history);
+            dispatcher.enlist(student, SECTION_A).get(5, TimeUnit.SECONDS);
+            dispatcher.swap(student, SECTION_A, SECTION_B).get(5, TimeUnit.SECONDS);
+        }
+
+        List<EnlistmentHistory.Entry> entries = history.audit(student, Instant.MIN, Instant.MAX);
+        assertAll(
+                () -> assertEquals(List.of(SECTION_B), history.getSectionsAt(student, Instant.now().plusSeconds(1))),
+                () -> assertEquals(3, entries.size()),
+                () -> assertEquals(List.of(1L, 2L, 2L), entries.stream().map(EnlistmentHistory.Entry::getVersion).collect(Collectors.toList())));
+    }
+
+    @Test
+    void late_event_in_a_section_rebuilds_the_checkpoints_after_it() {
+        EnlistmentHistory history = new EnlistmentHistory(4);
+        Section section = new Section("HISD", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("HISW", 50, Collections.emptyList()), SUBJ1);
+        Student late = new Student(0, PROGRAM);
+        for (int i = 1; i <= 40; i++) {
+            Student student = new Student(i, PROGRAM);
+            history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, section, student.enlist(section), T0.plusSeconds(i * 60L)));
+        }
+        // published long after the enlistments that came after it
+        history.onEvent(event(EnlistmentEvent.Type.ENLISTED, late, section, late.enlist(section), T0.plusSeconds(90)));
+
+        assertAll(
+                () -> assertTrue(history.getLongestReplay(section) <= 4, "replays " + history.getLongestReplay(section)),
+                () -> assertArrayEquals(new int[] {1}, history.getStudentsAt(section, T0.plusSeconds(89))),
+                () -> assertArrayEquals(new int[] {0, 1}, history.getStudentsAt(section, T0.plusSeconds(90))),
+                () -> assertEquals(21, history.getStudentsAt(section, T0.plusSeconds(20 * 60)).length),
+                () -> assertEquals(41, history.getStudentsAt(section, T0.plusSeconds(40 * 60)).length));
+    }
+
+    @Test
+    void long_history_rebuilt_like_a_full_replay() {
+        EnlistmentHistory history = new EnlistmentHistory(16);
+        List<Section> sections = List.of(SECTION_A, SECTION_B, SECTION_C);
+        Student student = new Student(1, PROGRAM);
+        Random random = new Random(42);
+        List<Instant> times = new ArrayList<>();
+        List<Set<Section>> expected = new ArrayList<>();
+        Set<Section> current = new LinkedHashSet<>();
+        for (int i = 0; i < 2_000; i++) {
+            Section section = sections.get(random.nextInt(sections.size()));
+            Instant at = T0.plusMillis(i * 10L);
+            if (current.contains(section)) {
+                history.onEvent(event(EnlistmentEvent.Type.CANCELLED, student, section, student.cancelEnlistment(section), at));
+                current.remove(section);
+            } else {
+                history.onEvent(event(EnlistmentEvent.Type.ENLISTED, student, section, student.enlist(section), at));
+                current.add(section);
+            }
+            times.add(at);
+            expected.add(new HashSet<>(current));
+        }
+
+        for (int i = 0; i < times.size(); i += 37) {
+            assertEquals(expected.get(i), new HashSet<>(history.getSectionsAt(student, times.get(i).plusMillis(5))), "at " + i);
+            int[] students = history.getStudentsAt(SECTION_A, times.get(i));
+            assertEquals(expected.get(i).contains(SECTION_A), students.length == 1, "at " + i);
+        }
+    }
+}
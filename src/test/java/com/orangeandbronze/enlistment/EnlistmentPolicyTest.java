@@ -0,0 +1,138 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentPolicyTest {
+    final Subject SUBJ1 = new Subject("POL101", 9, false);
+    final Subject SUBJ2 = new Subject("POL102", 9, false);
+    final Subject SUBJ3 = new Subject("POL103", 9, true);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(SUBJ1, SUBJ2, SUBJ3)));
+
+    @AfterEach
+    void restoreDefaultPolicy() {
+        EnlistmentPolicy.install(EnlistmentPolicy.DEFAULT);
+    }
+
+    private List<Section> sections() {
+        return List.of(
+                new Section("A", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("X", 10, Collections.emptyList()), SUBJ1),
+                new Section("B", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("Y", 10, Collections.emptyList()), SUBJ2),
+                new Section("C", Schedule.of(Days.WS, Period.of(8, true, 10, false)), new Room("Z", 10, Collections.emptyList()), SUBJ3));
+    }
+
+    @Test
+    void default_policy_limits_to_24_units() {
+        Student student = new Student(1, BS_CS_ST);
+        List<Section> sections = sections();
+        student.enlist(sections.get(0));
+        student.enlist(sections.get(1));
+        assertThrows(MaxUnitsPerStudentLimitExceededException.class, () -> student.enlist(sections.get(2)));
+    }
+
+    @Test
+    void year_level_rule_raises_limit_for_graduating_students() {
+        EnlistmentPolicy.install(EnlistmentPolicy.parse(List.of("year[4].maxUnits = 27")));
+        Student graduating = new Student(1, 4, Collections.emptyList(), Collections.emptyList(), BS_CS_ST);
+        Student freshman = new Student(2, BS_CS_ST);
+        sections().forEach(graduating::enlist);
+
+        List<Section> other = sections();
+        freshman.enlist(other.get(0));
+        freshman.enlist(other.get(1));
+        assertAll(
+                () -> assertEquals(27, graduating.getTotalUnitsEnlisted()),
+                () -> assertThrows(MaxUnitsPerStudentLimitExceededException.class, () -> freshman.enlist(other.get(2))));
+    }
+
+    @Test
+    void student_rule_overrides_year_level_and_program() {
+        EnlistmentPolicy policy = EnlistmentPolicy.parse(List.of(
+                "# overloads",
+                "program[BS CS-ST].maxUnits = 21",
+                "year[4].maxUnits = 27",
+                "student[7].maxUnits = 30"));
+        assertAll(
+                () -> assertEquals(21, policy.resolve(1, 1, BS_CS_ST).getMaxUnits()),
+                () -> assertEquals(27, policy.resolve(1, 4, BS_CS_ST).getMaxUnits()),
+                () -> assertEquals(30, policy.resolve(7, 4, BS_CS_ST).getMaxUnits()));
+    }
+
+    @Test
+    void installed_policy_applies_to_existing_students() {
+        Student student = new Student(1, BS_CS_ST);
+        student.enlist(sections().get(2));
+        BigDecimal before = student.requestAssessment();
+
+        EnlistmentPolicy.install(EnlistmentPolicy.parse(List.of("default.labFee = 2000", "default.vat = 1")));
+        BigDecimal after = student.requestAssessment();
+        assertAll(
+                () -> assertEquals(new BigDecimal("24640.00"), before),
+                () -> assertEquals(new BigDecimal("23000.00"), after));
+    }
+
+    @Test
+    void malformed_rule_rejected() {
+        assertAll(
+                () -> assertThrows(IllegalArgumentException.class, () -> EnlistmentPolicy.parse(List.of("year[4] = 27"))),
+                () -> assertThrows(IllegalArgumentException.class, () -> EnlistmentPolicy.parse(List.of("default.maxCredits = 27"))),
+                () -> assertThrows(IllegalArgumentException.class, () -> EnlistmentPolicy.parse(List.of("default.maxUnits = 24.5"))),
+                () -> assertThrows(IllegalArgumentException.class, () -> EnlistmentPolicy.parse(List.of("year[4].maxUnits = 3000000000"))),
+                () -> assertThrows(IllegalArgumentException.class, () -> EnlistmentPolicy.parse(List.of("student[1].maxUnits = 0"))),
+                () -> assertEquals(18, EnlistmentPolicy.parse(List.of("default.maxUnits = 18.00")).resolve(1, 1, BS_CS_ST).getMaxUnits()));
+    }
+
+    @Test
+    void reloader_keeps_current_policy_when_file_is_malformed() throws Exception {
+        Path file = Files.createTempFile("policy", ".txt");
+        try {
+            Files.writeString(file, "default.maxUnits = 18\n");
+            try (PolicyReloader reloader = new PolicyReloader(file, Duration.ofHours(1))) {
+                EnlistmentPolicy loaded = EnlistmentPolicy.current();
+                Files.writeString(file, "default.maxUnits = 18\nstudent[1].maxUnits = 1e10\n");
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+                boolean reloaded = reloader.reload();
+                assertAll(
+                        () -> assertEquals(18, loaded.resolve(1, 1, BS_CS_ST).getMaxUnits()),
+                        () -> assertFalse(reloaded),
+                        () -> assertNotNull(reloader.getLastError()),
+                        () -> assertSame(loaded, EnlistmentPolicy.current()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void reloader_sees_a_rewrite_that_keeps_the_size_and_modification_time() throws Exception {
+        Path file = Files.createTempFile("policy", ".txt");
+        try {
+            Files.writeString(file, "default.maxUnits = 18\n");
+            FileTime modified = FileTime.fromMillis(1_000_000_000_000L);
+            Files.setLastModifiedTime(file, modified);
+            try (PolicyReloader reloader = new PolicyReloader(file, Duration.ofHours(1))) {
+                Files.writeString(file, "default.maxUnits = 21\n");
+                Files.setLastModifiedTime(file, modified);
+                boolean reloaded = reloader.reload();
+                boolean reloadedAgain = reloader.reload();
+                assertAll(
+                        () -> assertTrue(reloaded),
+                        () -> assertFalse(reloadedAgain),
+                        () -> assertEquals(21, EnlistmentPolicy.current().resolve(1, 1, BS_CS_ST).getMaxUnits()));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
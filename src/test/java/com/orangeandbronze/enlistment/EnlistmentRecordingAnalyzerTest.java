@@ -0,0 +1,74 @@
+package com.orangeandbronze.enlistment;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentRecordingAnalyzerTest {
+    final Subject SUBJ1 = new Subject("JFR101", 3, false);
+    final Subject SUBJ2 = new Subject("JFR102", 3, false, Set.of(SUBJ1));
+    final DegreeProgram PROGRAM = new DegreeProgram("BS JFR", Set.of(SUBJ1, SUBJ2));
+
+    @Test
+    void recording_summarized_by_operation_and_stage() throws Exception {
+        Section section1 = new Section("JFRA", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("JFRX", 10, Collections.emptyList()), SUBJ1);
+        Section section2 = new Section("JFRB", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("JFRY", 10, Collections.emptyList()), SUBJ2);
+        Student student = new Student(1, PROGRAM);
+
+        Path file = Files.createTempFile("enlistment", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EnlistmentStageEvent.NAME);
+            recording.start();
+            student.enlist(section1);
+            assertThrows(PrerequisitesNotMetException.class, () -> student.enlist(section2));
+            student.requestAssessment();
+            student.cancelEnlistment(section1);
+            recording.stop();
+            recording.dump(file);
+
+            Map<String, EnlistmentRecordingAnalyzer.StageSummary> summaries = EnlistmentRecordingAnalyzer.analyze(file).stream()
+                    .collect(Collectors.toMap(summary -> summary.getOperation() + "/" + summary.getStage(), Function.identity()));
+            assertAll(
+                    () -> assertEquals(2, summaries.get("enlist/total").getCount()),
+                    () -> assertEquals(2, summaries.get("enlist/check").getCount()),
+                    () -> assertEquals(1, summaries.get("enlist/reserve").getCount()),
+                    () -> assertEquals(Map.of("PrerequisitesNotMetException", 1L), summaries.get("enlist/check").getRejections()),
+                    () -> assertEquals(Map.of("PrerequisitesNotMetException", 1L), summaries.get("enlist/total").getRejections()),
+                    () -> assertEquals(1, summaries.get("assess/total").getCount()),
+                    () -> assertEquals(1, summaries.get("cancel/release").getCount()),
+                    () -> assertTrue(summaries.get("enlist/check").getLatencyPercentile(100) > 0));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void nothing_recorded_while_event_disabled() throws Exception {
+        Section section = new Section("JFRC", Schedule.of(Days.WS, Period.of(8, true, 10, false)), new Room("JFRZ", 10, Collections.emptyList()), SUBJ1);
+        Student student = new Student(2, PROGRAM);
+
+        Path file = Files.createTempFile("enlistment", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.disable(EnlistmentStageEvent.NAME);
+            recording.start();
+            student.enlist(section);
+            recording.stop();
+            recording.dump(file);
+
+            List<EnlistmentRecordingAnalyzer.StageSummary> summaries = EnlistmentRecordingAnalyzer.analyze(file);
+            assertTrue(summaries.isEmpty());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
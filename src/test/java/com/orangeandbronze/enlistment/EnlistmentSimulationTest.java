@@ -0,0 +1,139 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnlistmentSimulationTest {
+    final Subject SUBJ1 = new Subject("SIM101", 3, false);
+    final Subject SUBJ2 = new Subject("SIM102", 3, false);
+    final DegreeProgram PROGRAM = new DegreeProgram("BS SIM", Set.of(SUBJ1, SUBJ2));
+
+    @Test
+    void bigger_room_places_waitlisted_students_without_touching_live_enlistment() {
+        Room room = new Room("SIMX", 1, Collections.emptyList());
+        Section section = new Section("SIMA", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), room, SUBJ1);
+        Student enlisted = new Student(1, PROGRAM);
+        enlisted.enlist(section);
+        List<Student> waitlisted = List.of(new Student(2, PROGRAM), new Student(3, PROGRAM), new Student(4, PROGRAM));
+        List<EnlistmentSimulation.Operation> placements = new ArrayList<>();
+        waitlisted.forEach(student -> placements.add(EnlistmentSimulation.Operation.enlist(student, section)));
+
+        List<Student> students = new ArrayList<>(waitlisted);
+        students.add(enlisted);
+        EnlistmentSimulation asIs = new EnlistmentSimulation(students, List.of(section));
+        EnlistmentSimulation bigger = asIs.fork();
+        bigger.setCapacity(room, 3);
+        EnlistmentSimulation.Report asIsReport = asIs.run(placements);
+        EnlistmentSimulation.Report biggerReport = bigger.run(placements);
+
+        assertAll(
+                () -> assertEquals(0, asIsReport.getAccepted()),
+                () -> assertEquals(Map.of("RoomCapacityReachedException", 3L), asIsReport.getRejections()),
+                () -> assertEquals(2, biggerReport.getAccepted()),
+                () -> assertTrue(biggerReport.getOutcomes().get(2).getRejection() instanceof RoomCapacityReachedException),
+                () -> assertEquals(3, bigger.getNumberOfEnlisted(section)),
+                () -> assertEquals(1, section.getNumberOfEnlisted()),
+                () -> assertEquals(1, room.getMaxCapacity()),
+                () -> assertTrue(waitlisted.get(0).getSections().isEmpty()));
+    }
+
+    @Test
+    void new_section_shows_conflicts_and_swaps_keep_seat_counts() {
+        Section lecture = new Section("SIMB", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("SIMY", 10, Collections.emptyList()), SUBJ1);
+        Section other = new Section("SIMC", Schedule.of(Days.WS, Period.of(8, true, 10, false)), new Room("SIMZ", 10, Collections.emptyList()), SUBJ1);
+        Student student = new Student(1, PROGRAM);
+        student.enlist(lecture);
+        Room room = new Room("SIMW", 10, Collections.emptyList());
+
+        EnlistmentSimulation simulation = new EnlistmentSimulation(List.of(student), List.of(lecture, other));
+        // a section the registrar is thinking of opening
+        Section proposed = simulation.openSection("SIMD", Schedule.of(Days.TF, Period.of(9, false, 11, false)), room, SUBJ2);
+        EnlistmentSimulation.Report report = simulation.run(List.of(
+                EnlistmentSimulation.Operation.enlist(student, proposed),
+                EnlistmentSimulation.Operation.swap(student, lecture, other),
+                EnlistmentSimulation.Operation.enlist(student, proposed)));
+
+        assertAll(
+                () -> assertTrue(report.getOutcomes().get(0).getRejection() instanceof ScheduleConflictException),
+                () -> assertTrue(report.getOutcomes().get(1).isAccepted()),
+                () -> assertTrue(report.getOutcomes().get(2).isAccepted()),
+                () -> assertEquals(List.of(other, proposed), simulation.getEnlistmentState(student).getSections()),
+                () -> assertEquals(0, simulation.getNumberOfEnlisted(lecture)),
+                () -> assertEquals(1, simulation.getNumberOfEnlisted(other)),
+                () -> assertEquals(List.of(lecture), student.getEnlistmentState().getSections()),
+                () -> assertEquals(1, lecture.getNumberOfEnlisted()),
+                () -> assertTrue(room.isAvailable(proposed.getSchedule())),
+                () -> assertThrows(ScheduleRoomConflictException.class, () -> simulation.openSection("SIME", Schedule.of(Days.TF, Period.of(10, false, 12, false)), room, SUBJ2)));
+    }
+
+    @Test
+    void untouched_students_share_live_state() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(3, 20, 2, 6, 10_000);
+        List<Student> students = catalog.getStudents();
+        Section section = catalog.getSections().get(0);
+
+        EnlistmentSimulation simulation = new EnlistmentSimulation(students, catalog.getSections());
+        simulation.apply(EnlistmentSimulation.Operation.enlist(students.get(0), section));
+
+        assertAll(
+                () -> assertTrue(simulation.getChangedStudents() <= 1),
+                () -> assertSame(students.get(9_999).getEnlistmentState(), simulation.getEnlistmentState(students.get(9_999))));
+    }
+
+    @Test
+    void new_section_places_waitlisted_students_from_the_capacity_manager() {
+        Room room = new Room("SIMV", 1, Collections.emptyList());
+        Section full = new Section("SIMF", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), room, SUBJ1);
+        Student enlisted = new Student(1, PROGRAM);
+        enlisted.enlist(full);
+        List<Student> waitlisted = List.of(new Student(2, PROGRAM), new Student(3, PROGRAM), new Student(4, PROGRAM));
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(100);
+             CapacityManager manager = new CapacityManager(dispatcher, List.of(), List.of(),
+                     Clock.systemUTC(), Duration.ofMinutes(1), 10, false)) {
+            for (Student student : waitlisted) {
+                manager.onEvent(new EnlistmentEvent(EnlistmentEvent.Type.REJECTED, student, full,
+                        new RoomCapacityReachedException("full"), Clock.systemUTC().instant()));
+            }
+            manager.evaluate();
+            List<Student> students = new ArrayList<>(waitlisted);
+            students.add(enlisted);
+            EnlistmentSimulation simulation = new EnlistmentSimulation(students, List.of(full));
+            Section opened = simulation.openSection("SIMG", Schedule.of(Days.TF, Period.of(8, true, 10, false)), new Room("SIMU", 2, Collections.emptyList()), SUBJ1);
+
+            EnlistmentSimulation.Report report = simulation.placeWaitlisted(opened, manager);
+
+            assertAll(
+                    () -> assertEquals(2, report.getAccepted()),
+                    () -> assertEquals(Map.of("RoomCapacityReachedException", 1L), report.getRejections()),
+                    () -> assertEquals(List.of(opened), simulation.getEnlistmentState(waitlisted.get(0)).getSections()),
+                    () -> assertEquals(2, simulation.getNumberOfEnlisted(opened)),
+                    () -> assertEquals(0, opened.getNumberOfEnlisted()));
+        }
+    }
+
+    @Test
+    void seat_counts_are_read_with_the_states_and_not_after() {
+        Section section = new Section("SIMH", Schedule.of(Days.MTH, Period.of(8, true, 10, false)), new Room("SIMT", 10, Collections.emptyList()), SUBJ1);
+        Student student = new Student(1, PROGRAM);
+        Student later = new Student(2, PROGRAM);
+        student.enlist(section);
+        EnlistmentSimulation simulation = new EnlistmentSimulation(List.of(student, later), List.of(section));
+        // live enlistment going on after the fork is not seen by it
+        later.enlist(section);
+        student.cancelEnlistment(section);
+
+        EnlistmentSimulation.Outcome outcome = simulation.apply(EnlistmentSimulation.Operation.cancel(student, section));
+
+        assertAll(
+                () -> assertTrue(outcome.isAccepted()),
+                () -> assertEquals(0, simulation.getNumberOfEnlisted(section)),
+                () -> assertEquals(List.of(), simulation.getEnlistmentState(later).getSections()),
+                () -> assertEquals(1, section.getNumberOfEnlisted()),
+                () -> assertThrows(IllegalArgumentException.class, () -> simulation.getEnlistmentState(new Student(3, PROGRAM))));
+    }
+}
@@ -0,0 +1,257 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers enlist, cancel and swap from many threads and checks that seats are never oversold, units never
+ * pass the limit and no schedule conflicts get in, and that a single section behaves linearizably.
+ * Run with {@code gradle stressTest}; {@code -Dstress.rounds=N} scales the work.
+ */
+@Tag("stress")
+class EnlistmentStressTest {
+    static final int ROUNDS = Integer.getInteger("stress.rounds", 20);
+    static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    @Test
+    void seats_units_and_schedules_hold_under_random_interleavings() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            SyntheticCatalog catalog = SyntheticCatalog.generate(round, 30, 3, 12, 400);
+            List<Student> students = catalog.getStudents();
+            List<Section> sections = catalog.getSections();
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<String> oversold = new AtomicReference<>();
+
+            // watches seat counts while the workers run
+            Thread monitor = new Thread(() -> {
+                while (running.get()) {
+                    for (Section section : sections) {
+                        if (section.getNumberOfEnlisted() > section.getRoom().getMaxCapacity()) {
+                            oversold.compareAndSet(null, section + " has " + section.getNumberOfEnlisted() + " seats taken");
+                        }
+                    }
+                }
+            });
+            monitor.start();
+
+            ExecutorService workers = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < THREADS; t++) {
+                long seed = round * 1_000L + t;
+                workers.execute(() -> {
+                    Random random = new Random(seed);
+                    awaitQuietly(start);
+                    for (int i = 0; i < 5_000; i++) {
+                        Student student = students.get(random.nextInt(students.size()));
+                        Section section = sections.get(random.nextInt(sections.size()));
+                        try {
+                            int choice = random.nextInt(10);
+                            if (choice < 6) {
+                                student.enlist(section);
+                            } else if (choice < 8) {
+                                student.cancelEnlistment(section);
+                            } else {
+                                List<Section> enlisted = student.getEnlistmentState().getSections();
+                                if (!enlisted.isEmpty()) {
+                                    student.swap(enlisted.get(random.nextInt(enlisted.size())), section);
+                                }
+                            }
+                        } catch (RuntimeException e) {
+                            // rejections are expected; only the invariants matter
+                        }
+                        if (random.nextInt(64) == 0) {
+                            Thread.yield();
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            workers.shutdown();
+            assertTrue(workers.awaitTermination(60, TimeUnit.SECONDS));
+            running.set(false);
+            monitor.join();
+
+            assertNull(oversold.get());
+            Map<Section, Integer> enlistedCounts = new HashMap<>();
+            for (Student student : students) {
+                List<Section> enlisted = student.getEnlistmentState().getSections();
+                int units = enlisted.stream().mapToInt(Section::getSubjectUnits).sum();
+                assertEquals(units, student.getTotalUnitsEnlisted(), student + " unit count");
+                assertTrue(units <= student.policy().getMaxUnits(), student + " over the unit limit");
+                for (int i = 0; i < enlisted.size(); i++) {
+                    enlistedCounts.merge(enlisted.get(i), 1, Integer::sum);
+                    for (int j = i + 1; j < enlisted.size(); j++) {
+                        assertFalse(enlisted.get(i).getSchedule().hasConflictWith(enlisted.get(j).getSchedule()),
+                                student + " has conflicting " + enlisted.get(i) + " and " + enlisted.get(j));
+                        assertFalse(enlisted.get(i).hasSameSubject(enlisted.get(j)), student + " has a duplicate subject");
+                    }
+                }
+            }
+            for (Section section : sections) {
+                int expected = enlistedCounts.getOrDefault(section, 0);
+                assertEquals(expected, section.getNumberOfEnlisted(), section + " seat count");
+                assertEquals(expected, section.getHeadcount(), section + " roster");
+            }
+        }
+    }
+
+    @Test
+    void single_section_enlist_and_cancel_are_linearizable() throws Exception {
+        Subject subject = new Subject("LINSUBJ", 3, false);
+        DegreeProgram program = new DegreeProgram("BS LIN", Set.of(subject));
+        LinearizabilityChecker<Set<Integer>> checker = new LinearizabilityChecker<>(new SeatModel(2));
+
+        for (int round = 0; round < ROUNDS * 10; round++) {
+            Section section = new Section("L" + round, Schedule.of(Days.MTH, Period.of(8, true, 10, false)),
+                    new Room("LROOM" + round, 2, Collections.emptyList()), subject);
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                students.add(new Student(i, program));
+            }
+            LinearizabilityChecker.History history = new LinearizabilityChecker.History();
+            ExecutorService workers = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int t = 0; t < 4; t++) {
+                long seed = round * 100L + t;
+                workers.execute(() -> {
+                    Random random = new Random(seed);
+                    awaitQuietly(start);
+                    for (int i = 0; i < 6; i++) {
+                        int studentNo = random.nextInt(students.size());
+                        Student student = students.get(studentNo);
+                        boolean enlist = random.nextBoolean();
+                        long invokedAt = history.invoke();
+                        String result;
+                        try {
+                            if (enlist) {
+                                student.enlist(section);
+                            } else {
+                                student.cancelEnlistment(section);
+                            }
+                            result = "ok";
+                        } catch (RuntimeException e) {
+                            result = e.getClass().getSimpleName();
+                        }
+                        history.respond(enlist ? "enlist" : "cancel", studentNo, result, invokedAt);
+                    }
+                });
+            }
+            start.countDown();
+            workers.shutdown();
+            assertTrue(workers.awaitTermination(10, TimeUnit.SECONDS));
+
+            List<LinearizabilityChecker.Operation> operations = history.getOperations();
+            assertTrue(checker.isLinearizable(operations), "Not linearizable: " + operations);
+        }
+    }
+
+    @Test
+    void double_submitting_student_never_turns_another_student_away() throws Exception {
+        Subject subject = new Subject("DBLSUBJ", 3, false);
+        DegreeProgram program = new DegreeProgram("BS DBL", Set.of(subject));
+        ExecutorService workers = Executors.newFixedThreadPool(3);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                Section section = new Section("D" + round, Schedule.of(Days.MTH, Period.of(8, true, 10, false)),
+                        new Room("DROOM" + round, 2, Collections.emptyList()), subject);
+                Student doubleSubmitting = new Student(1, program);
+                Student other = new Student(2, program);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> tabs = new ArrayList<>();
+                for (int tab = 0; tab < 2; tab++) {
+                    tabs.add(workers.submit(() -> {
+                        awaitQuietly(start);
+                        for (int i = 0; i < 500; i++) {
+                            try {
+                                doubleSubmitting.enlist(section);
+                            } catch (ScheduleConflictException e) {
+                                // the other tab got there first
+                            }
+                            try {
+                                doubleSubmitting.cancelEnlistment(section);
+                            } catch (CancellingUnenlistedSectionException e) {
+                                // the other tab got there first
+                            }
+                        }
+                    }));
+                }
+                // the committed states never hold more than one seat for the double-submitting student
+                Future<?> otherStudent = workers.submit(() -> {
+                    awaitQuietly(start);
+                    for (int i = 0; i < 500; i++) {
+                        other.enlist(section);
+                        other.cancelEnlistment(section);
+                    }
+                });
+                start.countDown();
+                for (Future<?> tab : tabs) {
+                    tab.get(30, TimeUnit.SECONDS);
+                }
+                otherStudent.get(30, TimeUnit.SECONDS);
+                assertEquals(0, section.getNumberOfEnlisted(), section + " seat count");
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * A section of the given capacity as the set of students in it.
+     */
+    static final class SeatModel implements LinearizabilityChecker.Model<Set<Integer>> {
+        private final int capacity;
+
+        SeatModel(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public Set<Integer> initial() {
+            return Set.of();
+        }
+
+        @Override
+        public Set<Integer> apply(Set<Integer> state, LinearizabilityChecker.Operation operation) {
+            String expected;
+            Set<Integer> next = new TreeSet<>(state);
+            if (operation.name.equals("enlist")) {
+                if (state.contains(operation.argument)) {
+                    // a section conflicts with itself, and conflicts are checked first
+                    expected = ScheduleConflictException.class.getSimpleName();
+                } else if (state.size() >= capacity) {
+                    expected = RoomCapacityReachedException.class.getSimpleName();
+                } else {
+                    expected = "ok";
+                    next.add(operation.argument);
+                }
+            } else {
+                if (!state.contains(operation.argument)) {
+                    expected = CancellingUnenlistedSectionException.class.getSimpleName();
+                } else {
+                    expected = "ok";
+                    next.remove(operation.argument);
+                }
+            }
+            return expected.equals(operation.result) ? Set.copyOf(next) : null;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+    final Subject IDEM101 = new Subject("IDEM101", 3, false);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(IDEM101)));
+
+    Section section(String id, Days days) {
+        return new Section(id, Schedule.of(days, Period.of(8, true, 10, false)),
+                new Room("R" + id, 10, Collections.emptyList()), IDEM101);
+    }
+
+    @Test
+    void retried_enlistment_returns_first_outcome() throws Exception {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = section("A", Days.MTH);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            CompletableFuture<Void> first = dispatcher.enlist("req-1", student, section);
+            CompletableFuture<Void> retry = dispatcher.enlist("req-1", student, section);
+            first.get(5, TimeUnit.SECONDS);
+            retry.get(5, TimeUnit.SECONDS);
+
+            assertAll(
+                    () -> assertSame(first, retry),
+                    () -> assertEquals(List.of(section), List.copyOf(student.getSections())),
+                    () -> assertEquals(1, section.getNumberOfEnlisted()));
+        }
+    }
+
+    @Test
+    void key_cannot_be_reused_for_another_command() throws Exception {
+        Student student = new Student(1, BS_CS_ST);
+        Section section = section("A", Days.MTH);
+        Section other = section("B", Days.TF);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.enlist("req-1", student, section).get(5, TimeUnit.SECONDS);
+            assertThrows(IdempotencyKeyReusedException.class, () -> dispatcher.enlist("req-1", student, other));
+        }
+    }
+
+    @Test
+    void key_expires_after_ttl() {
+        SettableClock clock = new SettableClock(Instant.EPOCH);
+        IdempotencyCache cache = new IdempotencyCache(clock, Duration.ofMinutes(1), 10);
+        AtomicInteger runs = new AtomicInteger();
+        List<Object> command = List.of("ENLIST", 1);
+
+        cache.computeIfAbsent("k", command, () -> CompletableFuture.completedFuture(null).thenRun(runs::incrementAndGet));
+        cache.computeIfAbsent("k", command, () -> CompletableFuture.completedFuture(null).thenRun(runs::incrementAndGet));
+        assertEquals(1, runs.get());
+        clock.advance(Duration.ofMinutes(1));
+        cache.computeIfAbsent("k", command, () -> CompletableFuture.completedFuture(null).thenRun(runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void oldest_keys_forgotten_beyond_limit() {
+        IdempotencyCache cache = new IdempotencyCache(new SettableClock(Instant.EPOCH), Duration.ofMinutes(1), 2);
+        for (int i = 0; i < 5; i++) {
+            cache.computeIfAbsent("k" + i, List.of(i), () -> CompletableFuture.completedFuture(null));
+        }
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void key_is_freed_when_submitting_throws() throws Exception {
+        IdempotencyCache cache = new IdempotencyCache(new SettableClock(Instant.EPOCH), Duration.ofMinutes(1), 10);
+        List<Object> command = List.of("ENLIST", 1);
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("k", command, () -> {
+            throw new IllegalStateException("not submitted");
+        }));
+        CompletableFuture<Void> retry = cache.computeIfAbsent("k", command, () -> CompletableFuture.completedFuture(null));
+
+        assertAll(
+                () -> assertNull(retry.get(5, TimeUnit.SECONDS)),
+                () -> assertEquals(1, cache.size()));
+    }
+}
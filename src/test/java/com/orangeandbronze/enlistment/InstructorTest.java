@@ -0,0 +1,136 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstructorTest {
+    final Subject SUBJ1 = new Subject("INS101", 3, false);
+    final Subject SUBJ2 = new Subject("INS102", 3, false);
+    final Subject SUBJ3 = new Subject("INS103", 3, false);
+
+    final Schedule MTH_0830 = Schedule.of(Days.MTH, Period.of(8, true, 10, false));
+    final Schedule MTH_0900 = Schedule.of(Days.MTH, Period.of(9, false, 11, false));
+    final Schedule TF_0830 = Schedule.of(Days.TF, Period.of(8, true, 10, false));
+    final Schedule WS_0830 = Schedule.of(Days.WS, Period.of(8, true, 10, false));
+
+    private Section section(String id, Schedule schedule, Subject subject) {
+        return new Section(id, schedule, new Room("R" + id, 10, Collections.emptyList()), subject);
+    }
+
+    @Test
+    void instructor_double_booking_rejected() {
+        Instructor instructor = new Instructor("TEACH1", 12);
+        Section first = section("INSA", MTH_0830, SUBJ1);
+        Section overlapping = section("INSB", MTH_0900, SUBJ2);
+        first.assignInstructor(instructor);
+
+        assertAll(
+                () -> assertThrows(InstructorScheduleConflictException.class, () -> overlapping.assignInstructor(instructor)),
+                () -> assertNull(overlapping.getInstructor()),
+                () -> assertEquals(List.of(first), instructor.getSections()),
+                () -> assertFalse(instructor.isAvailable(MTH_0830)),
+                () -> assertTrue(instructor.isAvailable(TF_0830)));
+    }
+
+    @Test
+    void teaching_unit_limit_enforced() {
+        Instructor instructor = new Instructor("TEACH1", 6);
+        section("INSA", MTH_0830, SUBJ1).assignInstructor(instructor);
+        section("INSB", TF_0830, SUBJ2).assignInstructor(instructor);
+        Section third = section("INSC", WS_0830, SUBJ3);
+
+        assertAll(
+                () -> assertThrows(TeachingLoadExceededException.class, () -> third.assignInstructor(instructor)),
+                () -> assertEquals(6, instructor.getTeachingUnits()));
+    }
+
+    @Test
+    void reassignment_keeps_old_instructor_on_failure() {
+        Instructor oldInstructor = new Instructor("TEACH1", 12);
+        Instructor busy = new Instructor("TEACH2", 12);
+        Instructor free = new Instructor("TEACH3", 12);
+        Section section = section("INSA", MTH_0830, SUBJ1);
+        section("INSB", MTH_0900, SUBJ2).assignInstructor(busy);
+        section.assignInstructor(oldInstructor);
+
+        assertThrows(InstructorScheduleConflictException.class, () -> section.assignInstructor(busy));
+        assertSame(oldInstructor, section.getInstructor());
+
+        section.assignInstructor(free);
+        assertAll(
+                () -> assertSame(free, section.getInstructor()),
+                () -> assertTrue(oldInstructor.getSections().isEmpty()),
+                () -> assertEquals(WeeklySlotMask.EMPTY, oldInstructor.getOccupiedSlots()),
+                () -> assertEquals(0, oldInstructor.getTeachingUnits()));
+    }
+
+    @Test
+    void bulk_assignment_lets_instructors_trade_sections() {
+        Instructor first = new Instructor("TEACH1", 3);
+        Instructor second = new Instructor("TEACH2", 3);
+        Section sectionA = section("INSA", MTH_0830, SUBJ1);
+        Section sectionB = section("INSB", MTH_0830, SUBJ2);
+        sectionA.assignInstructor(first);
+        sectionB.assignInstructor(second);
+
+        Map<Section, RuntimeException> problems = InstructorAssigner.assign(Map.of(sectionA, second, sectionB, first));
+        assertAll(
+                () -> assertTrue(problems.isEmpty()),
+                () -> assertSame(second, sectionA.getInstructor()),
+                () -> assertSame(first, sectionB.getInstructor()),
+                () -> assertEquals(List.of(sectionB), first.getSections()));
+    }
+
+    @Test
+    void invalid_bulk_assignment_changes_nothing() {
+        Instructor first = new Instructor("TEACH1", 12);
+        Instructor second = new Instructor("TEACH2", 12);
+        Section sectionA = section("INSA", MTH_0830, SUBJ1);
+        Section sectionB = section("INSB", MTH_0900, SUBJ2);
+        Section sectionC = section("INSC", TF_0830, SUBJ3);
+        sectionA.assignInstructor(first);
+
+        Map<Section, RuntimeException> problems = InstructorAssigner.assign(Map.of(sectionB, first, sectionC, second));
+        assertAll(
+                () -> assertEquals(Set.of(sectionB), problems.keySet()),
+                () -> assertInstanceOf(InstructorScheduleConflictException.class, problems.get(sectionB)),
+                () -> assertNull(sectionC.getInstructor()),
+                () -> assertTrue(second.getSections().isEmpty()));
+    }
+
+    @Test
+    void hundreds_of_sections_assigned_in_bulk() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(11, 150, 3, 40, 0);
+        List<Section> sections = catalog.getSections();
+        List<Instructor> instructors = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            instructors.add(new Instructor("BULK" + i, 24));
+        }
+        // give each section the first instructor free at its time, as a planner would
+        Map<Section, Instructor> plan = new HashMap<>();
+        Map<Instructor, WeeklySlotMask> planned = new HashMap<>();
+        Map<Instructor, Integer> plannedUnits = new HashMap<>();
+        for (Section section : sections) {
+            for (Instructor instructor : instructors) {
+                WeeklySlotMask taken = planned.getOrDefault(instructor, WeeklySlotMask.EMPTY);
+                int units = plannedUnits.getOrDefault(instructor, 0) + section.getSubjectUnits();
+                if (!taken.intersects(section.getSchedule().getSlotMask()) && units <= instructor.getMaxTeachingUnits()) {
+                    plan.put(section, instructor);
+                    planned.put(instructor, taken.or(section.getSchedule().getSlotMask()));
+                    plannedUnits.put(instructor, units);
+                    break;
+                }
+            }
+        }
+
+        Map<Section, RuntimeException> problems = InstructorAssigner.assign(plan);
+        assertAll(
+                () -> assertTrue(plan.size() >= 300),
+                () -> assertTrue(problems.isEmpty(), () -> problems.toString()),
+                () -> assertTrue(plan.entrySet().stream().allMatch(entry -> entry.getKey().getInstructor() == entry.getValue())),
+                () -> assertEquals(plan.size(), instructors.stream().mapToInt(instructor -> instructor.getSections().size()).sum()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.orangeandbronze.enlistment;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that a concurrent history of operations is linearizable against a sequential model, i.e. that every
+ * operation can be given a single point between its invocation and its response such that the results match
+ * running the operations one at a time in that order.
+ * <p>
+ * This is the Wing &amp; Gong search with Lowe's memoization: repeatedly pick an operation that no pending
+ * operation's response precedes, apply it to the model, and backtrack when its result disagrees; a set of
+ * (linearized operations, model state) pairs already explored keeps the search from repeating itself.
+ */
+final class LinearizabilityChecker<S> {
+
+    /**
+     * The sequential specification of the object under test.
+     */
+    interface Model<S> {
+        S initial();
+
+        /**
+         * Applies an operation.
+         * @param state     The state before the operation; never modified.
+         * @param operation The operation, with the result it returned in the history.
+         * @return          The state after the operation, or null if the model would not return that result.
+         */
+        S apply(S state, Operation operation);
+    }
+
+    /**
+     * One completed operation of a history.
+     */
+    static final class Operation {
+        final String name;
+        final int argument;
+        final String result;
+        final long invokedAt;
+        final long respondedAt;
+
+        Operation(String name, int argument, String result, long invokedAt, long respondedAt) {
+            this.name = name;
+            this.argument = argument;
+            this.result = result;
+            this.invokedAt = invokedAt;
+            this.respondedAt = respondedAt;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + invokedAt + "," + respondedAt + "] " + name + "(" + argument + ") -> " + result;
+        }
+    }
+
+    /**
+     * Records operations from many threads, ordering invocations and responses on one logical clock.
+     */
+    static final class History {
+        private final AtomicLong clock = new AtomicLong();
+        private final List<Operation> operations = Collections.synchronizedList(new ArrayList<>());
+
+        long invoke() {
+            return clock.incrementAndGet();
+        }
+
+        void respond(String name, int argument, String result, long invokedAt) {
+            operations.add(new Operation(name, argument, result, invokedAt, clock.incrementAndGet()));
+        }
+
+        List<Operation> getOperations() {
+            synchronized (operations) {
+                return new ArrayList<>(operations);
+            }
+        }
+    }
+
+    private final Model<S> model;
+
+    LinearizabilityChecker(Model<S> model) {
+        this.model = model;
+    }
+
+    boolean isLinearizable(List<Operation> history) {
+        List<Operation> operations = new ArrayList<>(history);
+        operations.sort(Comparator.comparingLong(operation -> operation.invokedAt));
+        return search(operations, new BitSet(), model.initial(), new HashSet<>());
+    }
+
+    private boolean search(List<Operation> operations, BitSet linearized, S state, Set<List<Object>> explored) {
+        if (linearized.cardinality() == operations.size()) {
+            return true;
+        }
+        long earliestResponse = Long.MAX_VALUE;
+        for (int i = linearized.nextClearBit(0); i < operations.size(); i = linearized.nextClearBit(i + 1)) {
+            earliestResponse = Math.min(earliestResponse, operations.get(i).respondedAt);
+        }
+        // operations are sorted by invocation, so the candidates are a prefix of the ones left
+        for (int i = linearized.nextClearBit(0); i < operations.size() && operations.get(i).invokedAt < earliestResponse;
+             i = linearized.nextClearBit(i + 1)) {
+            S next = model.apply(state, operations.get(i));
+            if (next == null) {
+                continue;
+            }
+            BitSet after = (BitSet) linearized.clone();
+            after.set(i);
+            if (explored.add(List.of(after, next)) && search(operations, after, next, explored)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
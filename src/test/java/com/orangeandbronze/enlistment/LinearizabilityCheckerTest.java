@@ -0,0 +1,40 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearizabilityCheckerTest {
+    // a register holding one int: write(x) -> "ok", read() -> the value
+    final LinearizabilityChecker<Integer> checker = new LinearizabilityChecker<>(new LinearizabilityChecker.Model<>() {
+        @Override
+        public Integer initial() {
+            return 0;
+        }
+
+        @Override
+        public Integer apply(Integer state, LinearizabilityChecker.Operation operation) {
+            if (operation.name.equals("write")) {
+                return operation.argument;
+            }
+            return Integer.parseInt(operation.result) == state ? state : null;
+        }
+    });
+
+    @Test
+    void overlapping_read_may_see_either_value() {
+        assertTrue(checker.isLinearizable(List.of(
+                new LinearizabilityChecker.Operation("write", 1, "ok", 1, 4),
+                new LinearizabilityChecker.Operation("read", 0, "1", 2, 3),
+                new LinearizabilityChecker.Operation("read", 0, "0", 2, 3))));
+    }
+
+    @Test
+    void stale_read_after_write_completed_is_not_linearizable() {
+        assertFalse(checker.isLinearizable(List.of(
+                new LinearizabilityChecker.Operation("write", 1, "ok", 1, 2),
+                new LinearizabilityChecker.Operation("read", 0, "0", 3, 4))));
+    }
+}
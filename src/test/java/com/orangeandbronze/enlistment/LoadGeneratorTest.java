@@ -0,0 +1,108 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadGeneratorTest {
+    @Test
+    void same_seed_generates_same_trace() {
+        TrafficTrace trace1 = TrafficTrace.generate(SyntheticCatalog.generate(7, 20, 2, 5, 100), 500, 20);
+        TrafficTrace trace2 = TrafficTrace.generate(SyntheticCatalog.generate(7, 20, 2, 5, 100), 500, 20);
+
+        assertEquals(trace1.getOperations(), trace2.getOperations());
+    }
+
+    @Test
+    void sequential_replay_of_captured_trace_is_deterministic() throws Exception {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(7, 20, 2, 5, 100);
+        TrafficTrace trace = TrafficTrace.generate(catalog, 500, 20);
+        Path file = Files.createTempFile("trace", ".txt");
+        try {
+            trace.write(file);
+            TrafficTrace captured = TrafficTrace.read(file);
+
+            LoadReport original = new LoadGenerator(catalog).replaySequentially(trace);
+            LoadReport replayed = new LoadGenerator(captured.regenerateCatalog())
+                    .replaySequentially(captured);
+
+            assertAll(
+                    () -> assertEquals(500, replayed.getOperations()),
+                    () -> assertEquals(original.getRejections(), replayed.getRejections())
+            );
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void recorded_live_traffic_replays_to_the_same_enlistment() throws Exception {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(7, 20, 2, 5, 100);
+        TrafficTrace trace = TrafficTrace.generate(catalog, 300, 20);
+        TrafficRecorder recorder = new TrafficRecorder(catalog);
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(10)) {
+            dispatcher.addListener(recorder);
+            for (TrafficTrace.Operation operation : trace.getOperations()) {
+                Student student = catalog.getStudents().get(operation.getStudentIndex());
+                Section section = catalog.getSections().get(operation.getSectionIndex());
+                CompletableFuture<Void> done = operation.getType() == TrafficTrace.OperationType.ENLIST
+                        ? dispatcher.enlist(student, section) : dispatcher.cancel(student, section);
+                try {
+                    done.get(5, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // rejections are recorded too
+                }
+            }
+            dispatcher.removeListener(recorder);
+        }
+        TrafficTrace recorded = recorder.toTrace();
+        SyntheticCatalog replayedCatalog = recorded.regenerateCatalog();
+        new LoadGenerator(replayedCatalog).replaySequentially(recorded);
+
+        assertAll(
+                () -> assertEquals(trace.getOperations(), recorded.getOperations()),
+                () -> assertEquals(0, recorder.getSkipped()),
+                () -> {
+                    for (int i = 0; i < catalog.getStudents().size(); i++) {
+                        assertEquals(catalog.getStudents().get(i).getSections().toString(),
+                                replayedCatalog.getStudents().get(i).getSections().toString(), "student " + i);
+                    }
+                });
+    }
+
+    @Test
+    void concurrent_run_accounts_for_every_operation() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(11, 20, 2, 5, 100);
+        TrafficTrace trace = TrafficTrace.generate(catalog, 300, 20);
+
+        try (EnlistmentDispatcher dispatcher = new EnlistmentDispatcher(1000)) {
+            LoadReport report = new LoadGenerator(catalog).run(trace, dispatcher, 100_000);
+
+            assertAll(
+                    () -> assertEquals(300, report.getOperations()),
+                    () -> assertTrue(report.getLatencyPercentile(50) <= report.getLatencyPercentile(99))
+            );
+        }
+    }
+
+    @Test
+    void trace_refuses_a_different_catalog() throws Exception {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(7, 20, 2, 5, 100);
+        Path file = Files.createTempFile("trace", ".txt");
+        try {
+            TrafficTrace.generate(catalog, 50, 20).write(file);
+            TrafficTrace captured = TrafficTrace.read(file);
+            LoadGenerator other = new LoadGenerator(SyntheticCatalog.generate(7, 20, 2, 5, 120));
+
+            assertThrows(IllegalArgumentException.class, () -> other.replaySequentially(captured));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
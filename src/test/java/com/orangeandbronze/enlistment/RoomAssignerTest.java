@@ -0,0 +1,116 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomAssignerTest {
+    final Subject MTH101A = new Subject("MTH101A", 3, false);
+    final Schedule MTH_0830 = Schedule.of(Days.MTH, Period.of(8, true, 10, false));
+    final Schedule TF_0830 = Schedule.of(Days.TF, Period.of(8, true, 10, false));
+
+    @Test
+    void sections_go_to_the_smallest_room_that_fits() {
+        Room small = new Room("SMALL", 10, Collections.emptyList());
+        Room large = new Room("LARGE", 40, Collections.emptyList());
+        var plan = new RoomAssigner.SectionPlan("A", MTH101A, MTH_0830, 8);
+
+        var assignment = new RoomAssigner(4, 100, 1).assign(List.of(plan), List.of(large, small));
+
+        assertAll(
+                () -> assertEquals(small, assignment.getRoom(plan)),
+                () -> assertEquals(2, assignment.getWastedSeats())
+        );
+    }
+
+    @Test
+    void sections_at_the_same_time_never_share_a_room() {
+        Room small = new Room("SMALL", 10, Collections.emptyList());
+        Room large = new Room("LARGE", 40, Collections.emptyList());
+        var popular = new RoomAssigner.SectionPlan("A", MTH101A, MTH_0830, 35);
+        var quiet = new RoomAssigner.SectionPlan("B", MTH101A, MTH_0830, 5);
+        var later = new RoomAssigner.SectionPlan("C", MTH101A, TF_0830, 9);
+
+        var assignment = new RoomAssigner(4, 100, 1).assign(List.of(quiet, popular, later), List.of(small, large));
+
+        assertAll(
+                () -> assertEquals(large, assignment.getRoom(popular)),
+                () -> assertEquals(small, assignment.getRoom(quiet)),
+                () -> assertEquals(small, assignment.getRoom(later)),
+                () -> assertEquals(0, assignment.getOverflowStudents())
+        );
+    }
+
+    @Test
+    void sections_are_left_unassigned_when_every_room_is_taken() {
+        Room room = new Room("X", 40, List.of(MTH_0830));
+        var plan = new RoomAssigner.SectionPlan("A", MTH101A, MTH_0830, 10);
+
+        var assignment = new RoomAssigner(2, 10, 1).assign(List.of(plan), List.of(room));
+
+        assertEquals(List.of(plan), assignment.getUnassigned());
+    }
+
+    @Test
+    void no_section_is_created_when_a_room_was_taken_since_the_assignment() {
+        Room first = new Room("FIRST", 40, Collections.emptyList());
+        Room second = new Room("SECOND", 40, Collections.emptyList());
+        var plans = List.of(new RoomAssigner.SectionPlan("A", MTH101A, MTH_0830, 30), new RoomAssigner.SectionPlan("B", MTH101A, MTH_0830, 30));
+        var assignment = new RoomAssigner(2, 10, 1).assign(plans, List.of(first, second));
+        assertEquals(0, assignment.getUnassigned().size());
+        Room taken = assignment.getRoom(plans.get(1));
+        taken.reserve(MTH_0830);
+
+        assertThrows(ScheduleRoomConflictException.class, assignment::createSections);
+        assertAll(
+                () -> assertTrue(assignment.getRoom(plans.get(0)).isAvailable(MTH_0830)),
+                () -> assertEquals(List.of(MTH_0830), new ArrayList<>(taken.getTakenTimeSlots())));
+    }
+
+    @Test
+    void local_search_never_does_worse_than_greedy_and_never_double_books() {
+        Random random = new Random(3);
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            rooms.add(new Room("R" + i, 10 + random.nextInt(40), Collections.emptyList()));
+        }
+        Schedule[] schedules = {MTH_0830, TF_0830, Schedule.of(Days.WS, Period.of(8, true, 10, false)),
+                Schedule.of(Days.MTH, Period.of(9, false, 11, false))};
+        List<RoomAssigner.SectionPlan> plans = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            plans.add(new RoomAssigner.SectionPlan("S" + i, MTH101A, schedules[i % schedules.length], 5 + random.nextInt(45)));
+        }
+
+        var greedy = new RoomAssigner(1, 0, 1).assign(plans, rooms);
+        var searched = new RoomAssigner(4, 5000, 1).assign(plans, rooms);
+
+        Map<Room, List<Schedule>> taken = new HashMap<>();
+        searched.getRooms().forEach((plan, room) -> {
+            for (Schedule other : taken.computeIfAbsent(room, r -> new ArrayList<>())) {
+                assertFalse(other.hasConflictWith(plan.getSchedule()), "double-booked " + room);
+            }
+            taken.get(room).add(plan.getSchedule());
+        });
+        assertAll(
+                () -> assertTrue(searched.getUnassigned().size() <= greedy.getUnassigned().size()),
+                () -> assertTrue(searched.getWastedSeats() + 100 * searched.getOverflowStudents()
+                        <= greedy.getWastedSeats() + 100 * greedy.getOverflowStudents()
+                        || searched.getUnassigned().size() < greedy.getUnassigned().size())
+        );
+    }
+
+    @Test
+    void created_sections_take_their_room_slots() {
+        Room room = new Room("X", 40, Collections.emptyList());
+        var plan = new RoomAssigner.SectionPlan("A", MTH101A, MTH_0830, 10);
+
+        List<Section> sections = new RoomAssigner(1, 0, 1).assign(List.of(plan), List.of(room)).createSections();
+
+        assertAll(
+                () -> assertEquals(1, sections.size()),
+                () -> assertFalse(room.isAvailable(MTH_0830))
+        );
+    }
+}
@@ -0,0 +1,109 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleTest {
+    @Test
+    void separately_built_equal_schedules_are_equal() {
+        var schedule1 = new Schedule(Days.MTH, new Period(8, true, 10, false));
+        var schedule2 = new Schedule(Days.MTH, new Period(8, true, 10, false));
+
+        assertAll(
+                () -> assertEquals(schedule1, schedule2),
+                () -> assertEquals(schedule1.hashCode(), schedule2.hashCode())
+        );
+    }
+
+    @Test
+    void factory_returns_canonical_instances() {
+        var schedule1 = Schedule.of(Days.TF, new Period(13, false, 14, true));
+        var schedule2 = Schedule.of(Days.TF, Period.of(13, false, 14, true));
+
+        assertAll(
+                () -> assertSame(schedule1, schedule2),
+                () -> assertSame(schedule1.getMeetings().get(0).getPeriod(), Period.of(13, false, 14, true)),
+                () -> assertSame(schedule1, new Schedule(Days.TF, new Period(13, false, 14, true)).intern())
+        );
+    }
+
+    @Test
+    void same_period_on_different_days_does_not_conflict() {
+        var schedule1 = Schedule.of(Days.MTH, Period.of(8, true, 10, false));
+        var schedule2 = Schedule.of(Days.WS, Period.of(8, true, 10, false));
+
+        assertAll(
+                () -> assertFalse(schedule1.hasConflictWith(schedule2)),
+                () -> assertNotEquals(schedule1, schedule2)
+        );
+    }
+
+    @Test
+    void overlapping_periods_on_same_days_conflict() {
+        var schedule1 = Schedule.of(Days.WS, Period.of(16, false, 17, true));
+        var schedule2 = Schedule.of(Days.WS, Period.of(17, false, 17, true));
+        var schedule3 = Schedule.of(Days.WS, Period.of(8, true, 16, false));
+
+        assertAll(
+                () -> assertTrue(schedule1.hasConflictWith(schedule2)),
+                () -> assertFalse(schedule1.hasConflictWith(schedule3))
+        );
+    }
+
+    @Test
+    void saturday_evening_class_conflicts_only_with_saturday_classes() {
+        var saturdayEvening = Schedule.of(Set.of(DayOfWeek.SATURDAY), Period.ofMinutes(18 * 60, 21 * 60));
+        var wsEvening = Schedule.of(Set.of(DayOfWeek.WEDNESDAY, DayOfWeek.SATURDAY), Period.ofMinutes(20 * 60 + 55, 22 * 60));
+        var wsMorning = Schedule.of(Days.WS, Period.of(8, true, 10, false));
+
+        assertAll(
+                () -> assertTrue(saturdayEvening.hasConflictWith(wsEvening)),
+                () -> assertFalse(saturdayEvening.hasConflictWith(wsMorning))
+        );
+    }
+
+    @Test
+    void lecture_with_separate_lab_meeting_conflicts_on_either_meeting() {
+        var lectureWithLab = Schedule.of(List.of(
+                new Meeting(Set.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY), Period.ofMinutes(9 * 60, 10 * 60)),
+                new Meeting(Set.of(DayOfWeek.FRIDAY), Period.ofMinutes(13 * 60, 14 * 60 + 30))));
+        var fridayAfternoon = Schedule.of(Days.TF, Period.of(14, false, 15, false));
+        var tuesdayAfternoon = Schedule.of(Set.of(DayOfWeek.TUESDAY), Period.ofMinutes(13 * 60, 14 * 60 + 30));
+
+        assertAll(
+                () -> assertTrue(lectureWithLab.hasConflictWith(fridayAfternoon)),
+                () -> assertFalse(lectureWithLab.hasConflictWith(tuesdayAfternoon))
+        );
+    }
+
+    @Test
+    void back_to_back_five_minute_periods_do_not_conflict() {
+        var first = Schedule.of(Set.of(DayOfWeek.MONDAY), Period.ofMinutes(7 * 60, 7 * 60 + 5));
+        var second = Schedule.of(Set.of(DayOfWeek.MONDAY), Period.ofMinutes(7 * 60 + 5, 7 * 60 + 10));
+
+        assertFalse(first.hasConflictWith(second));
+    }
+
+    @Test
+    void period_must_be_on_five_minute_grid() {
+        assertThrows(IllegalArgumentException.class, () -> Period.ofMinutes(9 * 60 + 2, 10 * 60));
+    }
+
+    @Test
+    void room_rejects_reservation_overlapping_taken_slot() {
+        Room room = new Room("X", 10, Collections.emptyList());
+        room.reserve(Schedule.of(Set.of(DayOfWeek.SATURDAY), Period.ofMinutes(18 * 60, 21 * 60)));
+
+        assertAll(
+                () -> assertThrows(ScheduleRoomConflictException.class,
+                        () -> room.reserve(Schedule.of(Days.WS, Period.ofMinutes(20 * 60, 22 * 60)))),
+                () -> assertTrue(room.isAvailable(Schedule.of(Days.WS, Period.of(8, true, 10, false))))
+        );
+    }
+}
@@ -0,0 +1,74 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionDemandAnalyticsTest {
+    final Instant NOW = Instant.parse("2026-06-01T08:00:00Z");
+    final Subject MTH101A = new Subject("MTH101A", 3, false);
+    final Subject CCPROG1 = new Subject("CCPROG1", 3, true);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(MTH101A, CCPROG1)));
+    final Section SECTION_A = new Section("A", new Schedule(Days.MTH, new Period(8, true, 10, false)),
+            new Room("X", 2, Collections.emptyList()), MTH101A);
+    final Section SECTION_B = new Section("B", new Schedule(Days.TF, new Period(8, true, 10, false)),
+            new Room("Y", 10, Collections.emptyList()), CCPROG1);
+
+    SectionDemandAnalytics newAnalytics(Instant now) {
+        return new SectionDemandAnalytics(Clock.fixed(now, ZoneOffset.UTC), Duration.ofMinutes(1), 60, 1, 100);
+    }
+
+    EnlistmentEvent event(EnlistmentEvent.Type type, Section section, RuntimeException rejection, Instant at) {
+        return new EnlistmentEvent(type, new Student(1, BS_CS_ST), section, rejection, at);
+    }
+
+    @Test
+    void counts_enlistments_and_rejections_per_section_and_subject() {
+        SectionDemandAnalytics analytics = newAnalytics(NOW);
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW));
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW));
+        analytics.onEvent(event(EnlistmentEvent.Type.REJECTED, SECTION_A, new RoomCapacityReachedException("full"), NOW));
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_B, null, NOW));
+
+        analytics.drain();
+
+        var sectionDemand = analytics.getSectionDemand(SECTION_A);
+        var subjectDemand = analytics.getSubjectDemand(MTH101A);
+        assertAll(
+                () -> assertEquals(2, sectionDemand.getWindowEnlistments()),
+                () -> assertEquals(1L, sectionDemand.getWindowRejections().get("RoomCapacityReachedException")),
+                () -> assertEquals(3, sectionDemand.getWindowAttempts()),
+                () -> assertEquals(1, subjectDemand.getWindowCapacityRejections()),
+                () -> assertEquals(List.of(sectionDemand), analytics.getHottestSections())
+        );
+    }
+
+    @Test
+    void events_older_than_the_window_are_not_counted() {
+        SectionDemandAnalytics analytics = newAnalytics(NOW);
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW.minusSeconds(120)));
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW.minusSeconds(30)));
+
+        analytics.drain();
+
+        assertEquals(1, analytics.getSectionDemand(SECTION_A).getWindowEnlistments());
+    }
+
+    @Test
+    void events_beyond_queue_capacity_are_dropped() {
+        SectionDemandAnalytics analytics = new SectionDemandAnalytics(Clock.fixed(NOW, ZoneOffset.UTC),
+                Duration.ofMinutes(1), 60, 1, 1);
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW));
+        analytics.onEvent(event(EnlistmentEvent.Type.ENLISTED, SECTION_A, null, NOW));
+
+        assertEquals(1, analytics.getDroppedEvents());
+    }
+}
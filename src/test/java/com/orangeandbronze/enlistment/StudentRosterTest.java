@@ -0,0 +1,105 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StudentRosterTest {
+    final Subject ROST101 = new Subject("ROST101", 3, false);
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(ROST101)));
+
+    Section section(String id, Days days) {
+        return new Section(id, Schedule.of(days, Period.of(8, true, 10, false)),
+                new Room("R" + id, 100, Collections.emptyList()), ROST101);
+    }
+
+    @Test
+    void roster_kept_sorted_and_distinct() {
+        StudentRoster roster = new StudentRoster();
+        assertAll(
+                () -> assertTrue(roster.add(30)),
+                () -> assertTrue(roster.add(10)),
+                () -> assertTrue(roster.add(20)),
+                () -> assertFalse(roster.add(10)),
+                () -> assertTrue(roster.remove(20)),
+                () -> assertFalse(roster.remove(20)),
+                () -> assertArrayEquals(new int[]{10, 30}, roster.toArray()),
+                () -> assertTrue(roster.contains(30)),
+                () -> assertEquals(2, roster.size()));
+    }
+
+    @Test
+    void enlist_cancel_and_swap_update_rosters() {
+        Section first = section("A", Days.MTH);
+        Section second = section("B", Days.TF);
+        Student student1 = new Student(1, BS_CS_ST);
+        Student student2 = new Student(2, BS_CS_ST);
+        Student student3 = new Student(3, BS_CS_ST);
+        student3.enlist(first);
+        student1.enlist(first);
+        student2.enlist(first);
+        student2.cancelEnlistment(first);
+        student3.swap(first, second);
+
+        assertAll(
+                () -> assertArrayEquals(new int[]{1}, first.getRoster()),
+                () -> assertArrayEquals(new int[]{3}, second.getRoster()),
+                () -> assertEquals(first.getNumberOfEnlisted(), first.getHeadcount()),
+                () -> assertEquals(second.getNumberOfEnlisted(), second.getHeadcount()),
+                () -> assertFalse(first.hasStudent(2)));
+    }
+
+    @Test
+    void concurrent_enlist_and_cancel_leave_roster_matching_students() throws Exception {
+        Section first = section("A", Days.MTH);
+        Section second = section("B", Days.TF);
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            students.add(new Student(i, BS_CS_ST));
+        }
+        ExecutorService tabs = Executors.newFixedThreadPool(8);
+        for (int tab = 0; tab < 8; tab++) {
+            int seed = tab;
+            tabs.execute(() -> {
+                Random random = new Random(seed);
+                for (int i = 0; i < 2_000; i++) {
+                    Student student = students.get(random.nextInt(students.size()));
+                    Section section = random.nextBoolean() ? first : second;
+                    try {
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                student.enlist(section);
+                                break;
+                            case 1:
+                                student.cancelEnlistment(section);
+                                break;
+                            default:
+                                student.swap(section, section == first ? second : first);
+                        }
+                    } catch (RuntimeException e) {
+                        // duplicates and unenlisted sections are expected
+                    }
+                }
+            });
+        }
+        tabs.shutdown();
+        assertTrue(tabs.awaitTermination(30, TimeUnit.SECONDS));
+
+        for (Section section : List.of(first, second)) {
+            int[] expected = students.stream().filter(s -> s.getSections().contains(section))
+                    .mapToInt(Student::getStudentNo).toArray();
+            assertAll(
+                    () -> assertArrayEquals(expected, section.getRoster()),
+                    () -> assertEquals(expected.length, section.getNumberOfEnlisted()));
+        }
+    }
+}
@@ -6,6 +6,10 @@ import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -549,4 +553,238 @@ class StudentTest {
 
         assertThrows(ScheduleRoomConflictException.class, () -> new Section("B", sched2, X, CCICOMP));
     }
+
+    @Test
+    void enlist_lecture_and_lab_corequisites_together() {
+        Subject NETLEC = new Subject("NETLEC", 3, false);
+        Subject NETLAB = new Subject("NETLAB", 1, true);
+        NETLEC.addCorequisite(NETLAB);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(NETLEC, NETLAB)));
+        Student student = newDefaultStudent(1, BS_IT);
+        Section lecture = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), NETLEC);
+        Section lab = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), NETLAB);
+
+        assertThrows(CorequisiteNotMetException.class, () -> student.enlist(lecture));
+        student.enlistAll(List.of(lecture, lab));
+        assertAll(
+                () -> assertTrue(student.getSections().containsAll(List.of(lecture, lab))),
+                () -> assertEquals(4, student.getTotalUnitsEnlisted()));
+    }
+
+    @Test
+    void cancel_lecture_leaving_its_lab_enlisted() {
+        Subject NETLEC = new Subject("NETLEC", 3, false);
+        Subject NETLAB = new Subject("NETLAB", 1, true);
+        Subject NETSEM = new Subject("NETSEM", 3, false);
+        NETLEC.addCorequisite(NETLAB);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(NETLEC, NETLAB, NETSEM)));
+        Student student = newDefaultStudent(1, BS_IT);
+        Section lecture = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), NETLEC);
+        Section lab = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), NETLAB);
+        Section seminar = new Section("C", MTH_0830, new Room("Z", 10, Collections.emptyList()), NETSEM);
+        student.enlistAll(List.of(lecture, lab));
+
+        assertThrows(CorequisiteNotMetException.class, () -> student.cancelEnlistment(lecture));
+        assertThrows(CorequisiteNotMetException.class, () -> student.swap(lecture, seminar));
+        assertAll(
+                () -> assertEquals(List.of(lecture, lab), List.copyOf(student.getSections())),
+                () -> assertEquals(0, seminar.getNumberOfEnlisted()));
+        student.cancelAll(List.of(lab, lecture));
+        assertAll(
+                () -> assertTrue(student.getSections().isEmpty()),
+                () -> assertEquals(0, lecture.getNumberOfEnlisted()),
+                () -> assertEquals(0, lab.getNumberOfEnlisted()));
+    }
+
+    @Test
+    void swap_lecture_for_another_section_of_the_same_subject_keeps_its_lab() {
+        Subject NETLEC = new Subject("NETLEC", 3, false);
+        Subject NETLAB = new Subject("NETLAB", 1, true);
+        NETLEC.addCorequisite(NETLAB);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(NETLEC, NETLAB)));
+        Student student = newDefaultStudent(1, BS_IT);
+        Section lecture = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), NETLEC);
+        Section lab = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), NETLAB);
+        Section otherLecture = new Section("C", MTH_0830, new Room("Z", 10, Collections.emptyList()), NETLEC);
+        student.enlistAll(List.of(lecture, lab));
+
+        student.swap(lecture, otherLecture);
+        assertEquals(List.of(lab, otherLecture), List.copyOf(student.getSections()));
+    }
+
+    @Test
+    void enlist_corequisite_already_passed() {
+        Subject STATLEC = new Subject("STATLEC", 3, false);
+        Subject STATLAB = new Subject("STATLAB", 1, true);
+        STATLAB.addCorequisite(STATLEC);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(STATLEC, STATLAB)));
+        Student student = new Student(1, Collections.emptyList(), List.of(STATLEC), BS_IT);
+        Section lab = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), STATLAB);
+
+        student.enlist(lab);
+        assertEquals(List.of(lab), List.copyOf(student.getSections()));
+    }
+
+    @Test
+    void enlist_mutually_exclusive_subjects() {
+        Subject CALC1 = new Subject("CALC1", 3, false);
+        Subject BUSCALC = new Subject("BUSCALC", 3, false);
+        CALC1.addExclusion(BUSCALC);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(CALC1, BUSCALC)));
+        Student student = newDefaultStudent(1, BS_IT);
+        student.enlist(new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), CALC1));
+        Section other = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), BUSCALC);
+
+        assertThrows(MutuallyExclusiveSubjectsException.class, () -> student.enlist(other));
+    }
+
+    @Test
+    void enlist_all_takes_no_seat_when_one_section_is_full() {
+        Subject NETLEC = new Subject("NETLEC", 3, false);
+        Subject NETLAB = new Subject("NETLAB", 1, true);
+        NETLEC.addCorequisite(NETLAB);
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(NETLEC, NETLAB)));
+        Section lecture = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), NETLEC);
+        Section lab = new Section("B", TF_0830, new Room("Y", 1, Collections.emptyList()), NETLAB);
+        newDefaultStudent(1, BS_IT).enlistAll(List.of(lab, lecture));
+        Student student = newDefaultStudent(2, BS_IT);
+
+        assertThrows(RoomCapacityReachedException.class, () -> student.enlistAll(List.of(lecture, lab)));
+        assertAll(
+                () -> assertEquals(1, lecture.getNumberOfEnlisted()),
+                () -> assertTrue(student.getSections().isEmpty()),
+                () -> assertEquals(0, student.getTotalUnitsEnlisted()));
+    }
+
+    @Test
+    void concurrent_double_submits_enlist_once() throws Exception {
+        Subject[] subjects = new Subject[8];
+        for (int i = 0; i < subjects.length; i++) {
+            subjects[i] = new Subject("CONC" + i, 3, false);
+        }
+        DegreeProgram BS_IT = new DegreeProgram("BS IT", new HashSet<>(List.of(subjects)));
+        Section[] sections = new Section[subjects.length];
+        for (int i = 0; i < sections.length; i++) {
+            // pairs of sections share a schedule, so at most one of each pair can be enlisted
+            Schedule schedule = Schedule.of(Days.values()[i / 2 % 3], Period.of(8 + i / 6 * 2, true, 10 + i / 6 * 2, false));
+            sections[i] = new Section("S" + i, schedule, new Room("R" + i, 100, Collections.emptyList()), subjects[i]);
+        }
+
+        for (int round = 0; round < 50; round++) {
+            Student student = newDefaultStudent(round, BS_IT);
+            ExecutorService tabs = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            for (int tab = 0; tab < 4; tab++) {
+                tabs.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (Section section : sections) {
+                        try {
+                            student.enlist(section);
+                        } catch (RuntimeException e) {
+                            // conflicts and duplicates are expected
+                        }
+                    }
+                });
+            }
+            start.countDown();
+            tabs.shutdown();
+            assertTrue(tabs.awaitTermination(10, TimeUnit.SECONDS));
+
+            var enlisted = student.getSections();
+            assertAll(
+                    () -> assertEquals(enlisted.size() * 3, student.getTotalUnitsEnlisted()),
+                    () -> assertEquals(enlisted.size(), enlisted.stream().map(Section::getSubject).distinct().count()),
+                    () -> assertTrue(enlisted.stream().allMatch(a -> enlisted.stream()
+                            .allMatch(b -> a == b || !a.getSchedule().hasConflictWith(b.getSchedule())))));
+        }
+        // every section's seat count matches the students enlisted in it
+        int seats = 0;
+        for (Section section : sections) {
+            seats += section.getNumberOfEnlisted();
+        }
+        assertEquals(50 * 4, seats);
+    }
+
+    @Test
+    void swap_moves_seat_to_new_section() {
+        Student student = newDefaultStudent();
+        Section old = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section replacement = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), MTH101A);
+        student.enlist(old);
+
+        student.swap(old, replacement);
+        assertAll(
+                () -> assertEquals(List.of(replacement), List.copyOf(student.getSections())),
+                () -> assertEquals(0, old.getNumberOfEnlisted()),
+                () -> assertEquals(1, replacement.getNumberOfEnlisted()),
+                () -> assertEquals(3, student.getTotalUnitsEnlisted()));
+    }
+
+    @Test
+    void swap_into_full_section_keeps_old_seat() {
+        Student student = newDefaultStudent();
+        Section old = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section full = new Section("B", TF_0830, new Room("Y", 1, Collections.emptyList()), MTH101A);
+        student.enlist(old);
+        newDefaultStudent(2, BS_CS_ST).enlist(full);
+
+        assertThrows(RoomCapacityReachedException.class, () -> student.swap(old, full));
+        assertAll(
+                () -> assertEquals(List.of(old), List.copyOf(student.getSections())),
+                () -> assertEquals(1, old.getNumberOfEnlisted()),
+                () -> assertEquals(1, full.getNumberOfEnlisted()));
+    }
+
+    @Test
+    void swap_into_schedule_of_old_section_has_no_conflict() {
+        Student student = newDefaultStudent();
+        Section old = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section sameTime = new Section("B", MTH_0830, new Room("Y", 10, Collections.emptyList()), CCICOMP);
+        student.enlist(old);
+
+        student.swap(old, sameTime);
+        assertEquals(List.of(sameTime), List.copyOf(student.getSections()));
+    }
+
+    @Test
+    void swap_unenlisted_section() {
+        Student student = newDefaultStudent();
+        Section old = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section replacement = new Section("B", TF_0830, new Room("Y", 10, Collections.emptyList()), MTH101A);
+
+        assertThrows(CancellingUnenlistedSectionException.class, () -> student.swap(old, replacement));
+        assertEquals(0, replacement.getNumberOfEnlisted());
+    }
+
+    @Test
+    void cancelling_initial_section_does_not_free_another_students_seat() {
+        Section section = new Section("A", MTH_0830, new Room("X", 2, Collections.emptyList()), MTH101A);
+        newDefaultStudent(1, BS_CS_ST).enlist(section);
+        Student existing = new Student(2, List.of(section), Collections.emptyList(), BS_CS_ST);
+        assertAll(
+                () -> assertEquals(2, section.getNumberOfEnlisted()),
+                () -> assertArrayEquals(new int[] {1, 2}, section.getRoster()));
+
+        existing.cancelEnlistment(section);
+        newDefaultStudent(3, BS_CS_ST).enlist(section);
+        assertThrows(RoomCapacityReachedException.class, () -> newDefaultStudent(4, BS_CS_ST).enlist(section));
+        assertAll(
+                () -> assertEquals(2, section.getNumberOfEnlisted()),
+                () -> assertArrayEquals(new int[] {1, 3}, section.getRoster()));
+    }
+
+    @Test
+    void initial_sections_in_full_room_rejected() {
+        Section open = new Section("A", MTH_0830, new Room("X", 10, Collections.emptyList()), MTH101A);
+        Section full = new Section("B", TF_0830, new Room("Y", 1, Collections.emptyList()), CCICOMP);
+        newDefaultStudent(1, BS_CS_ST).enlist(full);
+
+        assertThrows(RoomCapacityReachedException.class,
+                () -> new Student(2, List.of(open, full), Collections.emptyList(), BS_CS_ST));
+        assertEquals(0, open.getNumberOfEnlisted());
+    }
 }
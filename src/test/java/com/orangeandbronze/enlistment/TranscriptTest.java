@@ -0,0 +1,92 @@
+package com.orangeandbronze.enlistment;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptTest {
+    final Subject CCPROG1 = new Subject("TRNPROG1", 3, true);
+    final Subject CCPROG2 = new Subject("TRNPROG2", 3, true, List.of(CCPROG1));
+    final DegreeProgram BS_CS_ST = new DegreeProgram("BS CS-ST", new HashSet<>(List.of(CCPROG1, CCPROG2)));
+
+    private Section prog2Section() {
+        return new Section("A", Schedule.of(Days.MTH, Period.of(8, true, 10, false)),
+                new Room("X", 10, Collections.emptyList()), CCPROG2);
+    }
+
+    @Test
+    void failed_prerequisite_not_met() {
+        Student student = new Student(1, BS_CS_ST);
+        student.postGrade(CCPROG1, 20231, Grade.FAILED);
+        Section section = prog2Section();
+        assertAll(
+                () -> assertThrows(PrerequisitesNotMetException.class, () -> student.enlist(section)),
+                () -> assertEquals(List.of(CCPROG1), List.copyOf(student.getSubjectsTaken())),
+                () -> assertFalse(student.hasPassed(CCPROG1)));
+    }
+
+    @Test
+    void passed_on_retake_meets_prerequisite() {
+        Student student = new Student(1, BS_CS_ST);
+        student.postGrade(CCPROG1, 20231, Grade.FAILED);
+        student.postGrade(CCPROG1, 20232, Grade.TWO_FIVE);
+        student.enlist(prog2Section());
+        assertAll(
+                () -> assertEquals(2, student.getTranscript().size()),
+                () -> assertTrue(student.getPassedSubjects().get(CCPROG1.getIndex())));
+    }
+
+    @Test
+    void completed_incomplete_replaces_grade() {
+        Transcript transcript = new Transcript();
+        transcript.post(CCPROG1, 20231, Grade.INCOMPLETE);
+        assertFalse(transcript.hasPassed(CCPROG1));
+        transcript.post(CCPROG1, 20231, Grade.THREE);
+        Transcript.Entry entry = transcript.getEntries().get(0);
+        assertAll(
+                () -> assertEquals(1, transcript.size()),
+                () -> assertEquals(CCPROG1, entry.getSubject()),
+                () -> assertEquals(20231, entry.getTerm()),
+                () -> assertEquals(Grade.THREE, entry.getGrade()),
+                () -> assertTrue(transcript.hasPassed(CCPROG1)));
+    }
+
+    @Test
+    void corrected_to_failing_grade_no_longer_passed() {
+        Transcript transcript = new Transcript();
+        transcript.post(CCPROG1, 20231, Grade.ONE);
+        transcript.post(CCPROG1, 20231, Grade.WITHDRAWN);
+        assertFalse(transcript.hasPassed(CCPROG1));
+    }
+
+    @Test
+    void subjects_taken_in_constructor_count_as_passed() {
+        Student student = new Student(1, Collections.emptyList(), List.of(CCPROG1), BS_CS_ST);
+        student.enlist(prog2Section());
+        assertEquals(Grade.PASSED, student.getTranscript().get(0).getGrade());
+    }
+
+    @Test
+    void term_out_of_range_rejected() {
+        Transcript transcript = new Transcript();
+        assertThrows(IllegalArgumentException.class, () -> transcript.post(CCPROG1, Transcript.MAX_TERM + 1, Grade.ONE));
+    }
+
+    @Test
+    void subject_created_again_does_not_change_transcript() {
+        Student student = new Student(1, BS_CS_ST);
+        Subject posted = new Subject("TRNRELOAD", 3, false);
+        student.postGrade(posted, 20231, Grade.PASSED);
+        new Subject("TRNRELOAD", 5, true);
+
+        Subject taken = student.getTranscript().get(0).getSubject();
+        assertAll(
+                () -> assertSame(posted, taken),
+                () -> assertEquals(3, taken.getUnits()),
+                () -> assertSame(posted, student.getSubjectsTaken().iterator().next()));
+    }
+}